@@ -0,0 +1,107 @@
+package librarymanagement.application;
+
+import librarymanagement.domain.Media;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sorted dictionary of catalog titles and authors for type-ahead. Completions are ranked by weight,
+ * the number of media sharing the text (an author with ten books outranks one with a single title),
+ * then alphabetically. A lookup is one tree descent plus a bounded heap over the matching range;
+ * short prefixes, whose ranges are widest, keep their ranking until the catalog next changes.
+ */
+public class AutocompleteIndex implements CatalogIndex {
+    private static final int CACHED_PREFIX = 3;
+    private static final int CACHED_RESULTS = 32;
+    private static final Comparator<Entry> BY_RANK =
+            Comparator.comparingInt((Entry e) -> -e.count).thenComparing(e -> e.key);
+
+    private final NavigableMap<String, Entry> entries = new TreeMap<>();
+    private final Map<String, List<Entry>> ranked = new ConcurrentHashMap<>();
+
+    @Override
+    public void add(Media media) {
+        increment(media.getTitle());
+        increment(media.getAuthor());
+    }
+
+    @Override
+    public void remove(Media media) {
+        decrement(media.getTitle());
+        decrement(media.getAuthor());
+    }
+
+    @Override
+    public void update(Media media, String oldTitle, String oldAuthor) {
+        decrement(oldTitle);
+        decrement(oldAuthor);
+        add(media);
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+        ranked.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public List<String> complete(String prefix, int limit) {
+        List<String> completions = new ArrayList<>();
+        if (prefix == null || limit <= 0) return completions;
+        String p = prefix.toLowerCase(Locale.ROOT).stripLeading();
+        if (p.isEmpty()) return completions;
+
+        List<Entry> top = p.length() <= CACHED_PREFIX && limit <= CACHED_RESULTS
+                ? ranked.computeIfAbsent(p, k -> rank(k, CACHED_RESULTS)) : rank(p, limit);
+        for (int i = 0; i < Math.min(limit, top.size()); i++) completions.add(top.get(i).text);
+        return completions;
+    }
+
+    private List<Entry> rank(String prefix, int limit) {
+        PriorityQueue<Entry> worstFirst = new PriorityQueue<>(limit + 1, BY_RANK.reversed());
+        for (Entry e : entries.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            worstFirst.offer(e);
+            if (worstFirst.size() > limit) worstFirst.poll();
+        }
+        List<Entry> top = new ArrayList<>(worstFirst);
+        top.sort(BY_RANK);
+        return top;
+    }
+
+    private void increment(String text) {
+        if (text == null || text.isBlank()) return;
+        String display = text.trim();
+        entries.computeIfAbsent(display.toLowerCase(Locale.ROOT), k -> new Entry(k, display)).count++;
+        ranked.clear();
+    }
+
+    private void decrement(String text) {
+        if (text == null || text.isBlank()) return;
+        String k = text.trim().toLowerCase(Locale.ROOT);
+        Entry e = entries.get(k);
+        if (e != null && --e.count == 0) entries.remove(k);
+        ranked.clear();
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final String text;
+        private int count;
+
+        Entry(String key, String text) {
+            this.key = key;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package librarymanagement.application;
+
+import java.util.Locale;
+
+public class CampaignReport {
+    private final int total;
+    private final int sent;
+    private final int failed;
+    private final int skipped;
+    private final long elapsedMillis;
+
+    public CampaignReport(int total, int sent, int failed, int skipped, long elapsedMillis) {
+        this.total = total;
+        this.sent = sent;
+        this.failed = failed;
+        this.skipped = skipped;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getTotal() { return total; }
+    public int getSent() { return sent; }
+    public int getFailed() { return failed; }
+    public int getSkipped() { return skipped; }
+    public long getElapsedMillis() { return elapsedMillis; }
+
+    public int getProcessed() {
+        return sent + failed + skipped;
+    }
+
+    public double getThroughput() {
+        return elapsedMillis == 0 ? sent * 1000.0 : sent * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%d/%d processed: %d sent, %d failed, %d skipped (%.1f msg/s)",
+                getProcessed(), total, sent, failed, skipped, getThroughput());
+    }
+}
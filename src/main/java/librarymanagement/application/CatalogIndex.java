@@ -0,0 +1,13 @@
+package librarymanagement.application;
+
+import librarymanagement.domain.Media;
+
+public interface CatalogIndex {
+    void add(Media media);
+
+    void remove(Media media);
+
+    void update(Media media, String oldTitle, String oldAuthor);
+
+    void clear();
+}
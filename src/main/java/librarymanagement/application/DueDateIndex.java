@@ -0,0 +1,131 @@
+package librarymanagement.application;
+
+import librarymanagement.domain.BorrowedMedia;
+import librarymanagement.domain.LibraryUser;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Open loans bucketed by due date, so the loans that fell due before a given day are found without walking
+ * every user's loan history. Loans not yet fined sit in a second set of buckets that is drained oldest first,
+ * making the search for newly overdue loans proportional to how many fell due. Follows the loans borrowed,
+ * returned and reloaded through {@link LibraryService}, and re-files a loan whose due date changes. Each loan is
+ * removed from the bucket it was filed under, and empty buckets are dropped.
+ */
+final class DueDateIndex implements LibraryUser.LoanListener {
+    private final ConcurrentSkipListMap<LocalDate, Map<BorrowedMedia, LibraryUser>> buckets = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<LocalDate, Map<BorrowedMedia, LibraryUser>> unfined = new ConcurrentSkipListMap<>();
+    private final Map<BorrowedMedia, LocalDate> filedUnder = new ConcurrentHashMap<>();
+
+    synchronized void add(LibraryUser user, BorrowedMedia loan) {
+        if (loan.isReturned() || loan.getDueDate() == null) return;
+        user.setLoanListener(this);
+        LocalDate due = loan.getDueDate();
+        LocalDate previous = filedUnder.put(loan, due);
+        if (previous != null && !previous.equals(due)) unfile(loan, previous);
+        put(buckets, due, user, loan);
+        if (!loan.isFineAdded()) put(unfined, due, user, loan);
+    }
+
+    private static void put(ConcurrentSkipListMap<LocalDate, Map<BorrowedMedia, LibraryUser>> into, LocalDate due,
+                            LibraryUser user, BorrowedMedia loan) {
+        into.computeIfAbsent(due, d -> new ConcurrentHashMap<>()).put(loan, user);
+    }
+
+    synchronized void remove(BorrowedMedia loan) {
+        LocalDate due = filedUnder.remove(loan);
+        if (due != null) unfile(loan, due);
+    }
+
+    /**
+     * Unfiles every loan of a removed user, including any no longer among their open loans, so neither the
+     * sweeper nor the reminder campaign drains or fines them.
+     */
+    synchronized void removeAll(LibraryUser user) {
+        for (BorrowedMedia loan : user.getOpenLoansInternal()) remove(loan);
+        drop(buckets, user);
+        drop(unfined, user);
+    }
+
+    private void drop(ConcurrentSkipListMap<LocalDate, Map<BorrowedMedia, LibraryUser>> from, LibraryUser user) {
+        from.entrySet().removeIf(e -> {
+            e.getValue().entrySet().removeIf(loan -> {
+                if (loan.getValue() != user) return false;
+                filedUnder.remove(loan.getKey());
+                return true;
+            });
+            return e.getValue().isEmpty();
+        });
+    }
+
+    private void unfile(BorrowedMedia loan, LocalDate due) {
+        take(buckets, due, loan);
+        take(unfined, due, loan);
+    }
+
+    private static void take(ConcurrentSkipListMap<LocalDate, Map<BorrowedMedia, LibraryUser>> from, LocalDate due,
+                             BorrowedMedia loan) {
+        Map<BorrowedMedia, LibraryUser> loans = from.get(due);
+        if (loans == null) return;
+        loans.remove(loan);
+        if (loans.isEmpty()) from.remove(due, loans);
+    }
+
+    @Override
+    public synchronized void dueDateChanged(LibraryUser user, BorrowedMedia loan) {
+        if (!filedUnder.containsKey(loan)) return;
+        remove(loan);
+        add(user, loan);
+    }
+
+    Map<LibraryUser, List<BorrowedMedia>> overdueLoans(LocalDate today) {
+        Map<LibraryUser, List<BorrowedMedia>> overdue = new LinkedHashMap<>();
+        for (Map<BorrowedMedia, LibraryUser> loans : buckets.headMap(today).values()) {
+            loans.forEach((loan, user) -> {
+                if (!loan.isReturned()) overdue.computeIfAbsent(user, u -> new ArrayList<>()).add(loan);
+            });
+        }
+        return overdue;
+    }
+
+    synchronized Set<LibraryUser> takeNewlyOverdue(LocalDate today) {
+        Set<LibraryUser> users = new LinkedHashSet<>();
+        Map<LocalDate, Map<BorrowedMedia, LibraryUser>> due = unfined.headMap(today);
+        for (Map<BorrowedMedia, LibraryUser> loans : due.values()) {
+            loans.forEach((loan, user) -> {
+                if (!loan.isReturned() && !loan.isFineAdded()) users.add(user);
+            });
+        }
+        due.clear();
+        return users;
+    }
+
+    synchronized void rebuild(Collection<LibraryUser> users) {
+        buckets.clear();
+        unfined.clear();
+        filedUnder.clear();
+        for (LibraryUser user : users) {
+            for (BorrowedMedia loan : user.getOpenLoansInternal()) add(user, loan);
+        }
+    }
+
+    Map<LibraryUser, Integer> overdueCounts(LocalDate today) {
+        Map<LibraryUser, Integer> counts = new HashMap<>();
+        for (Map<BorrowedMedia, LibraryUser> loans : buckets.headMap(today).values()) {
+            loans.forEach((loan, user) -> {
+                if (!loan.isReturned()) counts.merge(user, 1, Integer::sum);
+            });
+        }
+        return counts;
+    }
+}
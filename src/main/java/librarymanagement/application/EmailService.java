@@ -9,20 +9,105 @@ import javax.mail.*;
 import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
-public class EmailService {
-    private final List<String> sentMessages = new ArrayList<>();
+/**
+ * Validates and logs each email on the caller's thread, then hands SMTP delivery to a bounded queue served by a
+ * fixed pool of worker threads. A full queue blocks the sender for up to the enqueue timeout before the handle
+ * fails; {@link #close} drains what is already queued, and a shutdown hook does the same for services never
+ * closed. Each worker keeps its own SMTP connection open between messages; a worker left idle past the
+ * connection idle timeout exits and closes it.
+ */
+public class EmailService implements AutoCloseable {
+    public static final int DEFAULT_WORKERS = 4;
+    public static final int DEFAULT_CAPACITY = 10_000;
+    private static final long DEFAULT_ENQUEUE_TIMEOUT_MS = 30_000;
+    private static final long DRAIN_TIMEOUT_MS = 60_000;
+    private static final long DEFAULT_IDLE_TIMEOUT_MS = 60_000;
+
+    private final List<String> sentMessages = Collections.synchronizedList(new ArrayList<>());
     private final String fromEmail;
     private final String appPassword;
+    private final ThreadPoolExecutor workers;
+    private final long enqueueTimeoutMillis;
+    private final Session session;
+    private final ThreadLocal<SmtpConnection> connection;
+    private final AtomicInteger connectionsOpened = new AtomicInteger();
+    private final Thread shutdownHook = new Thread(() -> shutdown(DRAIN_TIMEOUT_MS), "mail-drain");
+    private final AtomicBoolean hookRegistered = new AtomicBoolean();
+    private volatile long idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MS;
     private static final Logger logger = Logger.getLogger(EmailService.class.getName());
 
     public EmailService() {
-        Map<String, String> env = loadEnvFromFile();
-        this.fromEmail   = env.getOrDefault("SMTP_EMAIL", System.getenv("SMTP_EMAIL"));
-        this.appPassword = env.getOrDefault("SMTP_PASSWORD", System.getenv("SMTP_PASSWORD"));
+        this(DEFAULT_WORKERS, DEFAULT_CAPACITY, DEFAULT_ENQUEUE_TIMEOUT_MS);
+    }
+
+    public EmailService(int workerCount, int capacity, long enqueueTimeoutMillis) {
+        this(loadEnvFromFile(), workerCount, capacity, enqueueTimeoutMillis);
+    }
+
+    private EmailService(Map<String, String> env, int workerCount, int capacity, long enqueueTimeoutMillis) {
+        this(env.getOrDefault("SMTP_EMAIL", System.getenv("SMTP_EMAIL")),
+                env.getOrDefault("SMTP_PASSWORD", System.getenv("SMTP_PASSWORD")),
+                workerCount, capacity, enqueueTimeoutMillis);
+    }
+
+    public EmailService(String fromEmail, String appPassword, int workerCount, int capacity, long enqueueTimeoutMillis) {
+        this(fromEmail, appPassword, gmail(), workerCount, capacity, enqueueTimeoutMillis);
+    }
+
+    public EmailService(String fromEmail, String appPassword, Properties smtp, int workerCount, int capacity,
+                        long enqueueTimeoutMillis) {
+        if (workerCount < 1 || capacity < 1) throw new IllegalArgumentException("Workers and capacity must be positive");
+        this.enqueueTimeoutMillis = enqueueTimeoutMillis;
+        this.fromEmail   = fromEmail;
+        this.appPassword = appPassword;
+        this.session = Session.getInstance(smtp, new Authenticator() {
+            @Override
+            protected PasswordAuthentication getPasswordAuthentication() {
+                return new PasswordAuthentication(fromEmail, appPassword);
+            }
+        });
+        this.connection = ThreadLocal.withInitial(
+                () -> new SmtpConnection(session, fromEmail, appPassword, connectionsOpened));
+        AtomicInteger threadId = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, DEFAULT_IDLE_TIMEOUT_MS, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacity), r -> {
+                    Thread t = new Thread(() -> {
+                        try {
+                            r.run();
+                        } finally {
+                            connection.get().close();
+                            connection.remove();
+                        }
+                    }, "mail-sender-" + threadId.incrementAndGet());
+                    t.setDaemon(true);
+                    if (threadId.get() == 1 && hookRegistered.compareAndSet(false, true)) {
+                        Runtime.getRuntime().addShutdownHook(shutdownHook);
+                    }
+                    return t;
+                }, (r, executor) -> {
+                    try {
+                        if (executor.isShutdown()
+                                || !executor.getQueue().offer(r, this.enqueueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                            throw new RejectedExecutionException("Mail queue is full or shut down");
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException("Interrupted while waiting for the mail queue");
+                    }
+                });
+        workers.allowCoreThreadTimeOut(true);
 
         if (fromEmail == null || appPassword == null || fromEmail.isEmpty() || appPassword.isEmpty()) {
             logger.warning("Email data not found! Emails will be printed to the console only.");
@@ -30,7 +115,16 @@ public class EmailService {
         }
     }
 
-    private Map<String, String> loadEnvFromFile() {
+    private static Properties gmail() {
+        Properties props = new Properties();
+        props.put("mail.smtp.auth", "true");
+        props.put("mail.smtp.starttls.enable", "true");
+        props.put("mail.smtp.host", "smtp.gmail.com");
+        props.put("mail.smtp.port", "587");
+        return props;
+    }
+
+    private static Map<String, String> loadEnvFromFile() {
         Map<String, String> map = new HashMap<>();
         File file = new File("pass.env");
         if (!file.exists()) {
@@ -54,10 +148,10 @@ public class EmailService {
         }
         return map;
     }
-    private void sendRealEmail(String toEmail, String subject, String message) {
+    private CompletableFuture<Void> sendRealEmail(String toEmail, String subject, String message) {
         if (toEmail == null || toEmail.trim().isEmpty() || !toEmail.contains("@")) {
             System.out.println("Invalid email address: " + toEmail);
-            return;
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Invalid email address: " + toEmail));
         }
 
         String log = String.format("=== EMAIL SENT ===\nTo: %s\nSubject: %s\nMessage:\n%s\n==================",
@@ -67,22 +161,27 @@ public class EmailService {
 
         if (fromEmail == null || appPassword == null || fromEmail.isEmpty() || appPassword.isEmpty()) {
             System.out.println("SMTP credentials missing → Email only printed in console (not sent)");
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
-        Properties props = new Properties();
-        props.put("mail.smtp.auth", "true");
-        props.put("mail.smtp.starttls.enable", "true");
-        props.put("mail.smtp.host", "smtp.gmail.com");
-        props.put("mail.smtp.port", "587");
-
-        Session session = Session.getInstance(props, new Authenticator() {
-            @Override
-            protected PasswordAuthentication getPasswordAuthentication() {
-                return new PasswordAuthentication(fromEmail, appPassword);
-            }
-        });
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        try {
+            workers.execute(() -> {
+                try {
+                    deliver(toEmail, subject, message);
+                    done.complete(null);
+                } catch (Throwable e) {
+                    done.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            System.out.println("Email to " + toEmail + " not queued: " + e.getMessage());
+            done.completeExceptionally(e);
+        }
+        return done;
+    }
 
+    protected void deliver(String toEmail, String subject, String message) throws MessagingException {
         try {
             Message msg = new MimeMessage(session);
             msg.setFrom(new InternetAddress(fromEmail));
@@ -90,23 +189,60 @@ public class EmailService {
             msg.setSubject(subject);
             msg.setText(message);
 
-            Transport.send(msg);
+            connection.get().send(msg, idleTimeoutMillis);
             System.out.println("SUCCESS: Email actually sent to " + toEmail);
 
         } catch (AuthenticationFailedException e) {
             System.out.println("Authentication failed! Wrong email or App Password.");
-            e.printStackTrace();
+            throw e;
         } catch (MessagingException e) {
             System.out.println("Failed to send email: " + e.getMessage());
-            e.printStackTrace();
+            throw e;
         }
     }
-    public void sendEmail(String toEmail, String subject, String message) {
+    public CompletableFuture<Void> sendEmail(String toEmail, String subject, String message) {
 
-        sendRealEmail(toEmail, subject, message);
+        return sendRealEmail(toEmail, subject, message);
     }
 
     public List<String> getSentMessages() {
-        return new ArrayList<>(sentMessages);
+        synchronized (sentMessages) {
+            return new ArrayList<>(sentMessages);
+        }
+    }
+
+    public void setConnectionIdleTimeout(long millis) {
+        this.idleTimeoutMillis = millis;
+        workers.setKeepAliveTime(Math.max(1, millis), TimeUnit.MILLISECONDS);
+    }
+
+    public int getConnectionsOpened() {
+        return connectionsOpened.get();
+    }
+
+    public int getQueuedCount() {
+        return workers.getQueue().size();
+    }
+
+    public boolean shutdown(long timeoutMillis) {
+        workers.shutdown();
+        if (Thread.currentThread() != shutdownHook && hookRegistered.compareAndSet(true, false)) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException ignored) {
+                // The JVM is already exiting and the hook drains the queue itself.
+            }
+        }
+        try {
+            return workers.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!shutdown(DRAIN_TIMEOUT_MS)) logger.warning(getQueuedCount() + " queued emails were not sent");
     }
 }
\ No newline at end of file
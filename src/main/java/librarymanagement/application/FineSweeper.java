@@ -0,0 +1,70 @@
+package librarymanagement.application;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link LibraryService#accrueFines} once a day at a set time on the given clock. Each sweep charges every
+ * open overdue loan up to its days late on that day, so a sweep after missed days catches up in one pass.
+ */
+public class FineSweeper implements AutoCloseable {
+    private final LibraryService libraryService;
+    private final Clock clock;
+    private final LocalTime runAt;
+    private ScheduledExecutorService scheduler;
+    private LocalDate lastSwept;
+
+    public FineSweeper(LibraryService libraryService, Clock clock, LocalTime runAt) {
+        this.libraryService = libraryService;
+        this.clock = clock;
+        this.runAt = runAt;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "fine-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduleNext();
+    }
+
+    private synchronized void scheduleNext() {
+        if (scheduler == null || scheduler.isShutdown()) return;
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime next = now.toLocalDate().atTime(runAt);
+        if (!next.isAfter(now)) next = next.plusDays(1);
+        scheduler.schedule(() -> {
+            try {
+                runDue();
+            } catch (RuntimeException e) {
+                System.out.println("Fine sweep failed: " + e.getMessage());
+            }
+            scheduleNext();
+        }, Duration.between(now, next).toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized int runDue() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDate day = now.toLocalTime().isBefore(runAt) ? now.toLocalDate().minusDays(1) : now.toLocalDate();
+        if (lastSwept != null && !day.isAfter(lastSwept)) return 0;
+        lastSwept = day;
+        return libraryService.accrueFines(day);
+    }
+
+    public synchronized LocalDate getLastSwept() {
+        return lastSwept;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,198 @@
+package librarymanagement.application;
+
+import librarymanagement.domain.Media;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Symmetric-delete index over the words of titles and authors for typo-tolerant search.
+ * Every indexed word is stored under each string reachable by deleting up to two characters;
+ * a query word only has to generate its own deletes, look them up and confirm the few candidates
+ * with a real edit distance, instead of comparing against every word in the catalog.
+ * Words of up to 3 characters must match exactly and words of 4-5 characters allow one edit.
+ */
+public class FuzzySearchIndex implements CatalogIndex {
+    public static final int MAX_DISTANCE = 2;
+
+    private final Map<String, Map<Media, Integer>> postings = new HashMap<>();
+    private final Map<String, List<String>> deletes = new HashMap<>();
+
+    @Override
+    public void add(Media media) {
+        index(media, media.getTitle(), media.getAuthor(), true);
+    }
+
+    @Override
+    public void remove(Media media) {
+        index(media, media.getTitle(), media.getAuthor(), false);
+    }
+
+    @Override
+    public void update(Media media, String oldTitle, String oldAuthor) {
+        index(media, oldTitle, oldAuthor, false);
+        add(media);
+    }
+
+    @Override
+    public void clear() {
+        postings.clear();
+        deletes.clear();
+    }
+
+    public int vocabularySize() {
+        return postings.size();
+    }
+
+    public List<Media> search(String keyword, int maxDistance) {
+        List<String> words = tokenize(keyword);
+        if (words.isEmpty()) return new ArrayList<>();
+        maxDistance = Math.max(0, Math.min(maxDistance, MAX_DISTANCE));
+
+        Map<Media, Integer> matches = null;
+        for (String word : words) {
+            Map<Media, Integer> wordMatches = new IdentityHashMap<>();
+            for (Map.Entry<String, Integer> candidate : candidates(word, allowedDistance(word, maxDistance)).entrySet()) {
+                for (Media m : postings.get(candidate.getKey()).keySet()) {
+                    wordMatches.merge(m, candidate.getValue(), Math::min);
+                }
+            }
+            if (matches == null) {
+                matches = wordMatches;
+            } else {
+                Map<Media, Integer> both = new IdentityHashMap<>();
+                for (Map.Entry<Media, Integer> e : matches.entrySet()) {
+                    Integer d = wordMatches.get(e.getKey());
+                    if (d != null) both.put(e.getKey(), e.getValue() + d);
+                }
+                matches = both;
+            }
+            if (matches.isEmpty()) break;
+        }
+
+        List<Map.Entry<Media, Integer>> ranked = new ArrayList<>(matches.entrySet());
+        ranked.sort(Map.Entry.<Media, Integer>comparingByValue()
+                .thenComparing(e -> e.getKey().getTitle(), String.CASE_INSENSITIVE_ORDER)
+                .thenComparing(e -> e.getKey().getId(), String.CASE_INSENSITIVE_ORDER));
+        List<Media> results = new ArrayList<>();
+        for (Map.Entry<Media, Integer> e : ranked) results.add(e.getKey());
+        return results;
+    }
+
+    private Map<String, Integer> candidates(String word, int maxDistance) {
+        Map<String, Integer> found = new LinkedHashMap<>();
+        for (String variant : deletesOf(word, maxDistance)) {
+            if (postings.containsKey(variant)) consider(found, word, variant, maxDistance);
+            List<String> words = deletes.get(variant);
+            if (words == null) continue;
+            for (String w : words) consider(found, word, w, maxDistance);
+        }
+        return found;
+    }
+
+    private void consider(Map<String, Integer> found, String query, String word, int maxDistance) {
+        if (found.containsKey(word)) return;
+        int d = distance(query, word, maxDistance);
+        if (d <= maxDistance) found.put(word, d);
+    }
+
+    private void index(Media media, String title, String author, boolean add) {
+        List<String> words = tokenize(title);
+        words.addAll(tokenize(author));
+        for (String word : words) {
+            if (add) addWord(media, word);
+            else removeWord(media, word);
+        }
+    }
+
+    private void addWord(Media media, String word) {
+        Map<Media, Integer> posting = postings.get(word);
+        if (posting == null) {
+            posting = new IdentityHashMap<>();
+            postings.put(word, posting);
+            for (String variant : deletesOf(word, MAX_DISTANCE)) {
+                if (!variant.equals(word)) deletes.computeIfAbsent(variant, k -> new ArrayList<>(1)).add(word);
+            }
+        }
+        posting.merge(media, 1, Integer::sum);
+    }
+
+    private void removeWord(Media media, String word) {
+        Map<Media, Integer> posting = postings.get(word);
+        if (posting == null || posting.computeIfPresent(media, (m, c) -> c == 1 ? null : c - 1) != null
+                || !posting.isEmpty()) return;
+        postings.remove(word);
+        for (String variant : deletesOf(word, MAX_DISTANCE)) {
+            List<String> words = deletes.get(variant);
+            if (words != null && words.remove(word) && words.isEmpty()) deletes.remove(variant);
+        }
+    }
+
+    static int allowedDistance(String word, int maxDistance) {
+        if (word.length() <= 3) return 0;
+        if (word.length() <= 5) return Math.min(1, maxDistance);
+        return maxDistance;
+    }
+
+    static Set<String> deletesOf(String word, int maxDistance) {
+        Set<String> variants = new HashSet<>();
+        variants.add(word);
+        List<String> frontier = List.of(word);
+        for (int d = 0; d < maxDistance; d++) {
+            List<String> next = new ArrayList<>();
+            for (String w : frontier) {
+                if (w.length() <= 1) continue;
+                for (int i = 0; i < w.length(); i++) {
+                    String v = w.substring(0, i) + w.substring(i + 1);
+                    if (variants.add(v)) next.add(v);
+                }
+            }
+            frontier = next;
+        }
+        return variants;
+    }
+
+    static int distance(String a, String b, int maxDistance) {
+        if (Math.abs(a.length() - b.length()) > maxDistance) return maxDistance + 1;
+        int[] prev = new int[b.length() + 1];
+        int[] curr = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) prev[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            curr[0] = i;
+            int rowMin = curr[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                curr[j] = Math.min(Math.min(curr[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                rowMin = Math.min(rowMin, curr[j]);
+            }
+            if (rowMin > maxDistance) return maxDistance + 1;
+            int[] t = prev;
+            prev = curr;
+            curr = t;
+        }
+        return prev[b.length()];
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) return words;
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean letter = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (letter && start < 0) start = i;
+            if (!letter && start >= 0) {
+                words.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+}
@@ -1,266 +1,704 @@
 package librarymanagement.application;
 
 import librarymanagement.domain.*;
-import java.io.*;
+import librarymanagement.persistence.BinarySnapshot;
+import librarymanagement.persistence.FineRepository;
+import librarymanagement.persistence.Journal;
+import librarymanagement.persistence.MediaRepository;
+import librarymanagement.persistence.TextFineRepository;
+import librarymanagement.persistence.TextMediaRepository;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class LibraryService {
     private final EmailService emailService;
     private final UserService userService;
-    private final List<Media> mediaList = new ArrayList<>();
-    private final List<LibraryUser> users = new ArrayList<>();
+    private final MediaCatalog mediaList = new MediaCatalog();
+    private final MediaSearchIndex searchIndex = new MediaSearchIndex();
+    private final AutocompleteIndex autocompleteIndex = new AutocompleteIndex();
+    private final FuzzySearchIndex fuzzyIndex = new FuzzySearchIndex();
+    private final DueDateIndex dueDates = new DueDateIndex();
 
     private static final String BOOKS_FILE = "books.txt";
     private static final String CDS_FILE = "cds.txt";
     private static final String FINES_FILE = "users_fines.txt";
+    private static final int LOCK_STRIPES = 64;
+
+    private final Journal journal;
+    private boolean journaling;
+    private volatile boolean unsaved;
+    private volatile boolean finesDirty;
+    private final ForkJoinPool bootstrapPool;
+    private final MediaRepository mediaRepository;
+    private final FineRepository fineRepository;
+    private final LockStripes userLocks = new LockStripes(LOCK_STRIPES);
+    private final LockStripes mediaLocks = new LockStripes(LOCK_STRIPES);
+    // Guards the catalog and its search indexes. Writers take it inside lockAll, after every stripe,
+    // so a reader holding a stripe can never wait behind a queued writer.
+    private final ReadWriteLock catalogLock = new ReentrantReadWriteLock();
+    private int journalCompactionThreshold = 1000;
 
     public LibraryService(EmailService emailService, UserService userService) {
+        this(emailService, userService, ForkJoinPool.commonPool());
+    }
+
+    public LibraryService(EmailService emailService, UserService userService, ForkJoinPool bootstrapPool) {
+        this(emailService, userService, new TextMediaRepository(BOOKS_FILE, CDS_FILE), new TextFineRepository(FINES_FILE),
+                userService.getJournalFile(), bootstrapPool);
+    }
+
+    /**
+     * @param journalFile operation log for this data set; {@code null} saves the repositories after
+     *                    every change instead
+     */
+    public LibraryService(EmailService emailService, UserService userService, MediaRepository mediaRepository,
+                          FineRepository fineRepository, String journalFile, ForkJoinPool bootstrapPool) {
         this.emailService = emailService;
         this.userService = userService;
-        this.users.addAll(userService.getUsers());
+        this.mediaRepository = mediaRepository;
+        this.fineRepository = fineRepository;
+        this.journal = journalFile == null ? null : new Journal(journalFile, true);
+        this.bootstrapPool = bootstrapPool;
+        mediaList.addIndex(searchIndex);
+        mediaList.addIndex(autocompleteIndex);
+        mediaList.addIndex(fuzzyIndex);
         loadMediaFromFiles();
-
-        saveAllMedia();
+        mediaList.markClean(Media.class);
         userService.setLibraryService(this);
         userService.loadBorrowedMedia();
         loadFines();
-        for (LibraryUser user : users) checkOverdueMedia(user);
-        saveFines();
+        boolean replayed = replayJournal();
+        checkNewlyOverdue();
+        if (replayed || userService.hasLoansToArchive()) compactJournal();
+        else if (finesDirty) saveFines();
+        journaling = true;
+    }
+
+    public ForkJoinPool getBootstrapPool() {
+        return bootstrapPool;
+    }
+
+    public void setJournalCompactionThreshold(int threshold) {
+        this.journalCompactionThreshold = Math.max(1, threshold);
+    }
+
+    public void setGroupCommit(long maxDelayMillis, int maxBatchSize) {
+        if (journal != null) journal.setGroupCommit(maxDelayMillis, maxBatchSize);
+    }
+
+    public void flushJournal() {
+        if (journal != null) journal.flush();
+    }
+
+    public void close() {
+        if (journal != null) journal.close();
+        else if (unsaved) compactJournal();
+    }
+
+    /**
+     * Saves the records changed since the last compaction to every repository and drops the journal.
+     * When any save fails the journal is kept, so the changes it holds are replayed on the next start.
+     */
+    public boolean compactJournal() {
+        lockAll();
+        try {
+            boolean saved = saveAllMedia();
+            saved &= userService.saveUsers();
+            saved &= userService.saveBorrowedMedia();
+            saved &= saveFines();
+            if (!saved) return false;
+            userService.markSaved();
+            unsaved = false;
+            if (journal != null) journal.reset();
+            // Journal entries address loans by list position, so returned ones only leave once it is empty.
+            userService.archiveReturnedLoans();
+            return true;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    private boolean compactionDue() {
+        return journal == null ? unsaved : journal.size() >= journalCompactionThreshold;
+    }
+
+    private void compactIfDue() {
+        if (!journaling || !compactionDue()) return;
+        lockAll();
+        try {
+            if (compactionDue()) compactJournal();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    private void lockAll() {
+        userLocks.lockAll();
+        mediaLocks.lockAll();
+    }
+
+    private void unlockAll() {
+        mediaLocks.unlockAll();
+        userLocks.unlockAll();
+    }
+
+    private <T> T readCatalog(Supplier<T> reader) {
+        catalogLock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+
+    public boolean saveSnapshot(String fileName) {
+        lockAll();
+        try {
+            return BinarySnapshot.write(fileName, mediaList, userService.getUsers());
+        } finally {
+            unlockAll();
+        }
+    }
+
+    public boolean loadSnapshot(String fileName) {
+        BinarySnapshot.Contents contents;
+        try {
+            contents = BinarySnapshot.read(fileName);
+        } catch (IOException e) {
+            System.out.println("Error loading snapshot: " + e.getMessage());
+            return false;
+        }
+        lockAll();
+        catalogLock.writeLock().lock();
+        try {
+            mediaList.clear();
+            for (Media m : contents.getMedia()) mediaList.add(m);
+            userService.replaceUsers(contents.getUsers());
+            dueDates.rebuild(userService.getUsers());
+            compactJournal();
+        } finally {
+            catalogLock.writeLock().unlock();
+            unlockAll();
+        }
+        return true;
+    }
+
+    /**
+     * Journal writes made by one call; its future completes once all of them are durable.
+     */
+    private final class Writes {
+        private CompletableFuture<Void> durable = CompletableFuture.completedFuture(null);
+
+        void record(Object... fields) {
+            markChanged(fields);
+            if (!journaling) return;
+            if (journal == null) {
+                unsaved = true;
+                return;
+            }
+            CompletableFuture<Void> entry = journal.append(fields);
+            durable = CompletableFuture.allOf(durable, entry);
+        }
+    }
+
+    /**
+     * Notes the user an entry changed so compaction saves it. Media changes are tracked by the catalog.
+     */
+    private void markChanged(Object[] entry) {
+        if (!String.valueOf(entry[0]).endsWith("_MEDIA")) userService.markChanged(String.valueOf(entry[1]));
+    }
+
+    private boolean replayJournal() {
+        if (journal == null) return false;
+        List<String[]> entries = journal.readAll();
+        for (String[] e : entries) {
+            try {
+                replay(e);
+            } catch (RuntimeException ex) {
+                System.out.println("Skipping journal entry: " + String.join("|", e));
+            }
+        }
+        return !entries.isEmpty();
+    }
+
+    private void replay(String[] e) {
+        markChanged(e);
+        switch (e[0]) {
+            case "ADD_MEDIA" -> {
+                if (getMediaById(e[2]) != null) return;
+                int total = Integer.parseInt(e[5]);
+                Media media = e[1].equals("CD") ? new CD(e[3], e[4], e[2], total) : new Book(e[3], e[4], e[2], total);
+                media.setAvailableCopies(Integer.parseInt(e[6]));
+                mediaList.add(media);
+            }
+            case "DELETE_MEDIA" -> mediaList.removeById(e[1]);
+            case "BORROW" -> {
+                Media media = getMediaById(e[3]);
+                if (media == null) return;
+                media.setAvailableCopies(Integer.parseInt(e[6]));
+                LibraryUser user = getUserByName(e[1]);
+                if (user == null || user.getBorrowedMediaInternal().size() != Integer.parseInt(e[2])) return;
+                BorrowedMedia bm = new BorrowedMedia(media, LocalDate.parse(e[4]), LocalDate.parse(e[5]));
+                user.getBorrowedMediaInternal().add(bm);
+                dueDates.add(user, bm);
+            }
+            case "RETURN" -> {
+                Media media = getMediaById(e[3]);
+                BorrowedMedia bm = loanAt(e[1], e[2]);
+                if (bm != null && bm.getMedia().getId().equalsIgnoreCase(e[3])) {
+                    bm.returnMedia();
+                    dueDates.remove(bm);
+                }
+                if (media != null) media.setAvailableCopies(Integer.parseInt(e[4]));
+            }
+            case "LOAN_FINE" -> {
+                BorrowedMedia bm = loanAt(e[1], e[2]);
+                if (bm == null) return;
+                bm.setFineCents(Money.parse(e[3]));
+                bm.setFineAdded(true);
+            }
+            case "FINE" -> {
+                LibraryUser user = getUserByName(e[1]);
+                if (user == null) return;
+                user.setFineBalanceCents(Money.parse(e[2]));
+                user.setBlocked(Boolean.parseBoolean(e[3]));
+            }
+            default -> System.out.println("Skipping journal entry: " + String.join("|", e));
+        }
+    }
+
+    private BorrowedMedia loanAt(String userName, String index) {
+        LibraryUser user = getUserByName(userName);
+        if (user == null) return null;
+        int i = Integer.parseInt(index);
+        List<BorrowedMedia> loans = user.getBorrowedMediaInternal();
+        return i >= 0 && i < loans.size() ? loans.get(i) : null;
     }
     public List<Media> getAllMedia() {
-        return new ArrayList<>(mediaList);
+        return readCatalog(() -> new ArrayList<>(mediaList));
     }
     public boolean deleteMedia(String mediaId) {
         if (mediaId == null || mediaId.trim().isEmpty()) return false;
 
-        Media toRemove = getMediaById(mediaId);
-        if (toRemove == null) return false;
+        lockAll();
+        catalogLock.writeLock().lock();
+        try {
+            Media toRemove = getMediaById(mediaId);
+            if (toRemove == null) return false;
 
-        boolean isBorrowed = users.stream()
-                .anyMatch(user -> user.getBorrowedMedia().stream()
-                        .anyMatch(bm -> !bm.isReturned() && bm.getMedia().getId().equalsIgnoreCase(mediaId)));
+            boolean isBorrowed = userService.getUsers().stream()
+                    .anyMatch(user -> user.getOpenLoansInternal().stream()
+                            .anyMatch(bm -> bm.getMedia().getId().equalsIgnoreCase(mediaId)));
 
-        if (isBorrowed) {
-            return false;
-        }
+            if (isBorrowed) {
+                return false;
+            }
 
-        mediaList.removeIf(m -> m.getId().equalsIgnoreCase(mediaId));
-        saveAllMedia();
+            mediaList.removeById(mediaId);
+            new Writes().record("DELETE_MEDIA", toRemove.getId());
+        } finally {
+            catalogLock.writeLock().unlock();
+            unlockAll();
+        }
+        compactIfDue();
         return true;
     }
     public LibraryUser getUserByName(String name) {
-        if (name == null) return null;
-        return users.stream().filter(u -> u.getName().equalsIgnoreCase(name)).findFirst().orElse(null);
+        return userService.getUserByName(name);
     }
 
     public void addUser(LibraryUser user) {
-        if (!users.contains(user)) users.add(user);
+        lockAll();
+        try {
+            if (userService.addUser(user)) {
+                for (BorrowedMedia bm : user.getOpenLoansInternal()) dueDates.add(user, bm);
+            }
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Removes the user under every stripe lock, so no save or compaction iterates the user map meanwhile.
+     */
+    public boolean removeUser(String name) {
+        lockAll();
+        try {
+            return userService.removeUser(name);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Copy of the user's open loans, taken under their stripe lock so concurrent borrows, returns
+     * and compactions cannot change the list mid-read.
+     */
+    public List<BorrowedMedia> getOpenLoans(LibraryUser user) {
+        Lock userLock = userLocks.forKey(user.getName());
+        userLock.lock();
+        try {
+            return user.getOpenLoans();
+        } finally {
+            userLock.unlock();
+        }
+    }
+
+    /**
+     * Archived and current loans of the user, read under their stripe lock so a compaction cannot
+     * move loans to the archive in between.
+     */
+    public List<BorrowedMedia> getLoanHistory(LibraryUser user) {
+        Lock userLock = userLocks.forKey(user.getName());
+        userLock.lock();
+        try {
+            return userService.getLoanHistory(user.getName());
+        } finally {
+            userLock.unlock();
+        }
+    }
+
+    /**
+     * Takes a removed user's open loans out of the due-date index, so reminders and fines skip them.
+     */
+    public void userRemoved(LibraryUser user) {
+        Lock userLock = userLocks.forKey(user.getName());
+        userLock.lock();
+        try {
+            dueDates.removeAll(user);
+        } finally {
+            userLock.unlock();
+        }
+    }
+
+    public void reindexLoans() {
+        dueDates.rebuild(userService.getUsers());
     }
 
     public List<LibraryUser> getUsers() {
-        return new ArrayList<>(users);
+        return userService.getUsers();
     }
 
     public boolean addMedia(Media media) {
         if (media == null || media.getId() == null || media.getTitle() == null || media.getAuthor() == null) return false;
 
-        boolean exists = mediaList.stream().anyMatch(m -> m.getId().equalsIgnoreCase(media.getId()));
-        if (exists) return false;
-
-        mediaList.add(media);
-        saveMediaToFile(media);
+        lockAll();
+        catalogLock.writeLock().lock();
+        try {
+            if (!mediaList.add(media)) return false;
+            new Writes().record("ADD_MEDIA", media instanceof CD ? "CD" : "BOOK", media.getId(), media.getTitle(), media.getAuthor(),
+                    media.getTotalCopies(), media.getAvailableCopies());
+        } finally {
+            catalogLock.writeLock().unlock();
+            unlockAll();
+        }
+        compactIfDue();
         return true;
     }
 
     public List<Media> getAvailableMedia() {
-        List<Media> available = new ArrayList<>();
-        for (Media m : mediaList) if (m.getAvailableCopies() > 0) available.add(m);
-        return available;
+        return readCatalog(() -> {
+            List<Media> available = new ArrayList<>();
+            for (Media m : mediaList) if (m.getAvailableCopies() > 0) available.add(m);
+            return available;
+        });
     }
 
     public Media getMediaById(String id) {
-        if (id == null) return null;
-        return mediaList.stream().filter(m -> m.getId().equalsIgnoreCase(id)).findFirst().orElse(null);
+        return readCatalog(() -> mediaList.getById(id));
     }
 
     public List<Media> searchMedia(String keyword) {
-        List<Media> results = new ArrayList<>();
-        if (keyword == null || keyword.trim().isEmpty()) return results;
-        String lower = keyword.toLowerCase().trim();
-        for (Media m : mediaList) {
-            if ((m.getId() != null && m.getId().toLowerCase().contains(lower)) ||
-                    (m.getTitle() != null && m.getTitle().toLowerCase().contains(lower)) ||
-                    (m.getAuthor() != null && m.getAuthor().toLowerCase().contains(lower))) {
-                results.add(m);
-            }
-        }
-        return results;
+        return readCatalog(() -> searchIndex.search(keyword));
+    }
+
+    public SearchPage searchMedia(String keyword, SearchRanking ranking, int offset, int limit) {
+        return readCatalog(() -> searchIndex.search(keyword, ranking, offset, limit));
+    }
+
+    public List<Media> searchMediaFuzzy(String keyword, int maxDistance) {
+        return readCatalog(() -> fuzzyIndex.search(keyword, maxDistance));
+    }
+
+    public List<String> autocomplete(String prefix, int limit) {
+        return readCatalog(() -> autocompleteIndex.complete(prefix, limit));
     }
 
     public boolean borrowMedia(LibraryUser user, Media media) {
+        return borrow(user, media, new Writes());
+    }
+
+    /**
+     * Borrows like {@link #borrowMedia}; the future completes with the outcome once the loan and any
+     * fines found on the way are durable.
+     */
+    public CompletableFuture<Boolean> borrowMediaAsync(LibraryUser user, Media media) {
+        Writes writes = new Writes();
+        boolean borrowed = borrow(user, media, writes);
+        return writes.durable.thenApply(v -> borrowed);
+    }
+
+    private boolean borrow(LibraryUser user, Media media, Writes writes) {
         if (user == null || media == null) return false;
+        boolean borrowed;
+        Lock userLock = userLocks.forKey(user.getName());
+        Lock mediaLock = mediaLocks.forKey(media.getId());
+        userLock.lock();
+        mediaLock.lock();
+        try {
+            borrowed = borrowLocked(user, media, writes);
+        } finally {
+            mediaLock.unlock();
+            userLock.unlock();
+        }
+        compactIfDue();
+        return borrowed;
+    }
+
+    private boolean borrowLocked(LibraryUser user, Media media, Writes writes) {
         if (user.isBlocked()) {
             return false;
         }
-        checkOverdueMedia(user);
-        if (user.getFineBalance() > 0 || user.isBlocked()) {
+        checkOverdueLocked(user, writes);
+        if (user.getFineBalanceCents() > 0 || user.isBlocked()) {
             return false;
         }
 
         if (!media.borrowCopy()) return false;
         BorrowedMedia borrowed = new BorrowedMedia(media);
         user.getBorrowedMediaInternal().add(borrowed);
-
-        userService.saveBorrowedMedia();
-        saveFines();
-        saveAllMedia();
-
+        dueDates.add(user, borrowed);
+        writes.record("BORROW", user.getName(), user.getBorrowedMediaInternal().size() - 1, media.getId(),
+                borrowed.getBorrowDate(), borrowed.getDueDate(), media.getAvailableCopies());
         return true;
     }
 
     public void returnMedia(LibraryUser user, BorrowedMedia borrowed) {
-        borrowed.returnMedia();
-        borrowed.getMedia().returnCopy();
+        giveBack(user, borrowed, new Writes());
+    }
 
-        checkOverdueMedia(user);
-        if (user.getFineBalance() == 0 && !user.hasOverdueItems()) {
+    public CompletableFuture<Void> returnMediaAsync(LibraryUser user, BorrowedMedia borrowed) {
+        Writes writes = new Writes();
+        giveBack(user, borrowed, writes);
+        return writes.durable;
+    }
+
+    private void giveBack(LibraryUser user, BorrowedMedia borrowed, Writes writes) {
+        Lock userLock = userLocks.forKey(user.getName());
+        Lock mediaLock = mediaLocks.forKey(borrowed.getMedia().getId());
+        userLock.lock();
+        mediaLock.lock();
+        try {
+            returnLocked(user, borrowed, writes);
+        } finally {
+            mediaLock.unlock();
+            userLock.unlock();
+        }
+        compactIfDue();
+    }
+
+    private void returnLocked(LibraryUser user, BorrowedMedia borrowed, Writes writes) {
+        if (!borrowed.isReturned()) {
+            borrowed.returnMedia();
+            borrowed.getMedia().returnCopy();
+            dueDates.remove(borrowed);
+            writes.record("RETURN", user.getName(), user.getBorrowedMediaInternal().indexOf(borrowed),
+                    borrowed.getMedia().getId(), borrowed.getMedia().getAvailableCopies());
+        }
+
+        checkOverdueLocked(user, writes);
+        if (user.getFineBalanceCents() == 0 && !user.hasOverdueItems() && user.isBlocked()) {
             user.setBlocked(false);
+            recordFine(user, writes);
         }
-        saveAllMedia();
+    }
 
+    public boolean saveAllMedia() {
+        return saveMedia(Book.class) & saveMedia(CD.class);
     }
 
-    public void saveAllMedia() {
-        try (PrintWriter pwBooks = new PrintWriter(new FileWriter(BOOKS_FILE, false))) {
-            for (Media m : mediaList) {
-                if (m instanceof Book) {
-                    pwBooks.println(m.getId() + "|" + m.getTitle() + "|" + m.getAuthor() + "|" +
-                            m.getTotalCopies() + "|" + m.getAvailableCopies());
-                }
-            }
-        } catch (IOException ignored) {}
+    private boolean saveMedia(Class<? extends Media> type) {
+        if (!mediaList.isDirty(type)) return true;
+        List<Media> changed = mediaList.getDirtyRecords();
+        List<Media> removed = mediaList.getRemovedRecords();
+        if (!mediaRepository.saveChanges(mediaList, type, changed, removed)) return false;
+        mediaList.markClean(type);
+        return true;
+    }
 
-        try (PrintWriter pwCDs = new PrintWriter(new FileWriter(CDS_FILE, false))) {
-            for (Media m : mediaList) {
-                if (m instanceof CD) {
-                    pwCDs.println(m.getId() + "|" + m.getTitle() + "|" + m.getAuthor() + "|" +
-                            m.getTotalCopies() + "|" + m.getAvailableCopies());
-                }
-            }
-        } catch (IOException ignored) {}
+    public boolean checkOverdueMedia(LibraryUser user) {
+        boolean changed;
+        Lock userLock = userLocks.forKey(user.getName());
+        userLock.lock();
+        try {
+            changed = checkOverdueLocked(user, new Writes());
+        } finally {
+            userLock.unlock();
+        }
+        compactIfDue();
+        return changed;
     }
 
-    public void checkOverdueMedia(LibraryUser user) {
-        double newFines = 0;
-        for (BorrowedMedia bm : user.getBorrowedMediaInternal()) {
-            if (!bm.isReturned() && !bm.isFineAdded() && bm.isOverdue()) {
-                newFines += bm.calculateFine();
+    private boolean checkOverdueLocked(LibraryUser user, Writes writes) {
+        long newFines = 0;
+        boolean wasBlocked = user.isBlocked();
+        LocalDate today = LocalDate.now();
+        for (BorrowedMedia bm : user.getOpenLoansInternal()) {
+            if (!bm.isFineAdded() && bm.isOverdue(today)) {
+                long fine = bm.calculateFineCents(today);
+                newFines += fine;
+                bm.setFineCents(fine);
                 bm.setFineAdded(true);
+                writes.record("LOAN_FINE", user.getName(), user.getBorrowedMediaInternal().indexOf(bm),
+                        Money.format(fine));
             }
         }
-        if (newFines > 0) user.addFine(newFines);
-        user.setBlocked(user.getFineBalance() > 0 || user.hasOverdueItems());
+        user.addFineCents(newFines);
+        user.setBlocked(user.getFineBalanceCents() > 0 || user.hasOverdueItems(today));
+        if (newFines > 0) finesDirty = true;
+        if (newFines > 0 || wasBlocked != user.isBlocked()) {
+            recordFine(user, writes);
+            return true;
+        }
+        return false;
     }
 
-    public void payFine(LibraryUser user, double amount) {
-        if (user == null || amount <= 0) return;
-        double payment = Math.min(amount, user.getFineBalance());
-        user.setFineBalance(user.getFineBalance() - payment);
+    public boolean checkNewlyOverdue() {
+        boolean changed = false;
+        for (LibraryUser user : dueDates.takeNewlyOverdue(LocalDate.now())) changed |= checkOverdueMedia(user);
+        return changed;
+    }
 
-        for (BorrowedMedia bm : user.getBorrowedMediaInternal()) {
-            if (!bm.isReturned() && bm.isOverdue()) bm.setFineAdded(true);
+    public int accrueFines(LocalDate today) {
+        int changed = 0;
+        for (Map.Entry<LibraryUser, List<BorrowedMedia>> e : dueDates.overdueLoans(today).entrySet()) {
+            Lock userLock = userLocks.forKey(e.getKey().getName());
+            userLock.lock();
+            try {
+                if (accrueLocked(e.getKey(), e.getValue(), today, new Writes())) changed++;
+            } finally {
+                userLock.unlock();
+            }
         }
+        if (changed > 0) compactJournal();
+        return changed;
+    }
 
-        boolean hasOverdue = user.getBorrowedMedia().stream().anyMatch(BorrowedMedia::isOverdue);
-        user.setBlocked(user.getFineBalance() > 0 || hasOverdue);
+    private boolean accrueLocked(LibraryUser user, List<BorrowedMedia> overdue, LocalDate today, Writes writes) {
+        long added = 0;
+        boolean wasBlocked = user.isBlocked();
+        for (BorrowedMedia bm : overdue) {
+            if (!bm.isOverdue(today)) continue;
+            long charged = bm.isFineAdded() ? bm.getFineCents() : 0;
+            long fine = bm.calculateFineCents(today);
+            if (fine <= charged) continue;
+            added += fine - charged;
+            bm.setFineCents(fine);
+            bm.setFineAdded(true);
+            writes.record("LOAN_FINE", user.getName(), user.getBorrowedMediaInternal().indexOf(bm), Money.format(fine));
+        }
+        user.addFineCents(added);
+        user.setBlocked(user.getFineBalanceCents() > 0 || user.hasOverdueItems(today));
+        if (added > 0 || wasBlocked != user.isBlocked()) {
+            finesDirty = true;
+            recordFine(user, writes);
+            return true;
+        }
+        return false;
+    }
 
-        userService.saveUsers();
-        userService.saveBorrowedMedia();
-        saveFines();
+    private void recordFine(LibraryUser user, Writes writes) {
+        writes.record("FINE", user.getName(), Money.format(user.getFineBalanceCents()), user.isBlocked());
     }
 
-    private void loadFines() {
-        File file = new File(FINES_FILE);
-        if (!file.exists()) return;
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split("\\|");
-                if (parts.length != 2) continue;
-                LibraryUser user = getUserByName(parts[0]);
-                if (user != null) {
-                    user.setFineBalance(Double.parseDouble(parts[1]));
-                    user.setBlocked(user.getFineBalance() > 0 || user.hasOverdueItems());
-                }
-            }
-        } catch (IOException ignored) {}
+    public void payFine(LibraryUser user, double amount) {
+        if (!(amount > 0)) return;
+        payFineCents(user, amount >= Long.MAX_VALUE / (double) Money.CENTS ? Long.MAX_VALUE : Money.fromDouble(amount));
     }
 
-    public void saveFines() {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(FINES_FILE))) {
-            for (LibraryUser user : users) pw.println(user.getName() + "|" + user.getFineBalance());
-        } catch (IOException ignored) {}
+    public void payFineCents(LibraryUser user, long amount) {
+        pay(user, amount, new Writes());
     }
 
-    private void saveMediaToFile(Media media) {
-        String fileName = media instanceof Book ? BOOKS_FILE : CDS_FILE;
-        try (PrintWriter pw = new PrintWriter(new FileWriter(fileName, false))) {
-            for (Media m : mediaList) {
-                if ((media instanceof Book && m instanceof Book) || (media instanceof CD && m instanceof CD)) {
-                    pw.println(m.getId() + "|" + m.getTitle() + "|" + m.getAuthor() + "|" + m.getTotalCopies() + "|" + m.getAvailableCopies());
-                }
-            }
-        } catch (IOException ignored) {}
+    public CompletableFuture<Void> payFineCentsAsync(LibraryUser user, long amount) {
+        Writes writes = new Writes();
+        pay(user, amount, writes);
+        return writes.durable;
     }
 
-    private void loadMediaFromFiles() {
-        loadMediaFromFile(BOOKS_FILE, "Book");
-        loadMediaFromFile(CDS_FILE, "CD");
+    private void pay(LibraryUser user, long amount, Writes writes) {
+        if (user == null || amount <= 0) return;
+        Lock userLock = userLocks.forKey(user.getName());
+        userLock.lock();
+        try {
+            payFineLocked(user, amount, writes);
+        } finally {
+            userLock.unlock();
+        }
+        compactIfDue();
     }
 
-    private void loadMediaFromFile(String fileName, String type) {
-        File file = new File(fileName);
-        if (!file.exists()) return;
+    private void payFineLocked(LibraryUser user, long amount, Writes writes) {
+        long payment = Math.min(amount, user.getFineBalanceCents());
+        user.setFineBalanceCents(user.getFineBalanceCents() - payment);
 
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                line = line.trim();
-                if (line.isEmpty()) continue;
+        LocalDate today = LocalDate.now();
+        for (BorrowedMedia bm : user.getOpenLoansInternal()) {
+            if (bm.isOverdue(today) && !bm.isFineAdded()) {
+                bm.setFineAdded(true);
+                writes.record("LOAN_FINE", user.getName(), user.getBorrowedMediaInternal().indexOf(bm),
+                        Money.format(bm.getFineCents()));
+            }
+        }
 
-                String[] parts = line.split("\\|");
-                if (parts.length < 4) continue;
+        user.setBlocked(user.getFineBalanceCents() > 0 || user.hasOverdueItems(today));
+        recordFine(user, writes);
+    }
 
-                int totalCopies = Integer.parseInt(parts[3]);
-                int availableCopies = parts.length >= 5 ? Integer.parseInt(parts[4]) : totalCopies;
+    private void loadFines() {
+        fineRepository.loadAll().forEach((name, balance) -> {
+            LibraryUser user = getUserByName(name);
+            if (user != null) {
+                user.setFineBalanceCents(balance);
+                user.setBlocked(user.getFineBalanceCents() > 0 || user.hasOverdueItems());
+            }
+        });
+    }
 
-                Media media;
-                if (type.equals("Book")) {
-                    media = new Book(parts[1], parts[2], parts[0], totalCopies);
-                } else {
-                    media = new CD(parts[1], parts[2], parts[0], totalCopies);
-                }
+    public boolean saveFines() {
+        if (!fineRepository.saveChanges(userService.getUsers(), userService.getChangedUsers(),
+                userService.getRemovedUsers())) return false;
+        finesDirty = false;
+        return true;
+    }
 
-                media.setAvailableCopies(availableCopies);
-                mediaList.add(media);
-            }
-        } catch (IOException ignored) {}
+    private void loadMediaFromFiles() {
+        for (Media media : mediaRepository.loadAll(bootstrapPool)) mediaList.add(media);
+    }
+    public CampaignReport sendOverdueReminders(String checkpointFile, int batchSize, Consumer<CampaignReport> progress) {
+        if (emailService == null) throw new IllegalStateException("No email service configured");
+        LocalDate today = LocalDate.now();
+        return new ReminderCampaign(emailService, checkpointFile, batchSize, progress).run(today,
+                dueDates.overdueCounts(today));
     }
+
     public void sendReminder(LibraryUser user) {
-        long overdueCount = user.getBorrowedMedia().stream()
-                .filter(bm -> !bm.isReturned() && LocalDate.now().isAfter(bm.getDueDate()))
-                .count();
+        LocalDate today = LocalDate.now();
+        long overdueCount = user.getOpenLoansInternal().stream().filter(bm -> bm.isOverdue(today)).count();
 
         if (overdueCount > 0 && !user.getEmail().trim().isEmpty()) {
-            String subject = "Important Reminder: You have overdue items in the library";
-            String message = "Dear " + user.getName() + ",\n\n" +
-                    "You have " + overdueCount + " item(s) overdue.\n" +
-                    "Please return them as soon as possible to avoid additional fines.\n\n" +
-                    "Thank you for your cooperation,\nLibrary Team";
-
-            emailService.sendEmail(user.getEmail(), subject, message);
+            emailService.sendEmail(user.getEmail(), ReminderCampaign.SUBJECT.render(),
+                    ReminderCampaign.BODY.render(user.getName(), overdueCount));
         } else {
             System.out.println(user.getName() + " has no overdue items or does not have an email.");
         }
@@ -0,0 +1,33 @@
+package librarymanagement.application;
+
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed array of locks chosen by the hash of a case-insensitive key. The same media ID or user name
+ * always maps to the same lock while unrelated keys rarely share one. {@link #lockAll()} takes every
+ * stripe in index order for operations that must exclude all holders.
+ */
+final class LockStripes {
+    private final ReentrantLock[] locks;
+
+    LockStripes(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) locks[i] = new ReentrantLock();
+    }
+
+    ReentrantLock forKey(String key) {
+        if (key == null) return locks[0];
+        int h = key.toLowerCase(Locale.ROOT).hashCode();
+        return locks[(h ^ (h >>> 16)) & (locks.length - 1)];
+    }
+
+    void lockAll() {
+        for (ReentrantLock lock : locks) lock.lock();
+    }
+
+    void unlockAll() {
+        for (int i = locks.length - 1; i >= 0; i--) locks[i].unlock();
+    }
+}
@@ -0,0 +1,194 @@
+package librarymanagement.application;
+
+import librarymanagement.domain.Media;
+import librarymanagement.domain.MediaListener;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Insertion-ordered media list indexed by case-insensitive ID.
+ * Lookups, inserts and deletes by ID are O(1); positional {@link #get(int)} walks the list.
+ * Adding a media whose ID is already present is rejected and returns {@code false}.
+ * Registered {@link CatalogIndex}es are kept in sync with every mutation and title/author edit.
+ * The catalog also records which media were added, changed or removed and which media types gained
+ * or lost entries since the last {@link #markClean}, so snapshot files are only rewritten when their
+ * contents changed and record stores only write those records.
+ * Copy-count changes may arrive from concurrent borrows of different media, so the set of changed
+ * media is synchronized.
+ */
+public class MediaCatalog extends AbstractList<Media> implements MediaListener {
+    private final Map<String, Media> byId = new LinkedHashMap<>();
+    private final List<CatalogIndex> indexes = new ArrayList<>();
+    private final Set<Media> dirty = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+    private final Set<Media> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<Class<?>> dirtyTypes = new HashSet<>();
+
+    public static String key(String id) {
+        return id.toLowerCase(Locale.ROOT);
+    }
+
+    public void addIndex(CatalogIndex index) {
+        indexes.add(index);
+        for (Media m : byId.values()) index.add(m);
+    }
+
+    public boolean isDirty(Class<? extends Media> type) {
+        for (Class<?> t : dirtyTypes) if (type.isAssignableFrom(t)) return true;
+        synchronized (dirty) {
+            for (Media m : dirty) if (type.isInstance(m)) return true;
+        }
+        return false;
+    }
+
+    public List<Media> getDirtyRecords() {
+        return new ArrayList<>(dirty);
+    }
+
+    public List<Media> getRemovedRecords() {
+        return new ArrayList<>(removed);
+    }
+
+    public void markClean(Class<? extends Media> type) {
+        dirtyTypes.removeIf(type::isAssignableFrom);
+        dirty.removeIf(type::isInstance);
+        removed.removeIf(type::isInstance);
+    }
+
+    public Media getById(String id) {
+        if (id == null) return null;
+        return byId.get(key(id));
+    }
+
+    public boolean containsId(String id) {
+        return id != null && byId.containsKey(key(id));
+    }
+
+    public Media removeById(String id) {
+        if (id == null) return null;
+        Media removed = byId.remove(key(id));
+        if (removed != null) detach(removed);
+        return removed;
+    }
+
+    @Override
+    public boolean add(Media media) {
+        if (media == null || media.getId() == null) throw new IllegalArgumentException("Media and media ID are required");
+        if (byId.putIfAbsent(key(media.getId()), media) != null) return false;
+        modCount++;
+        dirtyTypes.add(media.getClass());
+        dirty.add(media);
+        media.setListener(this);
+        for (CatalogIndex index : indexes) index.add(media);
+        return true;
+    }
+
+    @Override
+    public void add(int index, Media media) {
+        if (index != size()) throw new UnsupportedOperationException("Media can only be appended");
+        add(media);
+    }
+
+    @Override
+    public Media get(int index) {
+        if (index < 0 || index >= size()) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        Iterator<Media> it = byId.values().iterator();
+        for (int i = 0; i < index; i++) it.next();
+        return it.next();
+    }
+
+    @Override
+    public Media remove(int index) {
+        Media media = get(index);
+        removeById(media.getId());
+        return media;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof Media media) || media.getId() == null) return false;
+        String k = key(media.getId());
+        if (byId.get(k) != media) return false;
+        byId.remove(k);
+        detach(media);
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Media media && media.getId() != null && byId.get(key(media.getId())) == media;
+    }
+
+    @Override
+    public int size() {
+        return byId.size();
+    }
+
+    @Override
+    public void clear() {
+        for (Media m : byId.values()) {
+            if (m.getListener() == this) m.setListener(null);
+            dirtyTypes.add(m.getClass());
+            removed.add(m);
+        }
+        dirty.clear();
+        byId.clear();
+        modCount++;
+        for (CatalogIndex index : indexes) index.clear();
+    }
+
+    @Override
+    public Iterator<Media> iterator() {
+        Iterator<Media> it = byId.values().iterator();
+        return new Iterator<>() {
+            private Media last;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public Media next() {
+                last = it.next();
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                it.remove();
+                detach(last);
+            }
+        };
+    }
+
+    @Override
+    public void onTextChanged(Media media, String oldTitle, String oldAuthor) {
+        if (!contains(media)) return;
+        dirty.add(media);
+        for (CatalogIndex index : indexes) index.update(media, oldTitle, oldAuthor);
+    }
+
+    @Override
+    public void onCopiesChanged(Media media) {
+        if (contains(media)) dirty.add(media);
+    }
+
+    private void detach(Media media) {
+        modCount++;
+        dirtyTypes.add(media.getClass());
+        dirty.remove(media);
+        removed.add(media);
+        if (media.getListener() == this) media.setListener(null);
+        for (CatalogIndex index : indexes) index.remove(media);
+    }
+}
@@ -0,0 +1,296 @@
+package librarymanagement.application;
+
+import librarymanagement.domain.Media;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Inverted index of the bigrams and trigrams of each media's lower-cased ID, title and author.
+ * Gives the same results as a case-insensitive {@code contains} over those fields, in catalog order:
+ * 2-3 character keywords are answered straight from one posting list, longer ones by intersecting
+ * trigram postings and checking the few remaining candidates. Single characters fall back to a scan.
+ * Ranked searches keep only the best {@code offset + limit} matches in a bounded heap.
+ */
+public class MediaSearchIndex implements CatalogIndex {
+    private final Map<Long, Posting> postings = new HashMap<>();
+    private final Map<Media, Integer> docIds = new IdentityHashMap<>();
+    private Media[] docs = new Media[64];
+    private int nextDoc = 0;
+
+    private static final int MAX_INTERSECTIONS = 3;
+
+    @Override
+    public void add(Media media) {
+        if (docIds.containsKey(media)) return;
+        if (nextDoc == docs.length) {
+            if (docIds.size() < nextDoc / 2) compact();
+            if (nextDoc == docs.length) docs = Arrays.copyOf(docs, docs.length * 2);
+        }
+        int doc = nextDoc++;
+        docs[doc] = media;
+        docIds.put(media, doc);
+        index(doc, media.getId(), media.getTitle(), media.getAuthor(), true);
+    }
+
+    @Override
+    public void remove(Media media) {
+        Integer doc = docIds.remove(media);
+        if (doc == null) return;
+        index(doc, media.getId(), media.getTitle(), media.getAuthor(), false);
+        docs[doc] = null;
+    }
+
+    @Override
+    public void update(Media media, String oldTitle, String oldAuthor) {
+        Integer doc = docIds.get(media);
+        if (doc == null) return;
+        index(doc, null, oldTitle, oldAuthor, false);
+        index(doc, media.getId(), media.getTitle(), media.getAuthor(), true);
+    }
+
+    @Override
+    public void clear() {
+        postings.clear();
+        docIds.clear();
+        docs = new Media[64];
+        nextDoc = 0;
+    }
+
+    public int size() {
+        return docIds.size();
+    }
+
+    public List<Media> search(String keyword) {
+        List<Media> results = new ArrayList<>();
+        String q = normalize(keyword);
+        if (q != null) visit(q, doc -> results.add(docs[doc]));
+        return results;
+    }
+
+    public SearchPage search(String keyword, SearchRanking ranking, int offset, int limit) {
+        offset = Math.max(0, offset);
+        String q = normalize(keyword);
+        if (q == null || limit <= 0) return new SearchPage(List.of(), offset, 0);
+
+        TopK top = new TopK((int) Math.min((long) offset + limit, Integer.MAX_VALUE));
+        int[] total = new int[1];
+        visit(q, doc -> {
+            total[0]++;
+            long rank = ranking == SearchRanking.RELEVANCE ? score(docs[doc], q) : 0;
+            top.offer(rank << 32 | doc);
+        });
+
+        long[] ranked = top.sorted();
+        List<Media> page = new ArrayList<>();
+        for (int i = offset; i < ranked.length; i++) page.add(docs[(int) ranked[i]]);
+        return new SearchPage(page, offset, total[0]);
+    }
+
+    private static String normalize(String keyword) {
+        if (keyword == null) return null;
+        String q = keyword.toLowerCase(Locale.ROOT).trim();
+        return q.isEmpty() ? null : q;
+    }
+
+    private void visit(String q, IntConsumer matches) {
+        if (q.length() == 1) {
+            for (int doc = 0; doc < nextDoc; doc++) {
+                if (docs[doc] != null && matches(docs[doc], q)) matches.accept(doc);
+            }
+            return;
+        }
+
+        if (q.length() <= 3) {
+            Posting p = postings.get(gram(q, 0, q.length()));
+            if (p == null) return;
+            for (int i = 0; i < p.size; i++) {
+                if (docs[p.ids[i]] != null) matches.accept(p.ids[i]);
+            }
+            return;
+        }
+
+        List<Posting> required = new ArrayList<>();
+        for (int i = 0; i + 3 <= q.length(); i++) {
+            Posting p = postings.get(gram(q, i, 3));
+            if (p == null) return;
+            if (!required.contains(p)) required.add(p);
+        }
+        required.sort((a, b) -> Integer.compare(a.size, b.size));
+
+        int[] candidates = Arrays.copyOf(required.get(0).ids, required.get(0).size);
+        int n = candidates.length;
+        for (int j = 1; j < Math.min(required.size(), MAX_INTERSECTIONS) && n > 0; j++) {
+            n = required.get(j).retainAll(candidates, n);
+        }
+        for (int i = 0; i < n; i++) {
+            Media m = docs[candidates[i]];
+            if (m != null && matches(m, q)) matches.accept(candidates[i]);
+        }
+    }
+
+    static int score(Media media, String lowerKeyword) {
+        if (media.getId() != null && media.getId().equalsIgnoreCase(lowerKeyword)) return 0;
+        if (media.getTitle() != null && media.getTitle().regionMatches(true, 0, lowerKeyword, 0, lowerKeyword.length())) return 1;
+        if (containsIgnoreCase(media.getAuthor(), lowerKeyword)) return 2;
+        return 3;
+    }
+
+    private void index(int doc, String id, String title, String author, boolean add) {
+        indexField(doc, id, add);
+        indexField(doc, title, add);
+        indexField(doc, author, add);
+    }
+
+    private void indexField(int doc, String text, boolean add) {
+        if (text == null) return;
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (int len = 2; len <= 3; len++) {
+            for (int i = 0; i + len <= lower.length(); i++) {
+                long g = gram(lower, i, len);
+                if (add) {
+                    postings.computeIfAbsent(g, k -> new Posting()).add(doc);
+                } else {
+                    Posting p = postings.get(g);
+                    if (p != null && p.remove(doc) && p.size == 0) postings.remove(g);
+                }
+            }
+        }
+    }
+
+    private void compact() {
+        Media[] live = new Media[docIds.size()];
+        int n = 0;
+        for (int doc = 0; doc < nextDoc; doc++) {
+            if (docs[doc] != null) live[n++] = docs[doc];
+        }
+        clear();
+        for (Media m : live) add(m);
+    }
+
+    static boolean matches(Media media, String lowerKeyword) {
+        return containsIgnoreCase(media.getId(), lowerKeyword)
+                || containsIgnoreCase(media.getTitle(), lowerKeyword)
+                || containsIgnoreCase(media.getAuthor(), lowerKeyword);
+    }
+
+    static boolean containsIgnoreCase(String text, String lowerKeyword) {
+        if (text == null) return false;
+        int last = text.length() - lowerKeyword.length();
+        char first = lowerKeyword.charAt(0);
+        for (int i = 0; i <= last; i++) {
+            if (Character.toLowerCase(text.charAt(i)) == first
+                    && text.regionMatches(true, i, lowerKeyword, 0, lowerKeyword.length())) return true;
+        }
+        return false;
+    }
+
+    private static long gram(String s, int start, int len) {
+        long g = len;
+        for (int i = 0; i < len; i++) g = (g << 16) | s.charAt(start + i);
+        return g;
+    }
+
+    private static final class Posting {
+        private int[] ids = new int[2];
+        private int size;
+
+        void add(int doc) {
+            if (size > 0 && ids[size - 1] == doc) return;
+            int pos = size == 0 || ids[size - 1] < doc ? -(size + 1) : Arrays.binarySearch(ids, 0, size, doc);
+            if (pos >= 0) return;
+            pos = -(pos + 1);
+            if (size == ids.length) ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = doc;
+            size++;
+        }
+
+        boolean remove(int doc) {
+            int pos = Arrays.binarySearch(ids, 0, size, doc);
+            if (pos < 0) return false;
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+
+        int retainAll(int[] candidates, int n) {
+            int kept = 0;
+            if (size > 16 * n) {
+                for (int i = 0; i < n; i++) {
+                    if (Arrays.binarySearch(ids, 0, size, candidates[i]) >= 0) candidates[kept++] = candidates[i];
+                }
+                return kept;
+            }
+            for (int i = 0, j = 0; i < n && j < size; ) {
+                if (candidates[i] < ids[j]) i++;
+                else if (candidates[i] > ids[j]) j++;
+                else {
+                    candidates[kept++] = candidates[i];
+                    i++;
+                    j++;
+                }
+            }
+            return kept;
+        }
+    }
+
+    private static final class TopK {
+        private final int k;
+        private long[] heap = new long[16];
+        private int size;
+
+        TopK(int k) {
+            this.k = k;
+        }
+
+        void offer(long key) {
+            if (size < k) {
+                if (size == heap.length) heap = Arrays.copyOf(heap, (int) Math.min((long) size * 2, k));
+                heap[size] = key;
+                siftUp(size++);
+            } else if (key < heap[0]) {
+                heap[0] = key;
+                siftDown(0);
+            }
+        }
+
+        long[] sorted() {
+            long[] out = Arrays.copyOf(heap, size);
+            Arrays.sort(out);
+            return out;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] >= heap[i]) return;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) return;
+                if (child + 1 < size && heap[child + 1] > heap[child]) child++;
+                if (heap[i] >= heap[child]) return;
+                swap(i, child);
+                i = child;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long t = heap[a];
+            heap[a] = heap[b];
+            heap[b] = t;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package librarymanagement.application;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Text with {@code {name}} placeholders, split once into literal and variable parts so each render is a
+ * single pass into a pre-sized buffer. Values are passed in the order the variables were declared.
+ */
+final class MessageTemplate {
+    private final String[] literals;
+    private final int[] slots;
+    private final int variableCount;
+    private final int literalLength;
+
+    private MessageTemplate(String[] literals, int[] slots, int variableCount) {
+        this.literals = literals;
+        this.slots = slots;
+        this.variableCount = variableCount;
+        int length = 0;
+        for (String literal : literals) length += literal.length();
+        this.literalLength = length;
+    }
+
+    static MessageTemplate compile(String text, String... variables) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        int start = 0;
+        for (int open = text.indexOf('{'); open >= 0; open = text.indexOf('{', start)) {
+            int close = text.indexOf('}', open);
+            if (close < 0) throw new IllegalArgumentException("Unclosed placeholder at " + open);
+            String name = text.substring(open + 1, close);
+            int slot = List.of(variables).indexOf(name);
+            if (slot < 0) throw new IllegalArgumentException("Unknown placeholder: " + name);
+            literals.add(text.substring(start, open));
+            slots.add(slot);
+            start = close + 1;
+        }
+        literals.add(text.substring(start));
+        return new MessageTemplate(literals.toArray(new String[0]), slots.stream().mapToInt(Integer::intValue).toArray(),
+                variables.length);
+    }
+
+    String render(Object... values) {
+        if (values.length != variableCount) {
+            throw new IllegalArgumentException("Expected " + variableCount + " values, got " + values.length);
+        }
+        StringBuilder out = new StringBuilder(literalLength + 16 * slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            out.append(literals[i]).append(values[slots[i]]);
+        }
+        return out.append(literals[slots.length]).toString();
+    }
+}
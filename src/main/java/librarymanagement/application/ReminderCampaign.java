@@ -0,0 +1,123 @@
+package librarymanagement.application;
+
+import librarymanagement.domain.LibraryUser;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * One pass of overdue reminders over the users found in the due-date index, in name order. Messages go to the
+ * email queue a batch at a time; once a batch completes, the users whose mail was accepted are appended to the
+ * checkpoint file, so a rerun on the same day skips them and retries only failures and users not reached.
+ */
+final class ReminderCampaign {
+    static final MessageTemplate SUBJECT = MessageTemplate.compile(
+            "Important Reminder: You have overdue items in the library");
+    static final MessageTemplate BODY = MessageTemplate.compile("Dear {name},\n\n" +
+            "You have {count} item(s) overdue.\n" +
+            "Please return them as soon as possible to avoid additional fines.\n\n" +
+            "Thank you for your cooperation,\nLibrary Team", "name", "count");
+
+    private static final String HEADER = "CAMPAIGN|";
+
+    private final EmailService emailService;
+    private final Path checkpoint;
+    private final int batchSize;
+    private final Consumer<CampaignReport> progress;
+
+    ReminderCampaign(EmailService emailService, String checkpointFile, int batchSize, Consumer<CampaignReport> progress) {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be positive");
+        this.emailService = emailService;
+        this.checkpoint = Path.of(checkpointFile);
+        this.batchSize = batchSize;
+        this.progress = progress;
+    }
+
+    CampaignReport run(LocalDate today, Map<LibraryUser, Integer> overdue) {
+        long start = System.currentTimeMillis();
+        Set<String> done = resume(today);
+        List<LibraryUser> users = new ArrayList<>(overdue.keySet());
+        users.sort((a, b) -> a.getName().compareToIgnoreCase(b.getName()));
+
+        int sent = 0, failed = 0, skipped = 0;
+        CampaignReport report = new CampaignReport(users.size(), 0, 0, 0, 0);
+        for (int from = 0; from < users.size(); from += batchSize) {
+            List<LibraryUser> batch = users.subList(from, Math.min(users.size(), from + batchSize));
+            List<LibraryUser> queued = new ArrayList<>(batch.size());
+            List<CompletableFuture<Void>> handles = new ArrayList<>(batch.size());
+            for (LibraryUser user : batch) {
+                if (done.contains(key(user)) || user.getEmail() == null || user.getEmail().trim().isEmpty()) {
+                    skipped++;
+                    continue;
+                }
+                queued.add(user);
+                handles.add(emailService.sendEmail(user.getEmail(), SUBJECT.render(),
+                        BODY.render(user.getName(), overdue.get(user))));
+            }
+
+            List<String> accepted = new ArrayList<>(queued.size());
+            for (int i = 0; i < queued.size(); i++) {
+                try {
+                    handles.get(i).join();
+                    accepted.add(queued.get(i).getName());
+                    sent++;
+                } catch (CompletionException e) {
+                    failed++;
+                }
+            }
+            append(accepted);
+            report = new CampaignReport(users.size(), sent, failed, skipped, System.currentTimeMillis() - start);
+            if (progress != null) progress.accept(report);
+        }
+        return report;
+    }
+
+    private static String key(LibraryUser user) {
+        return user.getName().toLowerCase(Locale.ROOT);
+    }
+
+    private Set<String> resume(LocalDate today) {
+        Set<String> done = new HashSet<>();
+        String header = HEADER + today;
+        try {
+            if (Files.exists(checkpoint)) {
+                List<String> lines = Files.readAllLines(checkpoint, StandardCharsets.UTF_8);
+                if (!lines.isEmpty() && lines.get(0).equals(header)) {
+                    for (String name : lines.subList(1, lines.size())) done.add(name.toLowerCase(Locale.ROOT));
+                    return done;
+                }
+            }
+            Files.writeString(checkpoint, header + "\n", StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.out.println("Error reading campaign checkpoint " + checkpoint + ": " + e.getMessage());
+        }
+        return done;
+    }
+
+    private void append(List<String> names) {
+        if (names.isEmpty()) return;
+        try (BufferedWriter out = Files.newBufferedWriter(checkpoint, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (String name : names) {
+                out.write(name);
+                out.newLine();
+            }
+        } catch (IOException e) {
+            System.out.println("Error writing campaign checkpoint " + checkpoint + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package librarymanagement.application;
+
+import librarymanagement.domain.Media;
+
+import java.util.List;
+
+public class SearchPage {
+    private final List<Media> results;
+    private final int offset;
+    private final int totalMatches;
+
+    public SearchPage(List<Media> results, int offset, int totalMatches) {
+        this.results = List.copyOf(results);
+        this.offset = offset;
+        this.totalMatches = totalMatches;
+    }
+
+    public List<Media> getResults() { return results; }
+    public int getOffset() { return offset; }
+    public int getTotalMatches() { return totalMatches; }
+
+    public boolean hasNext() {
+        return nextOffset() < totalMatches;
+    }
+
+    public int nextOffset() {
+        return offset + results.size();
+    }
+}
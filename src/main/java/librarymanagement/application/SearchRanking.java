@@ -0,0 +1,6 @@
+package librarymanagement.application;
+
+public enum SearchRanking {
+    RELEVANCE,
+    CATALOG_ORDER
+}
@@ -0,0 +1,63 @@
+package librarymanagement.application;
+
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One worker's long-lived, authenticated SMTP connection. It is reopened after sitting idle past the timeout,
+ * and a send that fails for any reason other than rejected recipients is retried once on a fresh connection.
+ */
+final class SmtpConnection {
+    private final Session session;
+    private final String user;
+    private final String password;
+    private final AtomicInteger opened;
+    private Transport transport;
+    private long lastUsed;
+
+    SmtpConnection(Session session, String user, String password, AtomicInteger opened) {
+        this.session = session;
+        this.user = user;
+        this.password = password;
+        this.opened = opened;
+    }
+
+    void send(Message msg, long idleTimeoutMillis) throws MessagingException {
+        msg.saveChanges();
+        if (transport != null && System.nanoTime() - lastUsed > idleTimeoutMillis * 1_000_000L) close();
+        boolean fresh = transport == null;
+        if (fresh) open();
+        try {
+            transport.sendMessage(msg, msg.getAllRecipients());
+        } catch (SendFailedException e) {
+            lastUsed = System.nanoTime();
+            throw e;
+        } catch (MessagingException e) {
+            close();
+            if (fresh) throw e;
+            open();
+            transport.sendMessage(msg, msg.getAllRecipients());
+        }
+        lastUsed = System.nanoTime();
+    }
+
+    private void open() throws MessagingException {
+        Transport t = session.getTransport("smtp");
+        t.connect(user, password);
+        transport = t;
+        opened.incrementAndGet();
+    }
+
+    void close() {
+        if (transport == null) return;
+        try {
+            transport.close();
+        } catch (MessagingException ignored) {
+        }
+        transport = null;
+    }
+}
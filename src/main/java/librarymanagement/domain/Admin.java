@@ -25,6 +25,9 @@ public class Admin extends Person {
 
     public boolean isLoggedIn() { return loggedIn; }
 
+    @Override
+    public String getPassword() { return password; }
+
     public Role getRole() {
         return role;
     }
@@ -2,31 +2,38 @@ package librarymanagement.domain;
 
 
 import librarymanagement.domain.Admin.Role;
+import librarymanagement.persistence.AdminRepository;
+import librarymanagement.persistence.TextAdminRepository;
 
-import java.io.*;
 import java.util.ArrayList;
 import java.util.List;
 
 public class AdminService {
     private final List<Admin> admins = new ArrayList<>();
-    private final String filename;
+    private final AdminRepository repository;
 
     public AdminService(String filename) {
-        this.filename = filename;
-        loadFromFile();
+        this(new TextAdminRepository(filename));
+    }
+
+    public AdminService(AdminRepository repository) {
+        this.repository = repository;
+        admins.addAll(repository.loadAll());
     }
 
     public boolean addSuperAdmin(String name, String email, String password) {
         if (getAdminByEmail(email) != null) return false;
-        admins.add(new Admin(name, email, password, Role.OWNER));
-        saveToFile();
+        Admin admin = new Admin(name, email, password, Role.OWNER);
+        admins.add(admin);
+        repository.saveChanges(admins, List.of(admin));
         return true;
     }
 
     public boolean addSmallAdmin(String name, String email, String password) {
         if (getAdminByEmail(email) != null) return false;
-        admins.add(new Admin(name, email, password, Role.SMALL_ADMIN));
-        saveToFile();
+        Admin admin = new Admin(name, email, password, Role.SMALL_ADMIN);
+        admins.add(admin);
+        repository.saveChanges(admins, List.of(admin));
         return true;
     }
 
@@ -49,26 +56,4 @@ public class AdminService {
                 .findFirst()
                 .orElse(null);
     }
-
-    private void loadFromFile() {
-        if (!new File(filename).exists()) return;
-        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] p = line.split("\\|");
-                if (p.length == 4) {
-                    Role role = p[3].equals("OWNER") ? Role.OWNER : Role.SMALL_ADMIN;
-                    admins.add(new Admin(p[0], p[1], p[2], role));
-                }
-            }
-        } catch (Exception ignored) {}
-    }
-
-    private void saveToFile() {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(filename))) {
-            for (Admin a : admins) {
-                pw.println(a.getName() + "|" + a.getEmail() + "|" + a.getPassword() + "|" + a.getRole());
-            }
-        } catch (Exception ignored) {}
-    }
-}
\ No newline at end of file
+}
@@ -2,8 +2,8 @@ package librarymanagement.domain;
 
 public class BookFineStrategy implements FineStrategy {
     @Override
-    public int calculateFine(int overdueDays) {
-        return overdueDays * 10;
+    public long calculateFineCents(int overdueDays) {
+        return overdueDays * 10 * Money.CENTS;
     }
 }
 
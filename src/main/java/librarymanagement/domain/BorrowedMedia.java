@@ -2,6 +2,7 @@ package librarymanagement.domain;
 
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.Objects;
 
 public class BorrowedMedia {
 
@@ -9,8 +10,11 @@ public class BorrowedMedia {
     private final LocalDate borrowDate;
     private LocalDate dueDate;
     private boolean returned = false;
-    private double fine = 0.0;
+    private long fineCents;
     private boolean fineAdded = false;
+    LibraryUser owner;
+    // The due date the owner has this loan counted under, kept apart so a changed date is uncounted correctly.
+    LocalDate countedDueDate;
 
     public BorrowedMedia(Media media) {
         this.media = media;
@@ -31,26 +35,49 @@ public class BorrowedMedia {
     }
 
     public boolean isOverdue() {
-        return !returned && LocalDate.now().isAfter(dueDate);
+        return isOverdue(LocalDate.now());
+    }
+
+    public boolean isOverdue(LocalDate today) {
+        return !returned && today.isAfter(dueDate);
     }
 
     public long getOverdueDays() {
-        if (!isOverdue()) return 0;
-        return ChronoUnit.DAYS.between(dueDate, LocalDate.now());
+        return getOverdueDays(LocalDate.now());
+    }
+
+    public long getOverdueDays(LocalDate today) {
+        if (!isOverdue(today)) return 0;
+        return ChronoUnit.DAYS.between(dueDate, today);
     }
 
     public double calculateFine() {
-        if (returned) return 0.0;
-        long daysLate = getOverdueDays();
-        if (daysLate <= 0) return 0.0;
+        return calculateFine(LocalDate.now());
+    }
+
+    /**
+     * Computes the fine due today and records it as this loan's fine, as the console always has.
+     */
+    public double calculateFine(LocalDate today) {
+        long cents = calculateFineCents(today);
+        if (cents > 0) fineCents = cents;
+        return Money.toDouble(cents);
+    }
+
+    /**
+     * Computes the fine due today without touching the recorded fine.
+     */
+    public long calculateFineCents(LocalDate today) {
+        if (returned) return 0;
+        long daysLate = getOverdueDays(today);
+        if (daysLate <= 0) return 0;
 
         FineStrategy strategy;
         if (media instanceof Book) strategy = new BookFineStrategy();
         else if (media instanceof CD) strategy = new CDFineStrategy();
         else throw new IllegalArgumentException("Unknown media type");
 
-        fine = strategy.calculateFine((int) daysLate);
-        return fine;
+        return strategy.calculateFineCents((int) daysLate);
     }
 
 
@@ -58,15 +85,17 @@ public class BorrowedMedia {
     public void setFineAdded(boolean fineAdded) { this.fineAdded = fineAdded; }
 
     public double getFine() {
-        return fine;
+        return Money.toDouble(fineCents);
     }
     public void setFine(double fine) {
-        this.fine = fine;
+        this.fineCents = Money.fromDouble(fine);
     }
+    public long getFineCents() { return fineCents; }
+    public void setFineCents(long fineCents) { this.fineCents = fineCents; }
 
     public void returnMedia() {
         if (!returned) {
-            returned = true;
+            setReturned(true);
             media.returnCopy();
         }
     }
@@ -75,7 +104,16 @@ public class BorrowedMedia {
     public LocalDate getBorrowDate() { return borrowDate; }
     public LocalDate getDueDate() { return dueDate; }
     public boolean isReturned() { return returned; }
-    public void setDueDate(LocalDate dueDate) { this.dueDate = dueDate; }
+    public void setReturned(boolean returned) {
+        if (this.returned == returned) return;
+        this.returned = returned;
+        if (owner != null) owner.loanStateChanged(this);
+    }
+    public void setDueDate(LocalDate dueDate) {
+        boolean changed = !Objects.equals(this.dueDate, dueDate);
+        this.dueDate = dueDate;
+        if (changed && owner != null) owner.dueDateChanged(this);
+    }
 
 
     @Override
@@ -83,7 +121,7 @@ public class BorrowedMedia {
         String type = media instanceof Book ? "[BOOK]" : "[CD]";
         String status;
         if (returned) status = "[RETURNED]";
-        else if (isOverdue()) status = "[OVERDUE] " + getOverdueDays() + " day(s) late | Fine: $" + String.format("%.2f", fine);
+        else if (isOverdue()) status = "[OVERDUE] " + getOverdueDays() + " day(s) late | Fine: $" + Money.format(fineCents);
         else status = "[ON TIME]";
         return type + " " + media.getTitle() + " | Due: " + dueDate + " " + status;
     }
@@ -2,7 +2,7 @@ package librarymanagement.domain;
 
 public class CDFineStrategy implements FineStrategy {
     @Override
-    public int calculateFine(int overdueDays) {
-        return overdueDays * 20;
+    public long calculateFineCents(int overdueDays) {
+        return overdueDays * 20 * Money.CENTS;
     }
 }
@@ -2,6 +2,10 @@ package librarymanagement.domain;
 
 public class FineCalculator {
     public static int calculateFine(Media media, int overdueDays) {
+        return (int) (calculateFineCents(media, overdueDays) / Money.CENTS);
+    }
+
+    public static long calculateFineCents(Media media, int overdueDays) {
 
         FineStrategy strategy;
 
@@ -14,7 +18,6 @@ public class FineCalculator {
             throw new IllegalArgumentException("Unknown media type");
         }
 
-        return strategy.calculateFine(overdueDays);
+        return strategy.calculateFineCents(overdueDays);
     }
 }
-
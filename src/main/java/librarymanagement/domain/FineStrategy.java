@@ -1,5 +1,9 @@
 package librarymanagement.domain;
 
 public interface FineStrategy {
-    int calculateFine(int overdueDays);
+    long calculateFineCents(int overdueDays);
+
+    default int calculateFine(int overdueDays) {
+        return (int) (calculateFineCents(overdueDays) / Money.CENTS);
+    }
 }
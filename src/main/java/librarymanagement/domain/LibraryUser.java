@@ -1,15 +1,33 @@
 package librarymanagement.domain;
 
+import java.time.LocalDate;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.TreeMap;
 
 public class LibraryUser {
+    /**
+     * Told when one of the user's open loans moves to another due date.
+     */
+    public interface LoanListener {
+        void dueDateChanged(LibraryUser user, BorrowedMedia loan);
+    }
+
     private String name;
     private String password;
     private String email;
-    private double fineBalance = 0.0;
-    private final List<BorrowedMedia> borrowedMedia = new ArrayList<>();
+    private long fineBalanceCents;
+    private final List<BorrowedMedia> borrowedMedia = new LoanList();
+    private final List<BorrowedMedia> openLoans = new ArrayList<>();
+    // Open loans per due date, with the earliest one and the overdue count for the last day asked cached.
+    private final TreeMap<LocalDate, Integer> openDueDates = new TreeMap<>();
+    private LocalDate earliestDue;
+    private LocalDate overdueAsOf;
+    private int overdueCount;
     private boolean blocked;
+    private LoanListener loanListener;
 
     public LibraryUser(String name, String password, String email) {
         this.name = name;
@@ -28,66 +46,183 @@ public class LibraryUser {
     public String getEmail() { return email; }
     public void setEmail(String email) { this.email = email; }
 
-    public double getFineBalance() { return fineBalance; }
+    public double getFineBalance() { return Money.toDouble(fineBalanceCents); }
+    public long getFineBalanceCents() { return fineBalanceCents; }
     public boolean isBlocked() { return blocked; }
     public void setBlocked(boolean blocked) { this.blocked = blocked; }
 
     public List<BorrowedMedia> getBorrowedMediaInternal() { return borrowedMedia; }
     public List<BorrowedMedia> getBorrowedMedia() { return new ArrayList<>(borrowedMedia); }
+    public List<BorrowedMedia> getOpenLoansInternal() { return openLoans; }
+    public List<BorrowedMedia> getOpenLoans() { return new ArrayList<>(openLoans); }
+    public int getOpenLoanCount() { return openLoans.size(); }
+    public void setLoanListener(LoanListener loanListener) { this.loanListener = loanListener; }
 
 
     public void setFineBalance(double amount) {
-        fineBalance = Math.max(0, amount);
+        setFineBalanceCents(Money.fromDouble(Math.max(0, amount)));
+    }
+
+    public void setFineBalanceCents(long cents) {
+        fineBalanceCents = Math.max(0, cents);
         updateBlockedStatus();
     }
 
     public void addFine(double amount) {
-        if (amount > 0) {
-            fineBalance += amount;
+        if (amount > 0) addFineCents(Money.fromDouble(amount));
+    }
+
+    public void addFineCents(long cents) {
+        if (cents > 0) {
+            fineBalanceCents += cents;
             updateBlockedStatus();
         }
     }
 
     public void payFine(double amount) {
-        if (amount <= 0) return;
-        fineBalance = Math.max(0, fineBalance - amount);
+        if (amount > 0) payFineCents(Money.fromDouble(amount));
+    }
+
+    public void payFineCents(long cents) {
+        if (cents <= 0) return;
+        fineBalanceCents = Math.max(0, fineBalanceCents - cents);
         updateBlockedStatus();
     }
 
     public boolean hasOverdueItems() {
-        return borrowedMedia.stream().anyMatch(BorrowedMedia::isOverdue);
+        return hasOverdueItems(LocalDate.now());
+    }
+
+    public boolean hasOverdueItems(LocalDate today) {
+        return earliestDue != null && today.isAfter(earliestDue);
+    }
+
+    public int getOverdueLoanCount(LocalDate today) {
+        if (!today.equals(overdueAsOf)) {
+            int count = 0;
+            for (int loans : openDueDates.headMap(today, false).values()) count += loans;
+            overdueCount = count;
+            overdueAsOf = today;
+        }
+        return overdueCount;
+    }
+
+    public LocalDate getEarliestOpenDueDate() {
+        return earliestDue;
     }
 
     public double calculateNewFines() {
-        double total = 0.0;
-        for (BorrowedMedia bm : borrowedMedia) {
-            if (!bm.isReturned() && !bm.isFineAdded() && bm.isOverdue()) {
-                total += bm.calculateFine();
+        LocalDate today = LocalDate.now();
+        long total = 0;
+        for (BorrowedMedia bm : openLoans) {
+            if (!bm.isFineAdded() && bm.isOverdue(today)) {
+                long fine = bm.calculateFineCents(today);
+                total += fine;
+                bm.setFineCents(fine);
                 bm.setFineAdded(true);
             }
         }
-        if (total > 0) addFine(total);
-        return total;
+        addFineCents(total);
+        return Money.toDouble(total);
     }
 
     public void updateFineBalance() {
-        double total = 0;
-        for (BorrowedMedia bm : borrowedMedia) {
-            if (!bm.isReturned() && bm.isOverdue()) {
-                total += bm.calculateFine();
+        LocalDate today = LocalDate.now();
+        long total = 0;
+        for (BorrowedMedia bm : openLoans) {
+            if (bm.isOverdue(today)) {
+                total += bm.calculateFineCents(today);
             }
         }
-        fineBalance = total;
-        blocked = fineBalance > 0 || hasOverdueItems();
+        fineBalanceCents = total;
+        blocked = fineBalanceCents > 0 || hasOverdueItems();
     }
 
 
     private void updateBlockedStatus() {
-        blocked = fineBalance > 0 || hasOverdueItems();
+        blocked = fineBalanceCents > 0 || hasOverdueItems();
+    }
+
+    void loanStateChanged(BorrowedMedia bm) {
+        if (bm.isReturned()) close(bm);
+        else if (!openLoans.contains(bm)) open(bm);
+    }
+
+    void dueDateChanged(BorrowedMedia bm) {
+        if (bm.isReturned()) return;
+        countDueDate(bm.countedDueDate, -1);
+        bm.countedDueDate = bm.getDueDate();
+        countDueDate(bm.countedDueDate, 1);
+        if (loanListener != null) loanListener.dueDateChanged(this, bm);
+    }
+
+    private void open(BorrowedMedia bm) {
+        openLoans.add(bm);
+        bm.countedDueDate = bm.getDueDate();
+        countDueDate(bm.countedDueDate, 1);
+    }
+
+    private void close(BorrowedMedia bm) {
+        if (openLoans.remove(bm)) countDueDate(bm.countedDueDate, -1);
+    }
+
+    private void countDueDate(LocalDate due, int delta) {
+        if (due == null) return;
+        openDueDates.merge(due, delta, (a, b) -> a + b == 0 ? null : a + b);
+        earliestDue = openDueDates.isEmpty() ? null : openDueDates.firstKey();
+        overdueAsOf = null;
+    }
+
+    // Keeps openLoans in step with the full loan list, however callers add or remove entries.
+    private final class LoanList extends AbstractList<BorrowedMedia> implements RandomAccess {
+        private final ArrayList<BorrowedMedia> loans = new ArrayList<>();
+
+        @Override
+        public BorrowedMedia get(int index) {
+            return loans.get(index);
+        }
+
+        @Override
+        public int size() {
+            return loans.size();
+        }
+
+        @Override
+        public BorrowedMedia set(int index, BorrowedMedia bm) {
+            BorrowedMedia old = loans.set(index, bm);
+            detach(old);
+            attach(bm);
+            return old;
+        }
+
+        @Override
+        public void add(int index, BorrowedMedia bm) {
+            loans.add(index, bm);
+            modCount++;
+            attach(bm);
+        }
+
+        @Override
+        public BorrowedMedia remove(int index) {
+            BorrowedMedia old = loans.remove(index);
+            modCount++;
+            detach(old);
+            return old;
+        }
+
+        private void attach(BorrowedMedia bm) {
+            bm.owner = LibraryUser.this;
+            if (!bm.isReturned()) open(bm);
+        }
+
+        private void detach(BorrowedMedia bm) {
+            if (bm.owner == LibraryUser.this) bm.owner = null;
+            close(bm);
+        }
     }
 
     @Override
     public String toString() {
-        return name + " (" + email + ") (Fine: $" + String.format("%.2f", fineBalance) + ")";
+        return name + " (" + email + ") (Fine: $" + Money.format(fineBalanceCents) + ")";
     }
 }
@@ -1,22 +1,34 @@
 package librarymanagement.domain;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.time.LocalDate;
 
 public abstract class Media {
+    private static final VarHandle COPIES;
+
+    static {
+        try {
+            COPIES = MethodHandles.lookup().findVarHandle(Media.class, "copies", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
     protected String title;
     protected String author;
     protected String id;
-    protected int totalCopies;
-    protected int availableCopies;
+    // total copies in the high 32 bits, available copies in the low 32 bits, updated by CAS
+    private volatile long copies;
     private final FineStrategy fineStrategy;
+    private MediaListener listener;
 
     public Media(String title, String author, String id, int copies, FineStrategy fineStrategy) {
         this.title = title;
         this.author = author;
         this.id = id;
-        this.totalCopies = Math.max(copies, 1);
-        this.availableCopies = this.totalCopies;
+        int total = Math.max(copies, 1);
+        this.copies = pack(total, total);
         this.fineStrategy = fineStrategy;
     }
 
@@ -24,36 +36,69 @@ public abstract class Media {
     public String getAuthor() { return author; }
     public String getId() { return id; }
 
-    public int getTotalCopies() { return totalCopies; }
-    public int getAvailableCopies() { return availableCopies; }
+    public int getTotalCopies() { return total(copies); }
+    public int getAvailableCopies() { return available(copies); }
+
+    private static long pack(int total, int available) {
+        return ((long) total << 32) | (available & 0xFFFFFFFFL);
+    }
+
+    private static int total(long copies) {
+        return (int) (copies >>> 32);
+    }
+
+    private static int available(long copies) {
+        return (int) copies;
+    }
 
     public void addCopy() {
-        totalCopies++;
-        availableCopies++;
+        long c;
+        do {
+            c = copies;
+        } while (!COPIES.weakCompareAndSet(this, c, pack(total(c) + 1, available(c) + 1)));
+        copiesChanged();
     }
 
     public boolean borrowCopy() {
-        if (availableCopies > 0) {
-            availableCopies--;
-            return true;
-        }
-        return false;
+        long c;
+        do {
+            c = copies;
+            if (available(c) <= 0) return false;
+        } while (!COPIES.weakCompareAndSet(this, c, c - 1));
+        copiesChanged();
+        return true;
     }
 
     public void returnCopy() {
-        if (availableCopies < totalCopies) availableCopies++;
+        long c;
+        do {
+            c = copies;
+            if (available(c) >= total(c)) return;
+        } while (!COPIES.weakCompareAndSet(this, c, c + 1));
+        copiesChanged();
     }
 
     public void setAvailableCopies(int availableCopies) {
-        if (availableCopies >= 0 && availableCopies <= totalCopies) {
-            this.availableCopies = availableCopies;
-        }
+        long c;
+        do {
+            c = copies;
+            if (availableCopies < 0 || availableCopies > total(c) || availableCopies == available(c)) return;
+        } while (!COPIES.weakCompareAndSet(this, c, pack(total(c), availableCopies)));
+        copiesChanged();
+    }
+
+    private void copiesChanged() {
+        if (listener != null) listener.onCopiesChanged(this);
     }
 
     public abstract int getBorrowDays();
 
     public double calculateFine(long overdueDays) {
-        return fineStrategy.calculateFine((int) overdueDays);
+        return Money.toDouble(calculateFineCents(overdueDays));
+    }
+
+    public long calculateFineCents(long overdueDays) {
+        return fineStrategy.calculateFineCents((int) overdueDays);
     }
 
     public double calculateFine(LocalDate dueDate) {
@@ -62,24 +107,34 @@ public abstract class Media {
     }
 
 
+    public MediaListener getListener() { return listener; }
+    public void setListener(MediaListener listener) { this.listener = listener; }
+
     public void setTitle(String title) {
         if (title != null && !title.trim().isEmpty()) {
+            String oldTitle = this.title;
             this.title = title.trim();
+            if (listener != null) listener.onTextChanged(this, oldTitle, author);
         }
     }
 
     public void setAuthor(String author) {
         if (author != null && !author.trim().isEmpty()) {
+            String oldAuthor = this.author;
             this.author = author.trim();
+            if (listener != null) listener.onTextChanged(this, title, oldAuthor);
         }
     }
 
     public void setTotalCopies(int totalCopies) {
-        if (totalCopies >= this.availableCopies) {
-            this.totalCopies = totalCopies;
-        } else {
-            throw new IllegalArgumentException("Total copies cannot be less than available copies!");
-        }
+        long c;
+        do {
+            c = copies;
+            if (totalCopies < available(c)) {
+                throw new IllegalArgumentException("Total copies cannot be less than available copies!");
+            }
+        } while (!COPIES.weakCompareAndSet(this, c, pack(totalCopies, available(c))));
+        copiesChanged();
     }
     public String getType() {
         if (this instanceof Book) return "[Book]";
@@ -89,7 +144,7 @@ public abstract class Media {
 
     @Override
     public String toString() {
-        return getType() + " " + title + " - " + author + " (ID: " + id + ", Available: " + availableCopies + ")";
+        return getType() + " " + title + " - " + author + " (ID: " + id + ", Available: " + getAvailableCopies() + ")";
     }
 
 }
@@ -0,0 +1,7 @@
+package librarymanagement.domain;
+
+public interface MediaListener {
+    void onTextChanged(Media media, String oldTitle, String oldAuthor);
+
+    void onCopiesChanged(Media media);
+}
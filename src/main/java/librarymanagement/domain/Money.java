@@ -0,0 +1,85 @@
+package librarymanagement.domain;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Amounts of money held as a {@code long} count of cents, so fines and balances add up exactly.
+ * Text formats carry them as plain decimals with two places ({@code 12.50}); older files written
+ * from doubles ({@code 7.5}, {@code 1.0E7}) still parse, rounding half-up to the cent.
+ */
+public final class Money {
+    public static final long CENTS = 100;
+
+    private Money() {}
+
+    public static long ofUnits(long units) {
+        return Math.multiplyExact(units, CENTS);
+    }
+
+    public static long fromDouble(double amount) {
+        if (Double.isNaN(amount) || Double.isInfinite(amount)) {
+            throw new IllegalArgumentException("Not an amount: " + amount);
+        }
+        return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static double toDouble(long cents) {
+        return cents / (double) CENTS;
+    }
+
+    public static String format(long cents) {
+        return appendTo(new StringBuilder(24), cents).toString();
+    }
+
+    public static StringBuilder appendTo(StringBuilder sb, long cents) {
+        long units = cents / CENTS;
+        int rest = (int) Math.abs(cents % CENTS);
+        if (cents < 0 && units == 0) sb.append('-');
+        sb.append(units).append('.');
+        if (rest < 10) sb.append('0');
+        return sb.append(rest);
+    }
+
+    public static long parse(CharSequence text) {
+        int p = 0, end = text.length();
+        while (p < end && text.charAt(p) == ' ') p++;
+        while (end > p && text.charAt(end - 1) == ' ') end--;
+        boolean negative = p < end && text.charAt(p) == '-';
+        if (negative || p < end && text.charAt(p) == '+') p++;
+        long units = 0;
+        int digits = 0, fraction = -1;
+        long cents = 0;
+        boolean roundUp = false;
+        for (; p < end; p++) {
+            char c = text.charAt(p);
+            if (c == '.' && fraction < 0) {
+                fraction = 0;
+            } else if (c >= '0' && c <= '9' && fraction < 0 && digits < 16) {
+                units = units * 10 + (c - '0');
+                digits++;
+            } else if (c >= '0' && c <= '9' && fraction >= 0) {
+                if (fraction < 2) cents = cents * 10 + (c - '0');
+                else if (fraction == 2) roundUp = c >= '5';
+                fraction++;
+                digits++;
+            } else {
+                return parseExact(text);
+            }
+        }
+        if (digits == 0) return parseExact(text);
+        if (fraction == 1) cents *= 10;
+        else if (fraction <= 0) cents = 0;
+        long v = units * CENTS + cents + (roundUp ? 1 : 0);
+        return negative ? -v : v;
+    }
+
+    private static long parseExact(CharSequence text) {
+        try {
+            return new BigDecimal(text.toString().trim()).setScale(2, RoundingMode.HALF_UP)
+                    .unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount out of range: " + text);
+        }
+    }
+}
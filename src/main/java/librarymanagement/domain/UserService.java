@@ -1,20 +1,43 @@
 package librarymanagement.domain;
 
 import librarymanagement.application.LibraryService;
-import java.io.*;
-import java.time.LocalDate;
+import librarymanagement.persistence.LoanArchive;
+import librarymanagement.persistence.LoanRepository;
+import librarymanagement.persistence.TextLoanRepository;
+import librarymanagement.persistence.TextUserRepository;
+import librarymanagement.persistence.UserRepository;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class UserService {
     private static UserService instance;
-    private final List<LibraryUser> users = new ArrayList<>();
-    private final String usersFile;
-    private final String borrowedFile;
+    private final Map<String, LibraryUser> users = new LinkedHashMap<>();
+    // Guards lookups against adds and removals; LibraryService runs those inside its lockAll, so
+    // code iterating the map under lockAll needs no read lock.
+    private final ReadWriteLock usersLock = new ReentrantReadWriteLock();
+    private final UserRepository userRepository;
+    private final LoanRepository loanRepository;
+    private final LoanArchive loanArchive;
+    // Users whose record, loans or fine changed and names removed since the last markSaved.
+    private final Set<String> changed = ConcurrentHashMap.newKeySet();
+    private final Set<String> removed = ConcurrentHashMap.newKeySet();
     private LibraryService libraryService;
 
     public UserService(String usersFile, String borrowedFile) {
-        this.usersFile = usersFile;
-        this.borrowedFile = borrowedFile;
+        this(new TextUserRepository(usersFile), new TextLoanRepository(borrowedFile));
+    }
+
+    public UserService(UserRepository userRepository, LoanRepository loanRepository) {
+        this(userRepository, loanRepository, null);
+    }
+
+    public UserService(UserRepository userRepository, LoanRepository loanRepository, LoanArchive loanArchive) {
+        this.userRepository = userRepository;
+        this.loanRepository = loanRepository;
+        this.loanArchive = loanArchive;
         instance = this;
         loadUsers();
     }
@@ -24,21 +47,34 @@ public class UserService {
         this.libraryService = libraryService;
     }
 
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
     public boolean addUser(String name, String password, String email) {
-        if (users.stream().anyMatch(u -> u.getName().equalsIgnoreCase(name))) return false;
-        LibraryUser newUser = new LibraryUser(name, password, email);
-        users.add(newUser);
+        if (name == null) return false;
+        return addUser(new LibraryUser(name, password, email));
+    }
+
+    public boolean addUser(LibraryUser user) {
+        if (user == null || user.getName() == null) return false;
+        usersLock.writeLock().lock();
+        try {
+            if (users.putIfAbsent(key(user.getName()), user) != null) return false;
+        } finally {
+            usersLock.writeLock().unlock();
+        }
+        markChanged(user.getName());
         saveUsers();
         saveBorrowedMedia();
         return true;
     }
 
     public LibraryUser login(String name, String password) {
-        LibraryUser user = users.stream()
-                .filter(u -> u.getName().equalsIgnoreCase(name) && u.getPassword().equals(password))
-                .findFirst().orElse(null);
+        LibraryUser user = getUserByName(name);
+        if (user == null || !user.getPassword().equals(password)) return null;
 
-        if (user != null && libraryService != null) {
+        if (libraryService != null) {
             libraryService.checkOverdueMedia(user);
         }
 
@@ -46,114 +82,174 @@ public class UserService {
     }
 
     public LibraryUser getUserByName(String name) {
-        return users.stream()
-                .filter(u -> u.getName().equalsIgnoreCase(name))
-                .findFirst().orElse(null);
+        if (name == null) return null;
+        usersLock.readLock().lock();
+        try {
+            return users.get(key(name));
+        } finally {
+            usersLock.readLock().unlock();
+        }
     }
 
     public boolean removeUser(String name) {
-        boolean removed = users.removeIf(u -> u.getName().equalsIgnoreCase(name));
+        LibraryUser user;
+        usersLock.writeLock().lock();
+        try {
+            user = name != null ? users.remove(key(name)) : null;
+        } finally {
+            usersLock.writeLock().unlock();
+        }
+        boolean found = user != null;
+        if (found) {
+            changed.remove(key(name));
+            removed.add(key(name));
+            if (libraryService != null) libraryService.userRemoved(user);
+        }
         saveUsers();
         saveBorrowedMedia();
-        return removed;
+        return found;
+    }
+
+    public void replaceUsers(Collection<LibraryUser> loaded) {
+        usersLock.writeLock().lock();
+        try {
+            removed.addAll(users.keySet());
+            users.clear();
+            for (LibraryUser u : loaded) {
+                if (u != null && u.getName() != null && users.putIfAbsent(key(u.getName()), u) == null) {
+                    markChanged(u.getName());
+                }
+            }
+        } finally {
+            usersLock.writeLock().unlock();
+        }
     }
 
     public List<LibraryUser> getUsers() {
-        return new ArrayList<>(users);
+        usersLock.readLock().lock();
+        try {
+            return new ArrayList<>(users.values());
+        } finally {
+            usersLock.readLock().unlock();
+        }
     }
 
     private void loadUsers() {
-        if (usersFile == null || usersFile.isEmpty()) return;
-        File file = new File(usersFile);
-        if (!file.exists()) return;
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] p = line.split(":", 5);
-                if (p.length < 2) continue;
-                String name = p[0];
-                String pass = p[1];
-                String email = p.length >= 3 ? p[2] : "";
-                double fine = p.length >= 4 ? Double.parseDouble(p[3]) : 0.0;
-                boolean blocked = p.length >= 5 && Boolean.parseBoolean(p[4]);
-
-                LibraryUser user = new LibraryUser(name, pass, email);
-                user.setFineBalance(fine);
-                user.setBlocked(blocked);
-                users.add(user);
-            }
-        } catch (Exception e) {
-            System.out.println("Error loading users: " + e.getMessage());
+        for (LibraryUser user : userRepository.loadAll()) {
+            users.putIfAbsent(key(user.getName()), user);
         }
     }
 
-    public void saveUsers() {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(usersFile))) {
-            for (LibraryUser u : users) {
-                pw.println(u.getName() + ":" + u.getPassword() + ":" + u.getEmail() + ":" +
-                        u.getFineBalance() + ":" + u.isBlocked());
-            }
-        } catch (IOException e) {
-            System.out.println("Error saving users: " + e.getMessage());
+    public boolean saveUsers() {
+        return userRepository.saveChanges(users.values(), getChangedUsers(), getRemovedUsers());
+    }
+
+    public void markChanged(String name) {
+        if (name != null) changed.add(key(name));
+    }
+
+    public List<LibraryUser> getChangedUsers() {
+        List<LibraryUser> list = new ArrayList<>();
+        for (String name : changed) {
+            LibraryUser user = users.get(name);
+            if (user != null) list.add(user);
         }
+        return list;
+    }
+
+    public Set<String> getRemovedUsers() {
+        Set<String> names = new HashSet<>(removed);
+        names.removeAll(users.keySet());
+        return names;
+    }
+
+    /**
+     * Forgets the changes every repository has now saved.
+     */
+    public void markSaved() {
+        changed.clear();
+        removed.clear();
     }
 
     public void loadBorrowedMedia() {
-        if (libraryService == null || borrowedFile == null || borrowedFile.isEmpty()) return;
+        if (libraryService == null) return;
 
-        for (LibraryUser user : users) {
+        for (LibraryUser user : users.values()) {
             user.getBorrowedMediaInternal().clear();
         }
 
-        File file = new File(borrowedFile);
-        if (!file.exists()) return;
-
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split("\\|");
-                if (parts.length < 5) continue;
-                String username = parts[0];
-                String mediaId = parts[1];
-                LocalDate borrowDate = LocalDate.parse(parts[2]);
-                LocalDate dueDate = LocalDate.parse(parts[3]);
-                boolean returned = Boolean.parseBoolean(parts[4]);
-                double fine = parts.length >= 6 ? Double.parseDouble(parts[5]) : 0.0;
-
-                LibraryUser user = getUserByName(username);
-                Media media = libraryService.getMediaById(mediaId);
-                if (user != null && media != null) {
-                    BorrowedMedia bm = new BorrowedMedia(media, borrowDate, dueDate);
-                    if (returned) bm.returnMedia();
-                    bm.setFine(fine);
-                    if (fine > 0) bm.setFineAdded(true);
-                    user.getBorrowedMediaInternal().add(bm);
-                }
-            }
-        } catch (IOException e) {
-            System.out.println("Error loading borrowed media: " + e.getMessage());
+        ForkJoinPool pool = libraryService.getBootstrapPool();
+        List<LoanRepository.Loan> loans = loanRepository.loadAll(this::getUserByName, libraryService::getMediaById, pool);
+        for (LoanRepository.Loan loan : loans) loan.getUser().getBorrowedMediaInternal().add(loan.getBorrowed());
+        libraryService.reindexLoans();
+        if (loanArchive != null && loanArchive.hasStaged()) {
+            if (hasLoansToArchive()) loanArchive.discardStaged();
+            else loanArchive.commitStaged();
         }
 
-        for (LibraryUser u : users) {
-            libraryService.checkOverdueMedia(u);
+        if (libraryService.checkNewlyOverdue()) saveBorrowedMedia();
+    }
+
+    public boolean saveBorrowedMedia() {
+        return loanRepository.saveChanges(users.values(), getChangedUsers(), getRemovedUsers());
+    }
+
+    public String getJournalFile() {
+        return loanRepository.getJournalFile();
+    }
+
+    public LoanArchive getLoanArchive() {
+        return loanArchive;
+    }
+
+    public boolean hasLoansToArchive() {
+        if (loanArchive == null) return false;
+        for (LibraryUser user : users.values()) {
+            if (user.getBorrowedMediaInternal().size() > user.getOpenLoanCount()) return true;
         }
-        saveBorrowedMedia();
+        return false;
     }
 
-    public void saveBorrowedMedia() {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(borrowedFile))) {
-            for (LibraryUser user : users) {
-                for (BorrowedMedia bm : user.getBorrowedMedia()) {
-                    pw.println(user.getName() + "|" +
-                            bm.getMedia().getId() + "|" +
-                            bm.getBorrowDate() + "|" +
-                            bm.getDueDate() + "|" +
-                            bm.isReturned() + "|" +
-                            bm.getFine());
-                }
+    /**
+     * Moves returned loans to the archive. The batch is staged first, then the loan file is saved
+     * without it and only then is the batch appended, so a crash leaves either returned loans in the
+     * loan file, and the stale batch is dropped, or none, and the batch is finished on the next start.
+     */
+    public boolean archiveReturnedLoans() {
+        if (loanArchive != null && loanArchive.hasStaged() && !loanArchive.commitStaged()) return false;
+        if (!hasLoansToArchive()) return false;
+        List<LoanRepository.Loan> returned = new ArrayList<>();
+        Map<LibraryUser, List<BorrowedMedia>> before = new HashMap<>();
+        for (LibraryUser user : users.values()) {
+            if (user.getBorrowedMediaInternal().size() == user.getOpenLoanCount()) continue;
+            before.put(user, new ArrayList<>(user.getBorrowedMediaInternal()));
+            for (BorrowedMedia bm : user.getBorrowedMediaInternal()) {
+                if (bm.isReturned()) returned.add(new LoanRepository.Loan(user, bm));
             }
-        } catch (IOException e) {
-            System.out.println("Error saving borrowed media: " + e.getMessage());
         }
+        if (!loanArchive.stage(returned)) return false;
+        for (LibraryUser user : before.keySet()) user.getBorrowedMediaInternal().removeIf(BorrowedMedia::isReturned);
+        if (!loanRepository.saveChanges(users.values(), before.keySet(), Set.of())) {
+            loanArchive.discardStaged();
+            before.forEach((user, loans) -> {
+                for (int i = 0; i < loans.size(); i++) {
+                    if (loans.get(i).isReturned()) user.getBorrowedMediaInternal().add(i, loans.get(i));
+                }
+            });
+            return false;
+        }
+        loanArchive.commitStaged();
+        return true;
+    }
+
+    public List<BorrowedMedia> getLoanHistory(String name) {
+        LibraryUser user = getUserByName(name);
+        List<BorrowedMedia> history = new ArrayList<>();
+        if (user == null) return history;
+        if (loanArchive != null && libraryService != null) {
+            history.addAll(loanArchive.findByUser(user.getName(), libraryService::getMediaById));
+        }
+        history.addAll(user.getBorrowedMedia());
+        return history;
     }
 }
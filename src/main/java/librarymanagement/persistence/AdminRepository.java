@@ -0,0 +1,23 @@
+package librarymanagement.persistence;
+
+import librarymanagement.domain.Admin;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Storage of admin accounts, in creation order.
+ */
+public interface AdminRepository {
+    List<Admin> loadAll();
+
+    boolean saveAll(Collection<Admin> admins);
+
+    /**
+     * Upserts the changed admins. Files without record access are rewritten from {@code admins}
+     * instead.
+     */
+    default boolean saveChanges(Collection<Admin> admins, Collection<Admin> changed) {
+        return saveAll(admins);
+    }
+}
@@ -0,0 +1,524 @@
+package librarymanagement.persistence;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.CRC32C;
+
+/**
+ * Embedded single-file store of named B+trees mapping string keys to byte values, so a save touches
+ * only the pages of the records it changes instead of rewriting whole files. The services still load
+ * every user, media item and unarchived loan at startup. Pages are copy-on-write: changes
+ * go to free pages and {@link #commit()} fsyncs them before publishing the new roots in one of two
+ * alternating, checksummed header pages. After a crash the newest valid header still points at
+ * intact pages, so the store reopens at the last commit. Deletes do not merge underfull nodes;
+ * {@link #clear} releases a whole tree.
+ */
+public final class BTreeStore implements AutoCloseable {
+    public static final int PAGE_SIZE = 4096;
+    public static final int MAX_KEY = 512;
+    public static final int MAX_ENTRY = 1024;
+    private static final int MAGIC = 0x4C494254;
+    private static final int VERSION = 1;
+    private static final int HEADER_PAGES = 2;
+    private static final int PAGE_BODY = PAGE_SIZE - 4;
+    private static final int MAX_TREES = 32;
+    private static final int MAX_TREE_NAME = 64;
+    private static final int CACHE_PAGES = 4096;
+
+    public interface Visitor {
+        void visit(String key, byte[] value) throws IOException;
+    }
+
+    public interface Work {
+        void run() throws IOException;
+    }
+
+    private final String fileName;
+    private final FileChannel channel;
+    private final Map<String, Long> committedRoots = new TreeMap<>();
+    private final Map<String, Long> roots = new TreeMap<>();
+    private final TreeSet<Long> free = new TreeSet<>();
+    private final List<Long> freedInTransaction = new ArrayList<>();
+    private final List<Long> takenFromFree = new ArrayList<>();
+    private final Map<Long, Node> dirty = new HashMap<>();
+    private final Map<Long, Node> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Node> eldest) {
+            return size() > CACHE_PAGES;
+        }
+    };
+    private long sequence;
+    private long pageCount;
+    private long committedPageCount;
+    private boolean failed;
+
+    public BTreeStore(String fileName) throws IOException {
+        this.fileName = fileName;
+        channel = FileChannel.open(Path.of(fileName), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                pageCount = committedPageCount = HEADER_PAGES;
+                writeHeader(0);
+                channel.force(true);
+            } else {
+                readHeader();
+                rebuildFreeList();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public synchronized byte[] get(String tree, String key) throws IOException {
+        return get(tree, bytes(key));
+    }
+
+    private byte[] get(String tree, byte[] key) throws IOException {
+        long page = roots.getOrDefault(tree, 0L);
+        if (page == 0) return null;
+        Node node = node(page);
+        while (!node.isLeaf()) node = node(node.children.get(childIndex(node, key)));
+        int i = find(node.keys, key);
+        return i >= 0 ? node.values.get(i) : null;
+    }
+
+    public synchronized void put(String tree, String key, byte[] value) throws IOException {
+        byte[] k = bytes(key);
+        if (k.length > MAX_KEY || k.length + value.length > MAX_ENTRY) {
+            throw new IllegalArgumentException("Entry too large for store: " + key);
+        }
+        checkWritable();
+        long root = roots.getOrDefault(tree, 0L);
+        if (root == 0) checkTreeName(tree);
+        Node node = root == 0 ? newNode(0) : writable(root);
+        Node right = insert(node, k, value.clone());
+        if (right != null) {
+            Node top = newNode(node.level + 1);
+            top.keys.add(right.separator);
+            top.children.add(node.page);
+            top.children.add(right.page);
+            node = top;
+        }
+        roots.put(tree, node.page);
+    }
+
+    public synchronized boolean delete(String tree, String key) throws IOException {
+        byte[] k = bytes(key);
+        if (get(tree, k) == null) return false;
+        checkWritable();
+        Node node = writable(roots.get(tree));
+        roots.put(tree, node.page);
+        while (!node.isLeaf()) {
+            int i = childIndex(node, k);
+            Node child = writable(node.children.get(i));
+            node.children.set(i, child.page);
+            node = child;
+        }
+        int i = find(node.keys, k);
+        node.keys.remove(i);
+        node.values.remove(i);
+        return true;
+    }
+
+    public synchronized void clear(String tree) throws IOException {
+        if (!roots.containsKey(tree)) return;
+        checkWritable();
+        releaseTree(roots.remove(tree));
+    }
+
+    public synchronized void scan(String tree, String prefix, Visitor visitor) throws IOException {
+        long page = roots.getOrDefault(tree, 0L);
+        if (page != 0) scan(node(page), bytes(prefix), visitor);
+    }
+
+    private boolean scan(Node node, byte[] prefix, Visitor visitor) throws IOException {
+        if (node.isLeaf()) {
+            int i = find(node.keys, prefix);
+            for (i = i < 0 ? -i - 1 : i; i < node.keys.size(); i++) {
+                byte[] key = node.keys.get(i);
+                if (!startsWith(key, prefix)) return false;
+                visitor.visit(new String(key, StandardCharsets.UTF_8), node.values.get(i));
+            }
+            return true;
+        }
+        for (int i = childIndex(node, prefix); i < node.children.size(); i++) {
+            if (i > 0 && Arrays.compareUnsigned(node.keys.get(i - 1), prefix) > 0
+                    && !startsWith(node.keys.get(i - 1), prefix)) return false;
+            if (!scan(node(node.children.get(i)), prefix, visitor)) return false;
+        }
+        return true;
+    }
+
+    public synchronized void transaction(Work work) throws IOException {
+        try {
+            work.run();
+            commit();
+        } catch (IOException | RuntimeException e) {
+            rollback();
+            throw e;
+        }
+    }
+
+    public synchronized void commit() throws IOException {
+        if (dirty.isEmpty() && roots.equals(committedRoots)) return;
+        checkWritable();
+        List<Node> nodes = new ArrayList<>(dirty.values());
+        nodes.sort(Comparator.comparingLong(n -> n.page));
+        ByteBuffer buf = ByteBuffer.allocate(PAGE_SIZE);
+        for (Node n : nodes) {
+            buf.clear();
+            n.encode(buf);
+            writePage(buf, n.page);
+        }
+        channel.force(false);
+        try {
+            writeHeader(sequence + 1);
+            channel.force(false);
+        } catch (IOException e) {
+            failed = true;
+            throw e;
+        }
+        sequence++;
+        committedRoots.clear();
+        committedRoots.putAll(roots);
+        committedPageCount = pageCount;
+        for (Long page : freedInTransaction) {
+            cache.remove(page);
+            free.add(page);
+        }
+        freedInTransaction.clear();
+        takenFromFree.clear();
+        for (Node n : nodes) cache.put(n.page, n);
+        dirty.clear();
+    }
+
+    public synchronized void rollback() {
+        roots.clear();
+        roots.putAll(committedRoots);
+        dirty.clear();
+        free.addAll(takenFromFree);
+        free.tailSet(committedPageCount).clear();
+        pageCount = committedPageCount;
+        freedInTransaction.clear();
+        takenFromFree.clear();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        rollback();
+        channel.close();
+    }
+
+    private void checkWritable() throws IOException {
+        if (failed) throw new IOException("Store " + fileName + " failed to commit and must be reopened");
+    }
+
+    private void checkTreeName(String tree) {
+        int length = bytes(tree).length;
+        if (length == 0 || length > MAX_TREE_NAME) throw new IllegalArgumentException("Invalid tree name: " + tree);
+        if (roots.size() >= MAX_TREES) throw new IllegalArgumentException("Too many trees in store " + fileName);
+    }
+
+    private Node insert(Node node, byte[] key, byte[] value) throws IOException {
+        if (node.isLeaf()) {
+            int i = find(node.keys, key);
+            if (i >= 0) {
+                node.values.set(i, value);
+            } else {
+                node.keys.add(-i - 1, key);
+                node.values.add(-i - 1, value);
+            }
+        } else {
+            int i = childIndex(node, key);
+            Node child = writable(node.children.get(i));
+            node.children.set(i, child.page);
+            Node right = insert(child, key, value);
+            if (right != null) {
+                node.keys.add(i, right.separator);
+                node.children.add(i + 1, right.page);
+            }
+        }
+        return node.bytes() > PAGE_BODY ? split(node) : null;
+    }
+
+    private Node split(Node node) {
+        Node right = newNode(node.level);
+        int half = node.bytes() / 2;
+        int size = Node.BASE;
+        int m = 0;
+        if (node.isLeaf()) {
+            while (m < node.keys.size() - 1 && size < half) {
+                size += 4 + node.keys.get(m).length + node.values.get(m).length;
+                m++;
+            }
+            m = Math.max(1, m);
+            move(node.keys, m, right.keys);
+            move(node.values, m, right.values);
+            right.separator = right.keys.get(0);
+        } else {
+            while (m < node.keys.size() - 2 && size < half) {
+                size += 10 + node.keys.get(m).length;
+                m++;
+            }
+            m = Math.max(1, m);
+            right.separator = node.keys.get(m);
+            move(node.keys, m + 1, right.keys);
+            node.keys.remove(m);
+            move(node.children, m + 1, right.children);
+        }
+        return right;
+    }
+
+    private static <T> void move(List<T> from, int index, List<T> to) {
+        List<T> tail = from.subList(index, from.size());
+        to.addAll(tail);
+        tail.clear();
+    }
+
+    private Node newNode(int level) {
+        Node n = new Node(allocate(), level);
+        dirty.put(n.page, n);
+        return n;
+    }
+
+    private Node writable(long page) throws IOException {
+        Node n = dirty.get(page);
+        if (n != null) return n;
+        Node copy = node(page).copy(allocate());
+        release(page);
+        dirty.put(copy.page, copy);
+        return copy;
+    }
+
+    private long allocate() {
+        Long page = free.pollFirst();
+        if (page == null) return pageCount++;
+        takenFromFree.add(page);
+        return page;
+    }
+
+    private void release(long page) {
+        if (dirty.remove(page) != null) free.add(page);
+        else freedInTransaction.add(page);
+    }
+
+    private void releaseTree(long page) throws IOException {
+        Node n = node(page);
+        for (long child : n.children) {
+            if (n.level == 1) release(child);
+            else releaseTree(child);
+        }
+        release(page);
+    }
+
+    private Node node(long page) throws IOException {
+        Node n = dirty.get(page);
+        if (n == null) n = cache.get(page);
+        if (n != null) return n;
+        if (page < HEADER_PAGES || page >= pageCount) throw new IOException("Store " + fileName + " references missing page " + page);
+        ByteBuffer buf = readPage(page);
+        if (!checksumMatches(buf)) throw new IOException("Store " + fileName + " page " + page + " is corrupt");
+        n = Node.decode(page, buf);
+        cache.put(page, n);
+        return n;
+    }
+
+    private void rebuildFreeList() throws IOException {
+        BitSet used = new BitSet();
+        for (long root : roots.values()) mark(root, used);
+        for (long page = HEADER_PAGES; page < pageCount; page++) {
+            if (!used.get((int) page)) free.add(page);
+        }
+    }
+
+    private void mark(long page, BitSet used) throws IOException {
+        Node n = node(page);
+        used.set((int) page);
+        for (long child : n.children) {
+            if (child < HEADER_PAGES || child >= pageCount) throw new IOException("Store " + fileName + " references missing page " + child);
+            if (n.level == 1) used.set((int) child);
+            else mark(child, used);
+        }
+    }
+
+    private void writeHeader(long seq) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(PAGE_SIZE);
+        buf.putInt(MAGIC).putInt(VERSION).putLong(seq).putLong(pageCount).putInt(roots.size());
+        for (Map.Entry<String, Long> e : roots.entrySet()) {
+            byte[] name = bytes(e.getKey());
+            buf.putShort((short) name.length).put(name).putLong(e.getValue());
+        }
+        writePage(buf, seq % HEADER_PAGES);
+    }
+
+    private void readHeader() throws IOException {
+        ByteBuffer best = null;
+        for (int slot = 0; slot < HEADER_PAGES; slot++) {
+            ByteBuffer buf;
+            try {
+                buf = readPage(slot);
+            } catch (EOFException e) {
+                continue;
+            }
+            if (!checksumMatches(buf) || buf.getInt(0) != MAGIC) continue;
+            if (buf.getInt(4) != VERSION) throw new IOException("Unsupported store version " + buf.getInt(4));
+            if (best == null || buf.getLong(8) > best.getLong(8)) best = buf;
+        }
+        if (best == null) throw new IOException(fileName + " is not a library store");
+        best.position(8);
+        sequence = best.getLong();
+        pageCount = committedPageCount = best.getLong();
+        int trees = best.getInt();
+        for (int t = 0; t < trees; t++) {
+            byte[] name = new byte[best.getShort()];
+            best.get(name);
+            roots.put(new String(name, StandardCharsets.UTF_8), best.getLong());
+        }
+        committedRoots.putAll(roots);
+    }
+
+    private void writePage(ByteBuffer buf, long page) throws IOException {
+        CRC32C crc = new CRC32C();
+        crc.update(buf.array(), 0, PAGE_BODY);
+        buf.putInt(PAGE_BODY, (int) crc.getValue());
+        buf.clear();
+        long position = page * PAGE_SIZE;
+        while (buf.hasRemaining()) position += channel.write(buf, position);
+    }
+
+    private ByteBuffer readPage(long page) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(PAGE_SIZE);
+        long position = page * PAGE_SIZE;
+        while (buf.hasRemaining()) {
+            int n = channel.read(buf, position);
+            if (n < 0) throw new EOFException("Store " + fileName + " is truncated at page " + page);
+            position += n;
+        }
+        return buf.clear();
+    }
+
+    private static boolean checksumMatches(ByteBuffer buf) {
+        CRC32C crc = new CRC32C();
+        crc.update(buf.array(), 0, PAGE_BODY);
+        return buf.getInt(PAGE_BODY) == (int) crc.getValue();
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static boolean startsWith(byte[] key, byte[] prefix) {
+        return key.length >= prefix.length && Arrays.equals(key, 0, prefix.length, prefix, 0, prefix.length);
+    }
+
+    private static int find(List<byte[]> keys, byte[] key) {
+        int lo = 0, hi = keys.size() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = Arrays.compareUnsigned(keys.get(mid), key);
+            if (c < 0) lo = mid + 1;
+            else if (c > 0) hi = mid - 1;
+            else return mid;
+        }
+        return -lo - 1;
+    }
+
+    private static int childIndex(Node node, byte[] key) {
+        int i = find(node.keys, key);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    private static final class Node {
+        static final int BASE = 3;
+
+        final long page;
+        final int level;
+        final List<byte[]> keys = new ArrayList<>();
+        final List<byte[]> values = new ArrayList<>();
+        final List<Long> children = new ArrayList<>();
+        byte[] separator;
+
+        Node(long page, int level) {
+            this.page = page;
+            this.level = level;
+        }
+
+        boolean isLeaf() {
+            return level == 0;
+        }
+
+        int bytes() {
+            int size = BASE;
+            if (isLeaf()) {
+                for (int i = 0; i < keys.size(); i++) size += 4 + keys.get(i).length + values.get(i).length;
+            } else {
+                size += 8;
+                for (byte[] key : keys) size += 10 + key.length;
+            }
+            return size;
+        }
+
+        Node copy(long newPage) {
+            Node n = new Node(newPage, level);
+            n.keys.addAll(keys);
+            n.values.addAll(values);
+            n.children.addAll(children);
+            return n;
+        }
+
+        void encode(ByteBuffer buf) {
+            buf.put((byte) level).putShort((short) keys.size());
+            if (isLeaf()) {
+                for (int i = 0; i < keys.size(); i++) {
+                    buf.putShort((short) keys.get(i).length).put(keys.get(i));
+                    buf.putShort((short) values.get(i).length).put(values.get(i));
+                }
+            } else {
+                buf.putLong(children.get(0));
+                for (int i = 0; i < keys.size(); i++) {
+                    buf.putShort((short) keys.get(i).length).put(keys.get(i)).putLong(children.get(i + 1));
+                }
+            }
+        }
+
+        static Node decode(long page, ByteBuffer buf) {
+            Node n = new Node(page, buf.get());
+            int count = buf.getShort() & 0xFFFF;
+            if (!n.isLeaf()) n.children.add(buf.getLong());
+            for (int i = 0; i < count; i++) {
+                byte[] key = new byte[buf.getShort() & 0xFFFF];
+                buf.get(key);
+                n.keys.add(key);
+                if (n.isLeaf()) {
+                    byte[] value = new byte[buf.getShort() & 0xFFFF];
+                    buf.get(value);
+                    n.values.add(value);
+                } else {
+                    n.children.add(buf.getLong());
+                }
+            }
+            return n;
+        }
+    }
+}
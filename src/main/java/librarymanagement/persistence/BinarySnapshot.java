@@ -0,0 +1,299 @@
+package librarymanagement.persistence;
+
+import librarymanagement.domain.*;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Versioned binary image of the whole library: media, users with their fine balance, and loans.
+ * Layout: magic {@code LIBS}, varint version, then varint-counted sections of media and users
+ * (each user followed by its loans), closed by a CRC32C of everything before it.
+ * Strings are varint-length-prefixed UTF-8, so no title or email can break the framing; counts and
+ * copies are varints, dates are zigzag-varint epoch days and money is zigzag-varint cents.
+ * Writes go through {@link SnapshotWriter}, so a failed save leaves the previous snapshot in place.
+ */
+public final class BinarySnapshot {
+    public static final int VERSION = 1;
+    private static final byte[] MAGIC = {'L', 'I', 'B', 'S'};
+    private static final int BOOK = 0;
+    private static final int CD = 1;
+    private static final int BUFFER = 1 << 20;
+
+    private BinarySnapshot() {}
+
+    public static final class Contents {
+        private final List<Media> media;
+        private final List<LibraryUser> users;
+
+        Contents(List<Media> media, List<LibraryUser> users) {
+            this.media = media;
+            this.users = users;
+        }
+
+        public List<Media> getMedia() { return media; }
+        public List<LibraryUser> getUsers() { return users; }
+    }
+
+    public static boolean write(String fileName, Collection<? extends Media> media, Collection<LibraryUser> users) {
+        return SnapshotWriter.write(fileName, ch -> {
+            Encoder out = new Encoder(ch);
+            out.bytes(MAGIC);
+            out.varint(VERSION);
+
+            out.varint(media.size());
+            for (Media m : media) {
+                out.varint(m instanceof CD ? CD : BOOK);
+                out.string(m.getId());
+                out.string(m.getTitle());
+                out.string(m.getAuthor());
+                out.varint(m.getTotalCopies());
+                out.varint(m.getAvailableCopies());
+            }
+
+            out.varint(users.size());
+            for (LibraryUser u : users) {
+                out.string(u.getName());
+                out.string(u.getPassword());
+                out.string(u.getEmail());
+                out.money(u.getFineBalanceCents());
+                out.varint(u.isBlocked() ? 1 : 0);
+                List<BorrowedMedia> loans = u.getBorrowedMediaInternal();
+                out.varint(loans.size());
+                for (BorrowedMedia bm : loans) {
+                    out.string(bm.getMedia().getId());
+                    out.date(bm.getBorrowDate());
+                    out.date(bm.getDueDate());
+                    out.varint((bm.isReturned() ? 1 : 0) | (bm.isFineAdded() ? 2 : 0));
+                    out.money(bm.getFineCents());
+                }
+            }
+            out.finish();
+        });
+    }
+
+    public static Contents read(String fileName) throws IOException {
+        try (FileChannel ch = FileChannel.open(Path.of(fileName), StandardOpenOption.READ)) {
+            if (ch.size() < MAGIC.length + 5) throw new IOException(fileName + " is not a library snapshot");
+            Decoder in = new Decoder(ch, ch.size() - 4);
+            for (byte b : MAGIC) {
+                if (in.read() != b) throw new IOException(fileName + " is not a library snapshot");
+            }
+            int version = in.varint();
+            if (version != VERSION) throw new IOException("Unsupported snapshot version " + version);
+            verifyChecksum(ch, fileName);
+
+            int mediaCount = in.varint();
+            List<Media> media = new ArrayList<>(mediaCount);
+            Map<String, Media> byId = new HashMap<>(mediaCount * 2);
+            for (int i = 0; i < mediaCount; i++) {
+                int type = in.varint();
+                String id = in.string(), title = in.string(), author = in.string();
+                int total = in.varint();
+                Media m = type == CD ? new CD(title, author, id, total) : new Book(title, author, id, total);
+                m.setAvailableCopies(in.varint());
+                media.add(m);
+                byId.put(id.toLowerCase(Locale.ROOT), m);
+            }
+
+            int userCount = in.varint();
+            List<LibraryUser> users = new ArrayList<>(userCount);
+            for (int i = 0; i < userCount; i++) {
+                LibraryUser u = new LibraryUser(in.string(), in.string(), in.string());
+                u.setFineBalanceCents(in.money());
+                boolean blocked = in.varint() == 1;
+                int loanCount = in.varint();
+                for (int l = 0; l < loanCount; l++) {
+                    Media m = byId.get(in.string().toLowerCase(Locale.ROOT));
+                    LocalDate borrowDate = in.date(), dueDate = in.date();
+                    int flags = in.varint();
+                    long fine = in.money();
+                    if (m == null) continue;
+                    BorrowedMedia bm = new BorrowedMedia(m, borrowDate, dueDate);
+                    bm.setReturned((flags & 1) != 0);
+                    bm.setFineAdded((flags & 2) != 0);
+                    bm.setFineCents(fine);
+                    u.getBorrowedMediaInternal().add(bm);
+                }
+                u.setBlocked(blocked);
+                users.add(u);
+            }
+            if (!in.atEnd()) throw new IOException("Snapshot " + fileName + " has trailing data");
+            return new Contents(media, users);
+        }
+    }
+
+    private static void verifyChecksum(FileChannel ch, String fileName) throws IOException {
+        long body = ch.size() - 4;
+        CRC32C crc = new CRC32C();
+        ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER);
+        long pos = 0;
+        while (pos < body) {
+            buf.clear().limit((int) Math.min(BUFFER, body - pos));
+            int n = ch.read(buf, pos);
+            if (n < 0) throw new EOFException("Snapshot " + fileName + " is truncated");
+            buf.flip();
+            crc.update(buf);
+            pos += n;
+        }
+        ByteBuffer trailer = ByteBuffer.allocate(4);
+        while (trailer.hasRemaining() && ch.read(trailer, body + trailer.position()) > 0) {}
+        if ((trailer.getInt(0) & 0xFFFFFFFFL) != crc.getValue()) throw new IOException("Snapshot " + fileName + " is corrupt");
+    }
+
+    private static final class Encoder {
+        private final FileChannel ch;
+        private final CRC32C crc = new CRC32C();
+        private final byte[] buf = new byte[BUFFER];
+        private int pos;
+
+        Encoder(FileChannel ch) {
+            this.ch = ch;
+        }
+
+        private void ensure(int n) throws IOException {
+            if (pos + n > buf.length) flush();
+        }
+
+        private void flush() throws IOException {
+            crc.update(buf, 0, pos);
+            ByteBuffer bb = ByteBuffer.wrap(buf, 0, pos);
+            while (bb.hasRemaining()) ch.write(bb);
+            pos = 0;
+        }
+
+        void bytes(byte[] b) throws IOException {
+            if (b.length > buf.length) {
+                flush();
+                crc.update(b);
+                ByteBuffer bb = ByteBuffer.wrap(b);
+                while (bb.hasRemaining()) ch.write(bb);
+                return;
+            }
+            ensure(b.length);
+            System.arraycopy(b, 0, buf, pos, b.length);
+            pos += b.length;
+        }
+
+        void varint(long v) throws IOException {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[pos++] = (byte) v;
+        }
+
+        void string(String s) throws IOException {
+            byte[] b = (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+            varint(b.length);
+            bytes(b);
+        }
+
+        void date(LocalDate d) throws IOException {
+            long day = d.toEpochDay();
+            varint((day << 1) ^ (day >> 63));
+        }
+
+        void money(long cents) throws IOException {
+            varint((cents << 1) ^ (cents >> 63));
+        }
+
+        void finish() throws IOException {
+            flush();
+            ByteBuffer trailer = ByteBuffer.allocate(4).putInt((int) crc.getValue()).flip();
+            while (trailer.hasRemaining()) ch.write(trailer);
+        }
+    }
+
+    private static final class Decoder {
+        private final FileChannel ch;
+        private final long end;
+        private final byte[] buf = new byte[BUFFER];
+        private long filePos;
+        private int pos;
+        private int limit;
+
+        Decoder(FileChannel ch, long end) {
+            this.ch = ch;
+            this.end = end;
+        }
+
+        private boolean fill() throws IOException {
+            if (pos < limit) System.arraycopy(buf, pos, buf, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+            int want = (int) Math.min(buf.length - limit, end - filePos);
+            if (want <= 0) return false;
+            ByteBuffer bb = ByteBuffer.wrap(buf, limit, want);
+            int n = ch.read(bb, filePos);
+            if (n <= 0) return false;
+            filePos += n;
+            limit += n;
+            return true;
+        }
+
+        boolean atEnd() throws IOException {
+            return pos >= limit && !fill();
+        }
+
+        int read() throws IOException {
+            if (pos >= limit && !fill()) throw new EOFException("Snapshot is truncated");
+            return buf[pos++] & 0xFF;
+        }
+
+        long varlong() throws IOException {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return v;
+            }
+            throw new IOException("Malformed varint in snapshot");
+        }
+
+        int varint() throws IOException {
+            long v = varlong();
+            if (v < 0 || v > Integer.MAX_VALUE) throw new IOException("Malformed varint in snapshot");
+            return (int) v;
+        }
+
+        String string() throws IOException {
+            int len = varint();
+            if (len <= buf.length) {
+                while (limit - pos < len) {
+                    if (!fill()) throw new EOFException("Snapshot is truncated");
+                }
+                String s = new String(buf, pos, len, StandardCharsets.UTF_8);
+                pos += len;
+                return s;
+            }
+            byte[] b = new byte[len];
+            for (int i = 0; i < len; i++) b[i] = (byte) read();
+            return new String(b, StandardCharsets.UTF_8);
+        }
+
+        LocalDate date() throws IOException {
+            long v = varlong();
+            return LocalDate.ofEpochDay((v >>> 1) ^ -(v & 1));
+        }
+
+        long money() throws IOException {
+            long v = varlong();
+            return (v >>> 1) ^ -(v & 1);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package librarymanagement.persistence;
+
+import librarymanagement.domain.LibraryUser;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Storage of the outstanding fine balance per user name, in cents.
+ */
+public interface FineRepository {
+    Map<String, Long> loadAll();
+
+    boolean saveAll(Collection<LibraryUser> users);
+
+    /**
+     * Upserts the balances of the changed users and deletes the removed names. Files without record
+     * access are rewritten from {@code users} instead.
+     */
+    default boolean saveChanges(Collection<LibraryUser> users, Collection<LibraryUser> changed, Collection<String> removed) {
+        return saveAll(users);
+    }
+}
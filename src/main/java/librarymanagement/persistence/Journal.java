@@ -0,0 +1,226 @@
+package librarymanagement.persistence;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only operation log. Each entry is one {@code |}-separated line, with backslash, {@code |}
+ * and line breaks inside a field escaped by a backslash; {@link #reset()} drops the entries once
+ * they have been compacted into the snapshot files.
+ * With group commit enabled, appends are queued and written by a background flusher in one write
+ * (and one fsync when {@code sync} is set) once {@code maxBatchSize} entries are waiting or the
+ * oldest has waited {@code maxDelayMillis}. The future returned by {@link #append} completes when
+ * that entry is durable.
+ */
+public class Journal {
+    private final Path path;
+    private final boolean sync;
+    private final Object writeLock = new Object();
+    private List<Entry> pending = new ArrayList<>();
+    private long firstPendingAt;
+    private long maxDelayNanos;
+    private int maxBatchSize = 1;
+    private int size;
+    private Thread flusher;
+    private boolean closed;
+
+    public Journal(String fileName, boolean sync) {
+        this.path = Path.of(fileName);
+        this.sync = sync;
+        repairTornTail();
+        this.size = readAll().size();
+    }
+
+    public synchronized int size() { return size; }
+
+    public synchronized void setGroupCommit(long maxDelayMillis, int maxBatchSize) {
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxDelayMillis));
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        notifyAll();
+    }
+
+    public CompletableFuture<Void> append(Object... fields) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) sb.append('|');
+            escape(sb, String.valueOf(fields[i]));
+        }
+        sb.append('\n');
+        Entry entry = new Entry(sb.toString());
+        boolean flushNow;
+        synchronized (this) {
+            if (pending.isEmpty()) firstPendingAt = System.nanoTime();
+            pending.add(entry);
+            size++;
+            flushNow = maxDelayNanos == 0 || pending.size() >= maxBatchSize || closed;
+            if (!flushNow) {
+                startFlusher();
+                notifyAll();
+            }
+        }
+        if (flushNow) flush();
+        return entry.durable;
+    }
+
+    public void flush() {
+        synchronized (writeLock) {
+            List<Entry> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) return;
+                batch = pending;
+                pending = new ArrayList<>();
+            }
+            write(batch);
+        }
+    }
+
+    private void write(List<Entry> batch) {
+        StringBuilder sb = new StringBuilder();
+        for (Entry e : batch) sb.append(e.line);
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            ByteBuffer buf = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+            while (buf.hasRemaining()) ch.write(buf);
+            if (sync) ch.force(false);
+            for (Entry e : batch) e.durable.complete(null);
+        } catch (IOException e) {
+            System.out.println("Error writing journal: " + e.getMessage());
+            for (Entry entry : batch) entry.durable.completeExceptionally(e);
+        }
+    }
+
+    private void startFlusher() {
+        if (flusher != null) return;
+        flusher = new Thread(this::runFlusher, "journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    private void runFlusher() {
+        while (true) {
+            synchronized (this) {
+                try {
+                    while (pending.isEmpty() && !closed) wait();
+                    long remaining;
+                    while (!closed && !pending.isEmpty() && pending.size() < maxBatchSize
+                            && (remaining = firstPendingAt + maxDelayNanos - System.nanoTime()) > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    closed = true;
+                }
+            }
+            flush();
+            synchronized (this) {
+                if (closed) {
+                    flusher = null;
+                    return;
+                }
+            }
+        }
+    }
+
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        flush();
+    }
+
+    public List<String[]> readAll() {
+        List<String[]> entries = new ArrayList<>();
+        if (!Files.exists(path)) return entries;
+        try (BufferedReader br = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (!line.isEmpty()) entries.add(split(line));
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading journal: " + e.getMessage());
+        }
+        return entries;
+    }
+
+    private static void escape(StringBuilder sb, String field) {
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            switch (c) {
+                case '\\', '|' -> sb.append('\\').append(c);
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                default -> sb.append(c);
+            }
+        }
+    }
+
+    private static String[] split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '|') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\\' && i + 1 < line.length()) {
+                char next = line.charAt(++i);
+                field.append(next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    private void repairTornTail() {
+        if (!Files.exists(path)) return;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long end = ch.size();
+            ByteBuffer one = ByteBuffer.allocate(1);
+            while (end > 0) {
+                one.clear();
+                ch.read(one, end - 1);
+                if (one.get(0) == '\n') break;
+                end--;
+            }
+            if (end < ch.size()) ch.truncate(end);
+        } catch (IOException e) {
+            System.out.println("Error reading journal: " + e.getMessage());
+        }
+    }
+
+    public void reset() {
+        synchronized (writeLock) {
+            flush();
+            try {
+                Files.deleteIfExists(path);
+                synchronized (this) {
+                    size = pending.size();
+                }
+            } catch (IOException e) {
+                System.out.println("Error resetting journal: " + e.getMessage());
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final String line;
+        private final CompletableFuture<Void> durable = new CompletableFuture<>();
+
+        Entry(String line) {
+            this.line = line;
+        }
+    }
+}
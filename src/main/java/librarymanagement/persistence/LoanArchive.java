@@ -0,0 +1,226 @@
+package librarymanagement.persistence;
+
+import librarymanagement.domain.BorrowedMedia;
+import librarymanagement.domain.LibraryUser;
+import librarymanagement.domain.Media;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Append-only archive of returned loans, one {@code loans-YYYY-MM.txt} file per borrow month in the
+ * {@link TextLoanRepository} line format. Loans are first staged in one atomically written batch that
+ * records how long each month file was, then appended; committing a batch again truncates back to
+ * those lengths first, so a crash mid-append is finished by retrying it. Only the months each user
+ * appears in are kept in memory, so a history view reads those files and no others.
+ */
+public class LoanArchive {
+    private static final String PREFIX = "loans-";
+    private static final String SUFFIX = ".txt";
+    private static final String STAGED = "staged.txt";
+
+    private final Path directory;
+    private Map<String, Set<YearMonth>> monthsByUser;
+
+    public LoanArchive(String directory) {
+        this.directory = Path.of(directory);
+    }
+
+    public String getDirectory() {
+        return directory.toString();
+    }
+
+    private Path file(YearMonth month) {
+        return directory.resolve(PREFIX + month + SUFFIX);
+    }
+
+    public boolean append(Collection<LoanRepository.Loan> loans) {
+        return stage(loans) && commitStaged();
+    }
+
+    /**
+     * Writes the batch next to the month files without touching them. The first line holds each
+     * month's current length, every other line is a loan prefixed with its month.
+     */
+    public boolean stage(Collection<LoanRepository.Loan> loans) {
+        Map<YearMonth, List<String>> byMonth = new TreeMap<>();
+        for (LoanRepository.Loan loan : loans) {
+            byMonth.computeIfAbsent(YearMonth.from(loan.getBorrowed().getBorrowDate()), m -> new ArrayList<>())
+                    .add(TextLoanRepository.line(loan.getUser(), loan.getBorrowed()));
+        }
+        List<String> lines = new ArrayList<>();
+        StringBuilder lengths = new StringBuilder();
+        try {
+            Files.createDirectories(directory);
+            for (Map.Entry<YearMonth, List<String>> e : byMonth.entrySet()) {
+                Path month = file(e.getKey());
+                if (lengths.length() > 0) lengths.append(',');
+                lengths.append(e.getKey()).append('=').append(Files.exists(month) ? Files.size(month) : 0);
+                for (String line : e.getValue()) lines.add(e.getKey() + "|" + line);
+            }
+        } catch (IOException e) {
+            System.out.println("Error archiving loans to " + directory + ": " + e.getMessage());
+            return false;
+        }
+        lines.add(0, lengths.toString());
+        return SnapshotWriter.write(directory.resolve(STAGED).toString(), lines, Function.identity());
+    }
+
+    public boolean hasStaged() {
+        return Files.exists(directory.resolve(STAGED));
+    }
+
+    public void discardStaged() {
+        try {
+            Files.deleteIfExists(directory.resolve(STAGED));
+        } catch (IOException e) {
+            System.out.println("Error discarding staged loans in " + directory + ": " + e.getMessage());
+        }
+    }
+
+    public boolean commitStaged() {
+        Path staged = directory.resolve(STAGED);
+        try {
+            List<String> lines = Files.readAllLines(staged, StandardCharsets.UTF_8);
+            if (lines.isEmpty()) {
+                Files.delete(staged);
+                return true;
+            }
+            Map<YearMonth, Long> lengths = new TreeMap<>();
+            for (String entry : lines.get(0).split(",")) {
+                int eq = entry.indexOf('=');
+                if (eq > 0) lengths.put(YearMonth.parse(entry.substring(0, eq)), Long.parseLong(entry.substring(eq + 1)));
+            }
+            Map<YearMonth, StringBuilder> byMonth = new TreeMap<>();
+            Map<String, Set<YearMonth>> touched = new HashMap<>();
+            for (String line : lines.subList(1, lines.size())) {
+                int bar = line.indexOf('|');
+                if (bar < 0) continue;
+                YearMonth month = YearMonth.parse(line.substring(0, bar));
+                String loan = line.substring(bar + 1);
+                byMonth.computeIfAbsent(month, m -> new StringBuilder()).append(loan).append(System.lineSeparator());
+                int user = loan.indexOf('|');
+                touched.computeIfAbsent(key(user < 0 ? loan : loan.substring(0, user)), u -> new TreeSet<>()).add(month);
+            }
+            for (Map.Entry<YearMonth, StringBuilder> e : byMonth.entrySet()) {
+                write(e.getKey(), lengths.getOrDefault(e.getKey(), 0L), e.getValue());
+            }
+            synchronized (this) {
+                if (monthsByUser != null) {
+                    touched.forEach((user, months) -> monthsByUser.computeIfAbsent(user, u -> new TreeSet<>()).addAll(months));
+                }
+            }
+            Files.delete(staged);
+            return true;
+        } catch (NoSuchFileException e) {
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Error archiving loans to " + directory + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void write(YearMonth month, long length, StringBuilder lines) throws IOException {
+        try (FileChannel ch = FileChannel.open(file(month), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long end = Math.min(length, ch.size());
+            ch.truncate(end);
+            if (end > 0 && !endsWithNewline(ch, end)) lines.insert(0, System.lineSeparator());
+            ByteBuffer buf = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buf.hasRemaining()) end += ch.write(buf, end);
+            ch.force(true);
+        }
+    }
+
+    private static boolean endsWithNewline(FileChannel ch, long size) throws IOException {
+        ByteBuffer last = ByteBuffer.allocate(1);
+        return ch.read(last, size - 1) == 1 && last.get(0) == '\n';
+    }
+
+    private static String key(String userName) {
+        return userName.toLowerCase(Locale.ROOT);
+    }
+
+    public List<YearMonth> months() {
+        List<YearMonth> months = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path p : files) {
+                String name = p.getFileName().toString();
+                try {
+                    months.add(YearMonth.parse(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+                } catch (DateTimeParseException ignored) {}
+            }
+        } catch (NoSuchFileException e) {
+            return months;
+        } catch (IOException e) {
+            System.out.println("Error listing " + directory + ": " + e.getMessage());
+        }
+        Collections.sort(months);
+        return months;
+    }
+
+    public List<LoanRepository.Loan> loadMonth(YearMonth month, Function<String, LibraryUser> users,
+                                               Function<String, Media> media) {
+        List<LoanRepository.Loan> loans = new ArrayList<>();
+        read(month, r -> true, r -> {
+            LibraryUser user = users.apply(r.string(0));
+            BorrowedMedia bm = TextLoanRepository.parseLoan(r, media.apply(r.string(1)));
+            if (user != null && bm != null) loans.add(new LoanRepository.Loan(user, bm));
+        });
+        return loans;
+    }
+
+    public List<BorrowedMedia> findByUser(String userName, Function<String, Media> media) {
+        List<BorrowedMedia> loans = new ArrayList<>();
+        if (userName == null) return loans;
+        for (YearMonth month : monthsOf(userName)) {
+            read(month, r -> r.string(0).equalsIgnoreCase(userName), r -> {
+                BorrowedMedia bm = TextLoanRepository.parseLoan(r, media.apply(r.string(1)));
+                if (bm != null) loans.add(bm);
+            });
+        }
+        return loans;
+    }
+
+    /**
+     * The months holding any of the user's loans. The first call reads every month once to build the
+     * index, later commits keep it current.
+     */
+    public synchronized List<YearMonth> monthsOf(String userName) {
+        if (monthsByUser == null) {
+            Map<String, Set<YearMonth>> index = new HashMap<>();
+            for (YearMonth month : months()) {
+                read(month, r -> true, r -> index.computeIfAbsent(key(r.string(0)), u -> new TreeSet<>()).add(month));
+            }
+            monthsByUser = index;
+        }
+        return new ArrayList<>(monthsByUser.getOrDefault(key(userName), Collections.emptySet()));
+    }
+
+    private void read(YearMonth month, Predicate<MappedRecordReader.Record> filter, MappedRecordReader.Handler handler) {
+        MappedRecordReader.read(file(month).toString(), r -> {
+            if (r.size() >= 5 && filter.test(r)) handler.record(r);
+        });
+    }
+}
@@ -0,0 +1,51 @@
+package librarymanagement.persistence;
+
+import librarymanagement.domain.BorrowedMedia;
+import librarymanagement.domain.LibraryUser;
+import librarymanagement.domain.Media;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * Storage of every user's loans, in borrow order. Users and media are resolved through the given
+ * lookups and loans whose user or media no longer exists are dropped.
+ */
+public interface LoanRepository {
+    List<Loan> loadAll(Function<String, LibraryUser> users, Function<String, Media> media, ForkJoinPool pool);
+
+    boolean saveAll(Collection<LibraryUser> users);
+
+    /**
+     * Rewrites the loans of the changed users and deletes those of the removed names. Files without
+     * record access are rewritten from {@code users} instead.
+     */
+    default boolean saveChanges(Collection<LibraryUser> users, Collection<LibraryUser> changed, Collection<String> removed) {
+        return saveAll(users);
+    }
+
+    List<BorrowedMedia> findByUser(String userName, Function<String, Media> media);
+
+    /**
+     * Operation log that belongs with these loans, since its entries address them by position;
+     * {@code null} when the loans are not kept in a file.
+     */
+    default String getJournalFile() {
+        return null;
+    }
+
+    final class Loan {
+        private final LibraryUser user;
+        private final BorrowedMedia borrowed;
+
+        public Loan(LibraryUser user, BorrowedMedia borrowed) {
+            this.user = user;
+            this.borrowed = borrowed;
+        }
+
+        public LibraryUser getUser() { return user; }
+        public BorrowedMedia getBorrowed() { return borrowed; }
+    }
+}
@@ -0,0 +1,302 @@
+package librarymanagement.persistence;
+
+import librarymanagement.domain.Money;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+
+/**
+ * Reads {@code |}-separated data files through memory-mapped windows and hands each line to a
+ * {@link Handler} as a {@link Record} of byte offsets. Fields are only decoded when asked for:
+ * numbers, booleans and ISO dates are parsed straight from the mapped bytes, a column whose bytes
+ * repeat the previous line returns the same {@code String}, and dates come from a small cache.
+ * Lines the handler rejects with a parse error are skipped and counted.
+ * {@link #parse} splits large files into line-aligned chunks and parses them on a ForkJoinPool,
+ * returning the parsed values in file order and adding every chunk's counts to the given result.
+ */
+public final class MappedRecordReader {
+    public static final int DEFAULT_WINDOW = 256 << 20;
+    public static final long MIN_CHUNK = 4 << 20;
+    private static final int MAX_FIELDS = 16;
+
+    public interface Handler {
+        void record(Record record);
+    }
+
+    public interface Parser<T> {
+        T parse(Record record);
+    }
+
+    private MappedRecordReader() {}
+
+    public static Result read(String fileName, Handler handler) {
+        return read(fileName, handler, DEFAULT_WINDOW);
+    }
+
+    public static Result read(String fileName, Handler handler, int windowBytes) {
+        Result result = new Result();
+        if (fileName == null || fileName.isEmpty()) return result;
+        Path path = Path.of(fileName);
+        if (!Files.isRegularFile(path)) return result;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            read(ch, 0, ch.size(), handler, windowBytes, result);
+        } catch (IOException e) {
+            System.out.println("Error loading " + fileName + ": " + e.getMessage());
+        }
+        return result;
+    }
+
+    public static <T> List<T> parse(String fileName, Supplier<? extends Parser<T>> parsers, ForkJoinPool pool) {
+        return parse(fileName, parsers, pool, new Result());
+    }
+
+    public static <T> List<T> parse(String fileName, Supplier<? extends Parser<T>> parsers, ForkJoinPool pool,
+                                    Result result) {
+        List<T> values = new ArrayList<>();
+        if (fileName == null || fileName.isEmpty()) return values;
+        Path path = Path.of(fileName);
+        if (!Files.isRegularFile(path)) return values;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] bounds = chunks(ch, pool.getParallelism() * 4);
+            List<ForkJoinTask<List<T>>> tasks = new ArrayList<>();
+            Result[] counts = new Result[bounds.length - 1];
+            for (int c = 0; c + 1 < bounds.length; c++) {
+                long from = bounds[c], to = bounds[c + 1];
+                Result chunk = counts[c] = new Result();
+                tasks.add(pool.submit(() -> {
+                    Parser<T> parser = parsers.get();
+                    List<T> part = new ArrayList<>();
+                    try {
+                        read(ch, from, to, r -> {
+                            T value = parser.parse(r);
+                            if (value != null) part.add(value);
+                        }, DEFAULT_WINDOW, chunk);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return part;
+                }));
+            }
+            for (ForkJoinTask<List<T>> task : tasks) values.addAll(task.join());
+            for (Result chunk : counts) result.add(chunk);
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("Error loading " + fileName + ": " + e.getMessage());
+        }
+        return values;
+    }
+
+    static long[] chunks(FileChannel ch, int maxChunks) throws IOException {
+        long size = ch.size();
+        int n = (int) Math.max(1, Math.min(maxChunks, size / MIN_CHUNK));
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        for (int c = 1; c < n; c++) {
+            long pos = Math.max(size * c / n, bounds.get(bounds.size() - 1));
+            boolean aligned = false;
+            while (!aligned && pos < size) {
+                probe.clear();
+                int read = ch.read(probe, pos);
+                if (read <= 0) break;
+                for (int i = 0; i < read; i++) {
+                    if (probe.get(i) == '\n') {
+                        pos += i + 1;
+                        aligned = true;
+                        break;
+                    }
+                }
+                if (!aligned) pos += read;
+            }
+            if (pos < size && pos > bounds.get(bounds.size() - 1)) bounds.add(pos);
+        }
+        bounds.add(size);
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) result[i] = bounds.get(i);
+        return result;
+    }
+
+    static void read(FileChannel ch, long from, long to, Handler handler, int windowBytes, Result result)
+            throws IOException {
+        Record record = new Record();
+        long position = from;
+        while (position < to) {
+            long length = Math.min(windowBytes, to - position);
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, position, length);
+            boolean last = position + length >= to;
+            int lineStart = 0;
+            int limit = (int) length;
+            for (int i = 0; i < limit; i++) {
+                if (buf.get(i) == '\n') {
+                    deliver(record, buf, lineStart, i, handler, result);
+                    lineStart = i + 1;
+                }
+            }
+            if (last) {
+                if (lineStart < limit) deliver(record, buf, lineStart, limit, handler, result);
+                break;
+            }
+            if (lineStart == 0) throw new IOException("Line longer than " + windowBytes + " bytes at offset " + position);
+            position += lineStart;
+        }
+    }
+
+    private static void deliver(Record r, MappedByteBuffer buf, int start, int end, Handler handler, Result result) {
+        while (start < end && (buf.get(start) & 0xFF) <= ' ') start++;
+        while (end > start && (buf.get(end - 1) & 0xFF) <= ' ') end--;
+        if (start == end) return;
+        r.buf = buf;
+        r.count = 0;
+        int fieldStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || buf.get(i) == '|') {
+                if (r.count == MAX_FIELDS) break;
+                r.starts[r.count] = fieldStart;
+                r.ends[r.count] = i;
+                r.count++;
+                fieldStart = i + 1;
+            }
+        }
+        while (r.count > 0 && r.starts[r.count - 1] == r.ends[r.count - 1]) r.count--;
+        try {
+            handler.record(r);
+            result.records++;
+        } catch (IllegalArgumentException | DateTimeException e) {
+            result.skipped++;
+        }
+    }
+
+    public static final class Result {
+        private long records;
+        private long skipped;
+
+        public long getRecords() { return records; }
+        public long getSkipped() { return skipped; }
+
+        void add(Result other) {
+            records += other.records;
+            skipped += other.skipped;
+        }
+    }
+
+    public static final class Record {
+        private static final int DATE_CACHE = 1024;
+
+        private MappedByteBuffer buf;
+        private int count;
+        private final int[] starts = new int[MAX_FIELDS];
+        private final int[] ends = new int[MAX_FIELDS];
+        private final byte[][] lastBytes = new byte[MAX_FIELDS][];
+        private final String[] lastStrings = new String[MAX_FIELDS];
+        private final int[] dateKeys = new int[DATE_CACHE];
+        private final LocalDate[] dates = new LocalDate[DATE_CACHE];
+
+        public int size() { return count; }
+
+        public String string(int i) {
+            int start = starts[i], len = ends[i] - start;
+            byte[] last = lastBytes[i];
+            if (last != null && last.length == len && sameBytes(start, last)) return lastStrings[i];
+            byte[] bytes = new byte[len];
+            buf.get(start, bytes);
+            lastBytes[i] = bytes;
+            lastStrings[i] = new String(bytes, StandardCharsets.UTF_8);
+            return lastStrings[i];
+        }
+
+        private boolean sameBytes(int start, byte[] bytes) {
+            for (int k = 0; k < bytes.length; k++) if (buf.get(start + k) != bytes[k]) return false;
+            return true;
+        }
+
+        public int intAt(int i) {
+            long v = longAt(i);
+            if (v != (int) v) throw new NumberFormatException("Out of range: " + string(i));
+            return (int) v;
+        }
+
+        public long longAt(int i) {
+            int p = starts[i], end = ends[i];
+            boolean negative = p < end && buf.get(p) == '-';
+            if (negative || (p < end && buf.get(p) == '+')) p++;
+            if (p == end || end - p > 18) throw new NumberFormatException("Not a number: " + string(i));
+            long v = 0;
+            for (; p < end; p++) {
+                int d = buf.get(p) - '0';
+                if (d < 0 || d > 9) throw new NumberFormatException("Not a number: " + string(i));
+                v = v * 10 + d;
+            }
+            return negative ? -v : v;
+        }
+
+        public boolean booleanAt(int i) {
+            if (ends[i] - starts[i] != 4) return false;
+            int p = starts[i];
+            return (buf.get(p) | 0x20) == 't' && (buf.get(p + 1) | 0x20) == 'r'
+                    && (buf.get(p + 2) | 0x20) == 'u' && (buf.get(p + 3) | 0x20) == 'e';
+        }
+
+        public long centsAt(int i) {
+            int p = starts[i], end = ends[i];
+            boolean negative = p < end && buf.get(p) == '-';
+            if (negative) p++;
+            long units = 0;
+            int digits = 0, fraction = -1, cents = 0;
+            for (; p < end; p++) {
+                byte b = buf.get(p);
+                if (b == '.' && fraction < 0) {
+                    fraction = 0;
+                } else if (b >= '0' && b <= '9' && (fraction < 0 ? digits < 16 : fraction < 2)) {
+                    if (fraction < 0) units = units * 10 + (b - '0');
+                    else cents = cents * 10 + (b - '0');
+                    if (fraction >= 0) fraction++;
+                    digits++;
+                } else {
+                    return Money.parse(string(i));
+                }
+            }
+            if (digits == 0) return Money.parse(string(i));
+            long v = units * Money.CENTS + (fraction == 1 ? cents * 10 : cents);
+            return negative ? -v : v;
+        }
+
+        public LocalDate dateAt(int i) {
+            int p = starts[i];
+            if (ends[i] - p != 10 || buf.get(p + 4) != '-' || buf.get(p + 7) != '-') {
+                throw new DateTimeException("Not an ISO date: " + string(i));
+            }
+            int year = digits(p, 4, i), month = digits(p + 5, 2, i), day = digits(p + 8, 2, i);
+            int key = (year << 9) | (month << 5) | day;
+            int slot = (key * 0x9E3779B1 >>> 22) & (DATE_CACHE - 1);
+            LocalDate cached = dates[slot];
+            if (cached != null && dateKeys[slot] == key) return cached;
+            LocalDate date = LocalDate.of(year, month, day);
+            dates[slot] = date;
+            dateKeys[slot] = key;
+            return date;
+        }
+
+        private int digits(int p, int n, int field) {
+            int v = 0;
+            for (int k = 0; k < n; k++) {
+                int d = buf.get(p + k) - '0';
+                if (d < 0 || d > 9) throw new DateTimeException("Not an ISO date: " + string(field));
+                v = v * 10 + d;
+            }
+            return v;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package librarymanagement.persistence;
+
+import librarymanagement.domain.Media;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Storage of the media catalog. {@link #saveAll} replaces every stored record of one media type,
+ * so callers can rewrite only the types that changed.
+ */
+public interface MediaRepository {
+    List<Media> loadAll(ForkJoinPool pool);
+
+    boolean saveAll(Iterable<? extends Media> media, Class<? extends Media> type);
+
+    /**
+     * Upserts the changed records of one media type and deletes the removed ones. Files without
+     * record access are rewritten from {@code media} instead.
+     */
+    default boolean saveChanges(Iterable<? extends Media> media, Class<? extends Media> type,
+                                Collection<? extends Media> changed, Collection<? extends Media> removed) {
+        return saveAll(media, type);
+    }
+
+    Media findById(String id);
+}
@@ -0,0 +1,88 @@
+package librarymanagement.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Crash-safe replacement of a data file. Lines are encoded into large buffers and written to a temp
+ * file next to the target, which is fsynced and then atomically renamed over it, so readers only ever
+ * see the old or the new complete file. Failures are counted in {@link #getFailureCount()} instead of
+ * being swallowed.
+ */
+public final class SnapshotWriter {
+    private static final int CHUNK_CHARS = 1 << 20;
+    private static final AtomicLong failures = new AtomicLong();
+    private static volatile String lastFailure;
+
+    public interface Body {
+        void write(FileChannel channel) throws IOException;
+    }
+
+    private SnapshotWriter() {}
+
+    public static long getFailureCount() { return failures.get(); }
+    public static String getLastFailure() { return lastFailure; }
+
+    public static <T> boolean write(String fileName, Iterable<T> records, Function<? super T, String> format) {
+        return write(fileName, ch -> {
+            StringBuilder sb = new StringBuilder(CHUNK_CHARS + 256);
+            for (T record : records) {
+                String line = format.apply(record);
+                if (line == null) continue;
+                sb.append(line).append(System.lineSeparator());
+                if (sb.length() >= CHUNK_CHARS) drain(ch, sb);
+            }
+            drain(ch, sb);
+        });
+    }
+
+    public static boolean write(String fileName, Body body) {
+        Path target = Path.of(fileName).toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            try (FileChannel ch = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                body.write(ch);
+                ch.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            syncDirectory(target.getParent());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            failures.incrementAndGet();
+            lastFailure = fileName + ": " + e;
+            System.out.println("Error writing " + fileName + ": " + e.getMessage());
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {}
+            return false;
+        }
+    }
+
+    private static void drain(FileChannel ch, StringBuilder sb) throws IOException {
+        if (sb.length() == 0) return;
+        ByteBuffer buf = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+        while (buf.hasRemaining()) ch.write(buf);
+        sb.setLength(0);
+    }
+
+    private static void syncDirectory(Path dir) {
+        if (dir == null) return;
+        try (FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+            ch.force(true);
+        } catch (IOException ignored) {}
+    }
+}
@@ -0,0 +1,68 @@
+package librarymanagement.persistence;
+
+import librarymanagement.domain.Admin;
+import librarymanagement.domain.Admin.Role;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Admins in a {@link BTreeStore} tree keyed by lower-cased email, in creation order.
+ */
+public class StoreAdminRepository implements AdminRepository {
+    private static final String ADMINS = "admins";
+
+    private final BTreeStore store;
+
+    public StoreAdminRepository(BTreeStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public List<Admin> loadAll() {
+        Map<Integer, Admin> ordered = new TreeMap<>();
+        try {
+            store.scan(ADMINS, "", (key, value) -> {
+                DataInputStream in = StoreRecords.decode(value);
+                int seq = in.readInt();
+                String name = in.readUTF(), email = in.readUTF(), password = in.readUTF();
+                ordered.put(seq, new Admin(name, email, password, Role.valueOf(in.readUTF())));
+            });
+        } catch (IOException e) {
+            System.out.println("Error loading " + store.getFileName() + ": " + e.getMessage());
+        }
+        return new ArrayList<>(ordered.values());
+    }
+
+    @Override
+    public boolean saveAll(Collection<Admin> admins) {
+        return StoreRecords.write(store, () -> {
+            store.clear(ADMINS);
+            int position = 0;
+            for (Admin a : admins) put(a, position++);
+            StoreRecords.setNextPosition(store, ADMINS, position);
+        });
+    }
+
+    @Override
+    public boolean saveChanges(Collection<Admin> admins, Collection<Admin> changed) {
+        return StoreRecords.write(store, () -> {
+            for (Admin a : changed) put(a, StoreRecords.position(store, ADMINS, StoreRecords.key(a.getEmail())));
+        });
+    }
+
+    private void put(Admin a, int position) throws IOException {
+        store.put(ADMINS, StoreRecords.key(a.getEmail()), StoreRecords.encode(out -> {
+            out.writeInt(position);
+            out.writeUTF(a.getName());
+            out.writeUTF(a.getEmail());
+            out.writeUTF(a.getPassword());
+            out.writeUTF(a.getRole().name());
+        }));
+    }
+}
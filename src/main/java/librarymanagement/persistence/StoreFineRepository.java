@@ -0,0 +1,59 @@
+package librarymanagement.persistence;
+
+import librarymanagement.domain.LibraryUser;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Fine balances in cents in a {@link BTreeStore} tree keyed by lower-cased user name.
+ */
+public class StoreFineRepository implements FineRepository {
+    private static final String FINES = "fines";
+
+    private final BTreeStore store;
+
+    public StoreFineRepository(BTreeStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public Map<String, Long> loadAll() {
+        Map<String, Long> fines = new LinkedHashMap<>();
+        try {
+            store.scan(FINES, "", (key, value) -> {
+                DataInputStream in = StoreRecords.decode(value);
+                fines.put(in.readUTF(), in.readLong());
+            });
+        } catch (IOException e) {
+            System.out.println("Error loading " + store.getFileName() + ": " + e.getMessage());
+        }
+        return fines;
+    }
+
+    @Override
+    public boolean saveAll(Collection<LibraryUser> users) {
+        return StoreRecords.write(store, () -> {
+            store.clear(FINES);
+            for (LibraryUser u : users) put(u);
+        });
+    }
+
+    @Override
+    public boolean saveChanges(Collection<LibraryUser> users, Collection<LibraryUser> changed, Collection<String> removed) {
+        return StoreRecords.write(store, () -> {
+            for (String name : removed) store.delete(FINES, StoreRecords.key(name));
+            for (LibraryUser u : changed) put(u);
+        });
+    }
+
+    private void put(LibraryUser u) throws IOException {
+        store.put(FINES, StoreRecords.key(u.getName()), StoreRecords.encode(out -> {
+            out.writeUTF(u.getName());
+            out.writeLong(u.getFineBalanceCents());
+        }));
+    }
+}
@@ -0,0 +1,138 @@
+package librarymanagement.persistence;
+
+import librarymanagement.domain.BorrowedMedia;
+import librarymanagement.domain.LibraryUser;
+import librarymanagement.domain.Media;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * Loans in a {@link BTreeStore} tree keyed by lower-cased user name and zero-padded loan index,
+ * so one user's loans are a single prefix scan. Loans stay in the heap until compaction moves the
+ * returned ones to the {@link LoanArchive}.
+ */
+public class StoreLoanRepository implements LoanRepository {
+    private static final String LOANS = "loans";
+
+    private final BTreeStore store;
+
+    public StoreLoanRepository(BTreeStore store) {
+        this.store = store;
+    }
+
+    private static String prefix(String userName) {
+        return StoreRecords.key(userName) + '\0';
+    }
+
+    @Override
+    public List<Loan> loadAll(Function<String, LibraryUser> users, Function<String, Media> media, ForkJoinPool pool) {
+        List<Loan> loans = new ArrayList<>();
+        try {
+            store.scan(LOANS, "", (key, value) -> {
+                DataInputStream in = StoreRecords.decode(value);
+                LibraryUser user = users.apply(in.readUTF());
+                BorrowedMedia bm = read(in, media);
+                if (user != null && bm != null) loans.add(new Loan(user, bm));
+            });
+        } catch (IOException e) {
+            System.out.println("Error loading " + store.getFileName() + ": " + e.getMessage());
+        }
+        return loans;
+    }
+
+    private static BorrowedMedia read(DataInputStream in, Function<String, Media> media) throws IOException {
+        Media m = media.apply(in.readUTF());
+        LocalDate borrowDate = LocalDate.ofEpochDay(in.readLong());
+        LocalDate dueDate = LocalDate.ofEpochDay(in.readLong());
+        boolean returned = in.readBoolean();
+        boolean fineAdded = in.readBoolean();
+        long fine = in.readLong();
+        if (m == null) return null;
+        BorrowedMedia bm = new BorrowedMedia(m, borrowDate, dueDate);
+        bm.setReturned(returned);
+        bm.setFineAdded(fineAdded);
+        bm.setFineCents(fine);
+        return bm;
+    }
+
+    @Override
+    public boolean saveAll(Collection<LibraryUser> users) {
+        return StoreRecords.write(store, () -> {
+            store.clear(LOANS);
+            for (LibraryUser u : users) put(u);
+        });
+    }
+
+    /**
+     * Rewrites the loans of the changed users only: positions still in use are overwritten and the
+     * ones past the user's last loan deleted.
+     */
+    @Override
+    public boolean saveChanges(Collection<LibraryUser> users, Collection<LibraryUser> changed, Collection<String> removed) {
+        return StoreRecords.write(store, () -> {
+            for (String name : removed) deleteFrom(name, 0);
+            for (LibraryUser u : changed) {
+                put(u);
+                deleteFrom(u.getName(), u.getBorrowedMediaInternal().size());
+            }
+        });
+    }
+
+    private static String key(String userName, int index) {
+        return prefix(userName) + String.format("%010d", index);
+    }
+
+    private void put(LibraryUser u) throws IOException {
+        List<BorrowedMedia> loans = u.getBorrowedMediaInternal();
+        for (int i = 0; i < loans.size(); i++) {
+            BorrowedMedia bm = loans.get(i);
+            store.put(LOANS, key(u.getName(), i), StoreRecords.encode(out -> {
+                out.writeUTF(u.getName());
+                out.writeUTF(bm.getMedia().getId());
+                out.writeLong(bm.getBorrowDate().toEpochDay());
+                out.writeLong(bm.getDueDate().toEpochDay());
+                out.writeBoolean(bm.isReturned());
+                out.writeBoolean(bm.isFineAdded());
+                out.writeLong(bm.getFineCents());
+            }));
+        }
+    }
+
+    private void deleteFrom(String userName, int index) throws IOException {
+        String first = key(userName, index);
+        List<String> stale = new ArrayList<>();
+        store.scan(LOANS, prefix(userName), (key, value) -> {
+            if (key.compareTo(first) >= 0) stale.add(key);
+        });
+        for (String key : stale) store.delete(LOANS, key);
+    }
+
+    @Override
+    public String getJournalFile() {
+        return TextLoanRepository.journalFile(store.getFileName());
+    }
+
+    @Override
+    public List<BorrowedMedia> findByUser(String userName, Function<String, Media> media) {
+        List<BorrowedMedia> loans = new ArrayList<>();
+        if (userName == null) return loans;
+        try {
+            store.scan(LOANS, prefix(userName), (key, value) -> {
+                DataInputStream in = StoreRecords.decode(value);
+                in.readUTF();
+                BorrowedMedia bm = read(in, media);
+                if (bm != null) loans.add(bm);
+            });
+        } catch (IOException e) {
+            System.out.println("Error loading " + store.getFileName() + ": " + e.getMessage());
+        }
+        return loans;
+    }
+}
@@ -0,0 +1,118 @@
+package librarymanagement.persistence;
+
+import librarymanagement.domain.Book;
+import librarymanagement.domain.CD;
+import librarymanagement.domain.Media;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Books and CDs in separate trees of a {@link BTreeStore}, keyed by lower-cased id. Each record
+ * carries its catalog position so {@link #loadAll} returns the order the catalog was saved in;
+ * records added by {@link #saveChanges} go after every stored one.
+ */
+public class StoreMediaRepository implements MediaRepository {
+    private static final String BOOKS = "books";
+    private static final String CDS = "cds";
+
+    private final BTreeStore store;
+
+    public StoreMediaRepository(BTreeStore store) {
+        this.store = store;
+    }
+
+    private static String tree(Class<?> type) {
+        return CD.class.isAssignableFrom(type) ? CDS : BOOKS;
+    }
+
+    @Override
+    public List<Media> loadAll(ForkJoinPool pool) {
+        List<Media> media = new ArrayList<>();
+        try {
+            load(BOOKS, media);
+            load(CDS, media);
+        } catch (IOException e) {
+            System.out.println("Error loading " + store.getFileName() + ": " + e.getMessage());
+        }
+        return media;
+    }
+
+    private void load(String tree, List<Media> into) throws IOException {
+        Map<Integer, Media> ordered = new TreeMap<>();
+        store.scan(tree, "", (key, value) -> {
+            DataInputStream in = StoreRecords.decode(value);
+            ordered.put(in.readInt(), read(tree, in));
+        });
+        into.addAll(ordered.values());
+    }
+
+    private static Media read(String tree, DataInputStream in) throws IOException {
+        String id = in.readUTF(), title = in.readUTF(), author = in.readUTF();
+        int total = in.readInt();
+        Media media = tree.equals(CDS) ? new CD(title, author, id, total) : new Book(title, author, id, total);
+        media.setAvailableCopies(in.readInt());
+        return media;
+    }
+
+    @Override
+    public boolean saveAll(Iterable<? extends Media> media, Class<? extends Media> type) {
+        String tree = tree(type);
+        return StoreRecords.write(store, () -> {
+            store.clear(tree);
+            int position = 0;
+            for (Media m : media) {
+                if (type.isInstance(m)) put(tree, m, position++);
+            }
+            StoreRecords.setNextPosition(store, tree, position);
+        });
+    }
+
+    @Override
+    public boolean saveChanges(Iterable<? extends Media> media, Class<? extends Media> type,
+                               Collection<? extends Media> changed, Collection<? extends Media> removed) {
+        String tree = tree(type);
+        return StoreRecords.write(store, () -> {
+            for (Media m : removed) {
+                if (type.isInstance(m)) store.delete(tree, StoreRecords.key(m.getId()));
+            }
+            for (Media m : changed) {
+                if (type.isInstance(m)) put(tree, m, StoreRecords.position(store, tree, StoreRecords.key(m.getId())));
+            }
+        });
+    }
+
+    private void put(String tree, Media m, int position) throws IOException {
+        store.put(tree, StoreRecords.key(m.getId()), StoreRecords.encode(out -> {
+            out.writeInt(position);
+            out.writeUTF(m.getId());
+            out.writeUTF(m.getTitle());
+            out.writeUTF(m.getAuthor());
+            out.writeInt(m.getTotalCopies());
+            out.writeInt(m.getAvailableCopies());
+        }));
+    }
+
+    @Override
+    public Media findById(String id) {
+        if (id == null) return null;
+        try {
+            for (String tree : new String[]{BOOKS, CDS}) {
+                byte[] value = store.get(tree, StoreRecords.key(id));
+                if (value == null) continue;
+                DataInputStream in = StoreRecords.decode(value);
+                in.readInt();
+                return read(tree, in);
+            }
+        } catch (IOException e) {
+            System.out.println("Error loading " + store.getFileName() + ": " + e.getMessage());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,72 @@
+package librarymanagement.persistence;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+
+final class StoreRecords {
+    private static final String POSITIONS = "positions";
+
+    interface Fields {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private StoreRecords() {}
+
+    static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    static byte[] encode(Fields fields) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            fields.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static DataInputStream decode(byte[] value) {
+        return new DataInputStream(new ByteArrayInputStream(value));
+    }
+
+    /**
+     * Position of the record under {@code key}: the stored one when it exists, otherwise the next
+     * free one of the tree. Records lead with their position, so a tree saved before positions
+     * were counted is scanned once for the highest.
+     */
+    static int position(BTreeStore store, String tree, String key) throws IOException {
+        byte[] stored = store.get(tree, key);
+        if (stored != null) return decode(stored).readInt();
+        byte[] counter = store.get(POSITIONS, tree);
+        int next;
+        if (counter != null) {
+            next = decode(counter).readInt();
+        } else {
+            int[] last = {-1};
+            store.scan(tree, "", (k, value) -> last[0] = Math.max(last[0], decode(value).readInt()));
+            next = last[0] + 1;
+        }
+        setNextPosition(store, tree, next + 1);
+        return next;
+    }
+
+    static void setNextPosition(BTreeStore store, String tree, int next) throws IOException {
+        store.put(POSITIONS, tree, encode(out -> out.writeInt(next)));
+    }
+
+    static boolean write(BTreeStore store, BTreeStore.Work work) {
+        try {
+            store.transaction(work);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Error writing " + store.getFileName() + ": " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package librarymanagement.persistence;
+
+import librarymanagement.domain.LibraryUser;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Users in a {@link BTreeStore} tree keyed by lower-cased name, in registration order.
+ */
+public class StoreUserRepository implements UserRepository {
+    private static final String USERS = "users";
+
+    private final BTreeStore store;
+
+    public StoreUserRepository(BTreeStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public List<LibraryUser> loadAll() {
+        Map<Integer, LibraryUser> ordered = new TreeMap<>();
+        try {
+            store.scan(USERS, "", (key, value) -> {
+                DataInputStream in = StoreRecords.decode(value);
+                ordered.put(in.readInt(), read(in));
+            });
+        } catch (IOException e) {
+            System.out.println("Error loading users: " + e.getMessage());
+        }
+        return new ArrayList<>(ordered.values());
+    }
+
+    private static LibraryUser read(DataInputStream in) throws IOException {
+        LibraryUser user = new LibraryUser(in.readUTF(), in.readUTF(), in.readUTF());
+        user.setFineBalanceCents(in.readLong());
+        user.setBlocked(in.readBoolean());
+        return user;
+    }
+
+    @Override
+    public boolean saveAll(Collection<LibraryUser> users) {
+        return StoreRecords.write(store, () -> {
+            store.clear(USERS);
+            int position = 0;
+            for (LibraryUser u : users) put(u, position++);
+            StoreRecords.setNextPosition(store, USERS, position);
+        });
+    }
+
+    @Override
+    public boolean saveChanges(Collection<LibraryUser> users, Collection<LibraryUser> changed, Collection<String> removed) {
+        return StoreRecords.write(store, () -> {
+            for (String name : removed) store.delete(USERS, StoreRecords.key(name));
+            for (LibraryUser u : changed) put(u, StoreRecords.position(store, USERS, StoreRecords.key(u.getName())));
+        });
+    }
+
+    private void put(LibraryUser u, int position) throws IOException {
+        store.put(USERS, StoreRecords.key(u.getName()), StoreRecords.encode(out -> {
+            out.writeInt(position);
+            out.writeUTF(u.getName());
+            out.writeUTF(u.getPassword());
+            out.writeUTF(u.getEmail());
+            out.writeLong(u.getFineBalanceCents());
+            out.writeBoolean(u.isBlocked());
+        }));
+    }
+
+    @Override
+    public LibraryUser findByName(String name) {
+        if (name == null) return null;
+        try {
+            byte[] value = store.get(USERS, StoreRecords.key(name));
+            if (value == null) return null;
+            DataInputStream in = StoreRecords.decode(value);
+            in.readInt();
+            return read(in);
+        } catch (IOException e) {
+            System.out.println("Error loading users: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package librarymanagement.persistence;
+
+import librarymanagement.domain.Admin;
+import librarymanagement.domain.Admin.Role;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Admins as {@code name|email|password|role} lines.
+ */
+public class TextAdminRepository implements AdminRepository {
+    private final String filename;
+
+    public TextAdminRepository(String filename) {
+        this.filename = filename;
+    }
+
+    @Override
+    public List<Admin> loadAll() {
+        List<Admin> admins = new ArrayList<>();
+        if (!new File(filename).exists()) return admins;
+        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] p = line.split("\\|");
+                if (p.length == 4) {
+                    Role role = p[3].equals("OWNER") ? Role.OWNER : Role.SMALL_ADMIN;
+                    admins.add(new Admin(p[0], p[1], p[2], role));
+                }
+            }
+        } catch (Exception ignored) {}
+        return admins;
+    }
+
+    @Override
+    public boolean saveAll(Collection<Admin> admins) {
+        return SnapshotWriter.write(filename, admins,
+                a -> a.getName() + "|" + a.getEmail() + "|" + a.getPassword() + "|" + a.getRole());
+    }
+}
@@ -0,0 +1,44 @@
+package librarymanagement.persistence;
+
+import librarymanagement.domain.LibraryUser;
+import librarymanagement.domain.Money;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Fine balances as {@code name|balance} lines.
+ */
+public class TextFineRepository implements FineRepository {
+    private final String finesFile;
+
+    public TextFineRepository(String finesFile) {
+        this.finesFile = finesFile;
+    }
+
+    @Override
+    public Map<String, Long> loadAll() {
+        Map<String, Long> fines = new LinkedHashMap<>();
+        File file = new File(finesFile);
+        if (!file.exists()) return fines;
+        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] parts = line.split("\\|");
+                if (parts.length != 2) continue;
+                fines.put(parts[0], Money.parse(parts[1]));
+            }
+        } catch (IOException ignored) {}
+        return fines;
+    }
+
+    @Override
+    public boolean saveAll(Collection<LibraryUser> users) {
+        return SnapshotWriter.write(finesFile, users, u -> u.getName() + "|" + Money.format(u.getFineBalanceCents()));
+    }
+}
@@ -0,0 +1,111 @@
+package librarymanagement.persistence;
+
+import librarymanagement.domain.BorrowedMedia;
+import librarymanagement.domain.LibraryUser;
+import librarymanagement.domain.Media;
+import librarymanagement.domain.Money;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * Loans as {@code user|mediaId|borrowDate|dueDate|returned|fine} lines, grouped by user.
+ */
+public class TextLoanRepository implements LoanRepository {
+    private final String borrowedFile;
+
+    public TextLoanRepository(String borrowedFile) {
+        this.borrowedFile = borrowedFile;
+    }
+
+    @Override
+    public List<Loan> loadAll(Function<String, LibraryUser> users, Function<String, Media> media, ForkJoinPool pool) {
+        return MappedRecordReader.parse(borrowedFile, () -> new MappedRecordReader.Parser<Loan>() {
+            private String username;
+            private LibraryUser user;
+            private String mediaId;
+            private Media found;
+
+            @Override
+            public Loan parse(MappedRecordReader.Record r) {
+                if (r.size() < 5) return null;
+                String name = r.string(0);
+                if (name != username) {
+                    username = name;
+                    user = users.apply(name);
+                }
+                String id = r.string(1);
+                if (id != mediaId) {
+                    mediaId = id;
+                    found = media.apply(id);
+                }
+                BorrowedMedia bm = parseLoan(r, found);
+                return user == null || bm == null ? null : new Loan(user, bm);
+            }
+        }, pool);
+    }
+
+    static BorrowedMedia parseLoan(MappedRecordReader.Record r, Media media) {
+        LocalDate borrowDate = r.dateAt(2);
+        LocalDate dueDate = r.dateAt(3);
+        boolean returned = r.booleanAt(4);
+        long fine = r.size() >= 6 ? r.centsAt(5) : 0;
+
+        if (media == null) return null;
+        BorrowedMedia bm = new BorrowedMedia(media, borrowDate, dueDate);
+        bm.setReturned(returned);
+        bm.setFineCents(fine);
+        if (fine > 0) bm.setFineAdded(true);
+        return bm;
+    }
+
+    @Override
+    public boolean saveAll(Collection<LibraryUser> users) {
+        if (borrowedFile == null || borrowedFile.isEmpty()) return false;
+        return SnapshotWriter.write(borrowedFile, users, user -> {
+            if (user.getBorrowedMediaInternal().isEmpty()) return null;
+            StringJoiner lines = new StringJoiner(System.lineSeparator());
+            for (BorrowedMedia bm : user.getBorrowedMediaInternal()) lines.add(line(user, bm));
+            return lines.toString();
+        });
+    }
+
+    static String line(LibraryUser user, BorrowedMedia bm) {
+        return user.getName() + "|" +
+                bm.getMedia().getId() + "|" +
+                bm.getBorrowDate() + "|" +
+                bm.getDueDate() + "|" +
+                bm.isReturned() + "|" +
+                Money.format(bm.getFineCents());
+    }
+
+    @Override
+    public String getJournalFile() {
+        return journalFile(borrowedFile);
+    }
+
+    static String journalFile(String dataFile) {
+        if (dataFile == null || dataFile.isEmpty()) return null;
+        int dot = dataFile.lastIndexOf('.');
+        boolean extension = dot > Math.max(dataFile.lastIndexOf('/'), dataFile.lastIndexOf(File.separatorChar));
+        return (extension ? dataFile.substring(0, dot) : dataFile) + ".journal";
+    }
+
+    @Override
+    public List<BorrowedMedia> findByUser(String userName, Function<String, Media> media) {
+        List<BorrowedMedia> loans = new ArrayList<>();
+        if (userName == null) return loans;
+        MappedRecordReader.read(borrowedFile, r -> {
+            if (r.size() < 5 || !r.string(0).equalsIgnoreCase(userName)) return;
+            BorrowedMedia bm = parseLoan(r, media.apply(r.string(1)));
+            if (bm != null) loans.add(bm);
+        });
+        return loans;
+    }
+}
@@ -0,0 +1,64 @@
+package librarymanagement.persistence;
+
+import librarymanagement.domain.Book;
+import librarymanagement.domain.CD;
+import librarymanagement.domain.Media;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Books and CDs as {@code id|title|author|total|available} lines in one text file per type.
+ */
+public class TextMediaRepository implements MediaRepository {
+    private final String booksFile;
+    private final String cdsFile;
+
+    public TextMediaRepository(String booksFile, String cdsFile) {
+        this.booksFile = booksFile;
+        this.cdsFile = cdsFile;
+    }
+
+    @Override
+    public List<Media> loadAll(ForkJoinPool pool) {
+        List<Media> media = new ArrayList<>(load(booksFile, false, pool));
+        media.addAll(load(cdsFile, true, pool));
+        return media;
+    }
+
+    private static List<Media> load(String fileName, boolean cd, ForkJoinPool pool) {
+        return MappedRecordReader.parse(fileName, () -> r -> {
+            if (r.size() < 4) return null;
+
+            int totalCopies = r.intAt(3);
+            int availableCopies = r.size() >= 5 ? r.intAt(4) : totalCopies;
+
+            Media media;
+            if (cd) {
+                media = new CD(r.string(1), r.string(2), r.string(0), totalCopies);
+            } else {
+                media = new Book(r.string(1), r.string(2), r.string(0), totalCopies);
+            }
+
+            media.setAvailableCopies(availableCopies);
+            return media;
+        }, pool);
+    }
+
+    @Override
+    public boolean saveAll(Iterable<? extends Media> media, Class<? extends Media> type) {
+        String fileName = CD.class.isAssignableFrom(type) ? cdsFile : booksFile;
+        return SnapshotWriter.write(fileName, media, m -> !type.isInstance(m) ? null
+                : m.getId() + "|" + m.getTitle() + "|" + m.getAuthor() + "|" + m.getTotalCopies() + "|" + m.getAvailableCopies());
+    }
+
+    @Override
+    public Media findById(String id) {
+        if (id == null) return null;
+        for (Media m : loadAll(ForkJoinPool.commonPool())) {
+            if (m.getId().equalsIgnoreCase(id)) return m;
+        }
+        return null;
+    }
+}
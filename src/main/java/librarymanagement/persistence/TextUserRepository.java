@@ -0,0 +1,66 @@
+package librarymanagement.persistence;
+
+import librarymanagement.domain.LibraryUser;
+import librarymanagement.domain.Money;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Users as {@code name:password:email:fine:blocked} lines.
+ */
+public class TextUserRepository implements UserRepository {
+    private final String usersFile;
+
+    public TextUserRepository(String usersFile) {
+        this.usersFile = usersFile;
+    }
+
+    @Override
+    public List<LibraryUser> loadAll() {
+        List<LibraryUser> users = new ArrayList<>();
+        if (usersFile == null || usersFile.isEmpty()) return users;
+        File file = new File(usersFile);
+        if (!file.exists()) return users;
+        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] p = line.split(":", 5);
+                if (p.length < 2) continue;
+                String name = p[0];
+                String pass = p[1];
+                String email = p.length >= 3 ? p[2] : "";
+                long fine = p.length >= 4 ? Money.parse(p[3]) : 0;
+                boolean blocked = p.length >= 5 && Boolean.parseBoolean(p[4]);
+
+                LibraryUser user = new LibraryUser(name, pass, email);
+                user.setFineBalanceCents(fine);
+                user.setBlocked(blocked);
+                users.add(user);
+            }
+        } catch (Exception e) {
+            System.out.println("Error loading users: " + e.getMessage());
+        }
+        return users;
+    }
+
+    @Override
+    public boolean saveAll(Collection<LibraryUser> users) {
+        if (usersFile == null || usersFile.isEmpty()) return false;
+        return SnapshotWriter.write(usersFile, users, u -> u.getName() + ":" + u.getPassword() + ":" + u.getEmail() + ":" +
+                Money.format(u.getFineBalanceCents()) + ":" + u.isBlocked());
+    }
+
+    @Override
+    public LibraryUser findByName(String name) {
+        if (name == null) return null;
+        for (LibraryUser u : loadAll()) {
+            if (u.getName().equalsIgnoreCase(name)) return u;
+        }
+        return null;
+    }
+}
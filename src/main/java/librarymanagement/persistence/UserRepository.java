@@ -0,0 +1,26 @@
+package librarymanagement.persistence;
+
+import librarymanagement.domain.LibraryUser;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Storage of library users with their fine balance and blocked flag. Loans are kept by the
+ * {@link LoanRepository}.
+ */
+public interface UserRepository {
+    List<LibraryUser> loadAll();
+
+    boolean saveAll(Collection<LibraryUser> users);
+
+    /**
+     * Upserts the changed users and deletes the removed names. Files without record access are
+     * rewritten from {@code users} instead.
+     */
+    default boolean saveChanges(Collection<LibraryUser> users, Collection<LibraryUser> changed, Collection<String> removed) {
+        return saveAll(users);
+    }
+
+    LibraryUser findByName(String name);
+}
@@ -0,0 +1,457 @@
+package librarymanagement.presentation;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import librarymanagement.application.FineSweeper;
+import librarymanagement.application.LibraryService;
+import librarymanagement.application.SearchPage;
+import librarymanagement.application.SearchRanking;
+import librarymanagement.domain.BorrowedMedia;
+import librarymanagement.domain.CD;
+import librarymanagement.domain.LibraryUser;
+import librarymanagement.domain.Media;
+import librarymanagement.domain.Money;
+import librarymanagement.domain.UserService;
+import librarymanagement.persistence.BTreeStore;
+import librarymanagement.persistence.LoanArchive;
+import librarymanagement.persistence.StoreFineRepository;
+import librarymanagement.persistence.StoreLoanRepository;
+import librarymanagement.persistence.StoreMediaRepository;
+import librarymanagement.persistence.StoreUserRepository;
+import librarymanagement.persistence.TextLoanRepository;
+import librarymanagement.persistence.TextUserRepository;
+import librarymanagement.util.EnvLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.LocalTime;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * HTTP/JSON front end for self-checkout kiosks on the JDK's built-in {@link HttpServer}, with one
+ * virtual thread per request. Parameters come from the query string or a form-encoded POST body.
+ * Everything but search needs an {@code Authorization: Bearer} token: the kiosk token, which may act
+ * for any user, or a session from {@code /api/login}, which may only act for the user who signed in.
+ * A missing or unknown token gets 401, a session acting for someone else 403.
+ * <ul>
+ *   <li>{@code GET /api/search?q=&offset=&limit=&ranking=relevance|catalog}</li>
+ *   <li>{@code POST /api/login} with {@code user}, {@code password}; returns the session {@code token}</li>
+ *   <li>{@code POST /api/logout}</li>
+ *   <li>{@code GET /api/users/{name}}</li>
+ *   <li>{@code GET /api/users/{name}/history}, including archived loans</li>
+ *   <li>{@code POST /api/borrow} with {@code user}, {@code media}</li>
+ *   <li>{@code POST /api/return} with {@code user}, {@code media}</li>
+ *   <li>{@code POST /api/pay-fine} with {@code user}, {@code amount}</li>
+ * </ul>
+ */
+public class LibraryHttpServer {
+    public static final int MAX_PAGE = 100;
+    private static final int DEFAULT_PAGE = 20;
+    private static final int MAX_BODY = 64 * 1024;
+    private static final int MAX_CONNECTIONS = 16_384;
+    private static final String HISTORY = "/history";
+    private static final String BEARER = "Bearer ";
+    private static final long SESSION_IDLE_MS = 30 * 60 * 1000L;
+
+    static {
+        // The JDK server closes keep-alive connections beyond 200 idle ones; kiosks hold theirs open.
+        if (System.getProperty("sun.net.httpserver.maxIdleConnections") == null) {
+            System.setProperty("sun.net.httpserver.maxIdleConnections", String.valueOf(MAX_CONNECTIONS));
+        }
+    }
+
+    private final LibraryService libraryService;
+    private final UserService userService;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private volatile byte[] kioskToken;
+
+    private interface Endpoint {
+        Response handle(String path, Map<String, String> params, Caller caller);
+    }
+
+    /**
+     * Who made a request: a kiosk, which may act for any user, or the user a session belongs to.
+     */
+    private static final class Caller {
+        private static final Caller KIOSK = new Caller(null, null);
+
+        private final String user;
+        private final String token;
+
+        Caller(String user, String token) {
+            this.user = user;
+            this.token = token;
+        }
+
+        boolean mayActFor(String name) {
+            return user == null || user.equalsIgnoreCase(name);
+        }
+    }
+
+    private static final class Session {
+        private final String user;
+        private volatile long lastUsed;
+
+        Session(String user, long now) {
+            this.user = user;
+            this.lastUsed = now;
+        }
+    }
+
+    private static final class Response {
+        private final int status;
+        private final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    public LibraryHttpServer(LibraryService libraryService, UserService userService, int port, int backlog)
+            throws IOException {
+        this.libraryService = libraryService;
+        this.userService = userService;
+        server = HttpServer.create(new InetSocketAddress(port), backlog);
+        server.setExecutor(executor);
+        route("/api/search", "GET", false, this::search);
+        route("/api/login", "POST", false, this::login);
+        route("/api/logout", "POST", true, this::logout);
+        route("/api/users/", "GET", true, this::user);
+        route("/api/borrow", "POST", true, this::borrow);
+        route("/api/return", "POST", true, this::giveBack);
+        route("/api/pay-fine", "POST", true, this::payFine);
+    }
+
+    /**
+     * Token that kiosks send to act for any user; {@code null} accepts sessions only.
+     */
+    public void setKioskToken(String token) {
+        kioskToken = token == null || token.isBlank() ? null : token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.close();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void route(String context, String method, boolean authenticated, Endpoint endpoint) {
+        server.createContext(context, exchange -> {
+            try (exchange) {
+                Response response;
+                try {
+                    Caller caller = authenticated ? caller(exchange) : null;
+                    if (!exchange.getRequestMethod().equalsIgnoreCase(method)) {
+                        response = error(405, "Use " + method);
+                    } else if (authenticated && caller == null) {
+                        exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+                        response = error(401, "Authentication required");
+                    } else {
+                        String path = exchange.getRequestURI().getPath().substring(context.length());
+                        response = endpoint.handle(path, params(exchange), caller);
+                    }
+                } catch (IllegalArgumentException e) {
+                    response = error(400, e.getMessage());
+                } catch (RuntimeException e) {
+                    System.out.println("Error handling " + exchange.getRequestURI() + ": " + e.getMessage());
+                    response = error(500, "Internal error");
+                }
+                send(exchange, response);
+            }
+        });
+    }
+
+    private Caller caller(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.regionMatches(true, 0, BEARER, 0, BEARER.length())) return null;
+        String token = header.substring(BEARER.length()).trim();
+        byte[] kiosk = kioskToken;
+        if (kiosk != null && MessageDigest.isEqual(kiosk, token.getBytes(StandardCharsets.UTF_8))) return Caller.KIOSK;
+        Session session = sessions.get(token);
+        long now = System.currentTimeMillis();
+        if (session == null) return null;
+        if (now - session.lastUsed > SESSION_IDLE_MS) {
+            sessions.remove(token, session);
+            return null;
+        }
+        session.lastUsed = now;
+        return new Caller(session.user, token);
+    }
+
+    private static void send(HttpExchange exchange, Response response) throws IOException {
+        byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static Map<String, String> params(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        parse(exchange.getRequestURI().getRawQuery(), params);
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY + 1);
+            if (body.length > MAX_BODY) throw new IllegalArgumentException("Request body too large");
+            parse(new String(body, StandardCharsets.UTF_8), params);
+        }
+        return params;
+    }
+
+    private static void parse(String encoded, Map<String, String> into) {
+        if (encoded == null || encoded.isEmpty()) return;
+        for (String pair : encoded.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            into.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isBlank()) throw new IllegalArgumentException("Missing parameter: " + name);
+        return value.trim();
+    }
+
+    private static int intParam(Map<String, String> params, String name, int defaultValue) {
+        String value = params.get(name);
+        if (value == null || value.isBlank()) return defaultValue;
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+    private Response login(String path, Map<String, String> params, Caller caller) {
+        LibraryUser user = userService.login(required(params, "user"), required(params, "password"));
+        if (user == null) return error(401, "Wrong user name or password");
+        long now = System.currentTimeMillis();
+        sessions.values().removeIf(s -> now - s.lastUsed > SESSION_IDLE_MS);
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        sessions.put(token, new Session(user.getName(), now));
+        return new Response(200, "{\"token\":\"" + token + "\",\"account\":" + account(user) + "}");
+    }
+
+    private Response logout(String path, Map<String, String> params, Caller caller) {
+        if (caller.token != null) sessions.remove(caller.token);
+        return new Response(200, "{}");
+    }
+
+    private static Response forbidden(String name) {
+        return error(403, "Not allowed for user: " + name);
+    }
+
+    private Response search(String path, Map<String, String> params, Caller caller) {
+        String query = required(params, "q");
+        int offset = Math.max(0, intParam(params, "offset", 0));
+        int limit = Math.min(MAX_PAGE, Math.max(1, intParam(params, "limit", DEFAULT_PAGE)));
+        SearchRanking ranking = "catalog".equalsIgnoreCase(params.get("ranking"))
+                ? SearchRanking.CATALOG_ORDER : SearchRanking.RELEVANCE;
+        SearchPage page = libraryService.searchMedia(query, ranking, offset, limit);
+
+        StringBuilder json = new StringBuilder("{\"total\":").append(page.getTotalMatches())
+                .append(",\"offset\":").append(page.getOffset())
+                .append(",\"next\":").append(page.hasNext() ? String.valueOf(page.nextOffset()) : "null")
+                .append(",\"results\":[");
+        for (int i = 0; i < page.getResults().size(); i++) {
+            if (i > 0) json.append(',');
+            media(json, page.getResults().get(i));
+        }
+        return new Response(200, json.append("]}").toString());
+    }
+
+    private Response user(String path, Map<String, String> params, Caller caller) {
+        boolean history = path.endsWith(HISTORY);
+        if (history) path = path.substring(0, path.length() - HISTORY.length());
+        String name = URLDecoder.decode(path, StandardCharsets.UTF_8);
+        if (!caller.mayActFor(name)) return forbidden(name);
+        LibraryUser user = userService.getUserByName(name);
+        if (user == null) return error(404, "Unknown user: " + name);
+        return new Response(200, history ? history(user) : account(user));
+    }
+
+    private String history(LibraryUser user) {
+        StringBuilder json = new StringBuilder("{\"name\":");
+        quote(json, user.getName()).append(",\"loans\":[");
+        List<BorrowedMedia> loans = libraryService.getLoanHistory(user);
+        for (int i = 0; i < loans.size(); i++) {
+            BorrowedMedia bm = loans.get(i);
+            if (i > 0) json.append(',');
+            json.append("{\"media\":");
+            media(json, bm.getMedia());
+            json.append(",\"borrowDate\":\"").append(bm.getBorrowDate())
+                    .append("\",\"dueDate\":\"").append(bm.getDueDate())
+                    .append("\",\"returned\":").append(bm.isReturned()).append(",\"fine\":");
+            Money.appendTo(json, bm.getFineCents()).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private Response borrow(String path, Map<String, String> params, Caller caller) {
+        String name = required(params, "user");
+        if (!caller.mayActFor(name)) return forbidden(name);
+        LibraryUser user = userService.getUserByName(name);
+        if (user == null) return error(404, "Unknown user");
+        Media media = libraryService.getMediaById(required(params, "media"));
+        if (media == null) return error(404, "Unknown media");
+        if (!libraryService.borrowMedia(user, media)) {
+            String reason = user.isBlocked() || user.getFineBalanceCents() > 0 ? "User is blocked or has unpaid fines"
+                    : "No copies available";
+            return error(409, reason);
+        }
+        return new Response(200, account(user));
+    }
+
+    private Response giveBack(String path, Map<String, String> params, Caller caller) {
+        String name = required(params, "user");
+        if (!caller.mayActFor(name)) return forbidden(name);
+        LibraryUser user = userService.getUserByName(name);
+        if (user == null) return error(404, "Unknown user");
+        String mediaId = required(params, "media");
+        BorrowedMedia loan = null;
+        for (BorrowedMedia bm : libraryService.getOpenLoans(user)) {
+            if (bm.getMedia().getId().equalsIgnoreCase(mediaId)) {
+                loan = bm;
+                break;
+            }
+        }
+        if (loan == null) return error(404, "No open loan of " + mediaId);
+        libraryService.returnMedia(user, loan);
+        return new Response(200, account(user));
+    }
+
+    private Response payFine(String path, Map<String, String> params, Caller caller) {
+        String name = required(params, "user");
+        if (!caller.mayActFor(name)) return forbidden(name);
+        LibraryUser user = userService.getUserByName(name);
+        if (user == null) return error(404, "Unknown user");
+        long amount;
+        try {
+            amount = Money.parse(required(params, "amount"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid amount");
+        }
+        if (amount <= 0) throw new IllegalArgumentException("Amount must be positive");
+        libraryService.payFineCents(user, amount);
+        return new Response(200, account(user));
+    }
+
+    private String account(LibraryUser user) {
+        StringBuilder json = new StringBuilder("{\"name\":");
+        quote(json, user.getName()).append(",\"email\":");
+        Money.appendTo(quote(json, user.getEmail()).append(",\"fineBalance\":"), user.getFineBalanceCents())
+                .append(",\"blocked\":").append(user.isBlocked()).append(",\"loans\":[");
+        boolean first = true;
+        for (BorrowedMedia bm : libraryService.getOpenLoans(user)) {
+            if (!first) json.append(',');
+            first = false;
+            json.append("{\"media\":");
+            media(json, bm.getMedia());
+            json.append(",\"borrowDate\":\"").append(bm.getBorrowDate())
+                    .append("\",\"dueDate\":\"").append(bm.getDueDate())
+                    .append("\",\"overdue\":").append(bm.isOverdue()).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private static void media(StringBuilder json, Media m) {
+        json.append("{\"id\":");
+        quote(json, m.getId()).append(",\"type\":\"").append(m instanceof CD ? "CD" : "BOOK").append("\",\"title\":");
+        quote(json, m.getTitle()).append(",\"author\":");
+        quote(json, m.getAuthor()).append(",\"totalCopies\":").append(m.getTotalCopies())
+                .append(",\"availableCopies\":").append(m.getAvailableCopies()).append('}');
+    }
+
+    private static Response error(int status, String message) {
+        return new Response(status, quote(new StringBuilder("{\"error\":"), message).append('}').toString());
+    }
+
+    private static StringBuilder quote(StringBuilder json, String s) {
+        if (s == null) return json.append("null");
+        json.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) json.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    else json.append(c);
+                }
+            }
+        }
+        return json.append('"');
+    }
+
+    /**
+     * Serves on the given port, 8080 by default. With a second argument the data lives in that
+     * embedded store file instead of the text files. Kiosks authenticate with {@code KIOSK_TOKEN}
+     * from {@code pass.env}.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        BTreeStore store = args.length > 1 ? new BTreeStore(args[1]) : null;
+        LoanArchive archive = new LoanArchive("loan-archive");
+        UserService userService;
+        LibraryService libraryService;
+        if (store == null) {
+            userService = new UserService(new TextUserRepository("users.txt"), new TextLoanRepository("borrowed.txt"), archive);
+            libraryService = new LibraryService(null, userService);
+        } else {
+            userService = new UserService(new StoreUserRepository(store), new StoreLoanRepository(store), archive);
+            libraryService = new LibraryService(null, userService, new StoreMediaRepository(store),
+                    new StoreFineRepository(store), userService.getJournalFile(), ForkJoinPool.commonPool());
+        }
+        LibraryHttpServer server = new LibraryHttpServer(libraryService, userService, port, MAX_CONNECTIONS);
+        server.setKioskToken(EnvLoader.load().get("KIOSK_TOKEN"));
+        FineSweeper sweeper = new FineSweeper(libraryService, Clock.systemDefaultZone(), LocalTime.of(2, 0));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            sweeper.close();
+            libraryService.close();
+            if (store != null) {
+                try {
+                    store.close();
+                } catch (IOException e) {
+                    System.out.println("Error closing " + store.getFileName() + ": " + e.getMessage());
+                }
+            }
+        }));
+        sweeper.start();
+        server.start();
+        System.out.println("Library API listening on port " + server.getPort());
+    }
+}
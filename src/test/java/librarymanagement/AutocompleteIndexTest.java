@@ -0,0 +1,82 @@
+package librarymanagement;
+
+import librarymanagement.application.AutocompleteIndex;
+import librarymanagement.application.MediaCatalog;
+import librarymanagement.domain.*;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AutocompleteIndexTest {
+
+    private MediaCatalog catalog;
+    private AutocompleteIndex index;
+
+    @BeforeEach
+    void setup() {
+        catalog = new MediaCatalog();
+        index = new AutocompleteIndex();
+        catalog.add(new Book("Java Basics", "James Gosling", "B1", 1));
+        catalog.addIndex(index);
+        catalog.add(new Book("Java Concurrency", "Brian Goetz", "B2", 1));
+        catalog.add(new CD("Jazz Classics", "Various", "C1", 1));
+    }
+
+    @Test
+    void testComplete_TitlesAndAuthorsAlphabetically() {
+        assertEquals(List.of("James Gosling", "Java Basics", "Java Concurrency", "Jazz Classics"), index.complete("ja", 10));
+        assertEquals(List.of("Java Basics", "Java Concurrency"), index.complete("JAVA", 10));
+        assertEquals(List.of("Brian Goetz"), index.complete("  bri", 10));
+        assertEquals(List.of("James Gosling", "Java Basics"), index.complete("ja", 2));
+    }
+
+    @Test
+    void testComplete_RanksSharedTextFirst() {
+        catalog.add(new Book("Jaws", "Peter Benchley", "B4", 1));
+        catalog.add(new Book("Effective Java", "Joshua Bloch", "B5", 1));
+        catalog.add(new Book("Java Puzzlers", "Joshua Bloch", "B6", 1));
+        catalog.add(new Book("The Java Language", "James Gosling", "B7", 1));
+        assertEquals(List.of("James Gosling", "Java Basics", "Java Concurrency"), index.complete("ja", 3));
+        assertEquals(List.of("James Gosling", "Joshua Bloch", "Java Basics"), index.complete("j", 3));
+        assertEquals(List.of("James Gosling", "Joshua Bloch", "Java Basics", "Java Concurrency", "Java Puzzlers",
+                "Jaws", "Jazz Classics"), index.complete("j", 40));
+
+        catalog.removeById("B6");
+        catalog.removeById("B5");
+        assertEquals(List.of("James Gosling", "Java Basics"), index.complete("j", 2));
+    }
+
+    @Test
+    void testComplete_InvalidInput() {
+        assertTrue(index.complete(null, 5).isEmpty());
+        assertTrue(index.complete("", 5).isEmpty());
+        assertTrue(index.complete("ja", 0).isEmpty());
+        assertTrue(index.complete("python", 5).isEmpty());
+    }
+
+    @Test
+    void testComplete_FollowsEditsAndDeletes() {
+        Media m = catalog.getById("B2");
+        m.setTitle("Kotlin in Action");
+        assertEquals(List.of("Kotlin in Action"), index.complete("kot", 5));
+        assertFalse(index.complete("java", 5).contains("Java Concurrency"));
+
+        catalog.removeById("C1");
+        assertTrue(index.complete("jazz", 5).isEmpty());
+        assertTrue(index.complete("various", 5).isEmpty());
+
+        catalog.clear();
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void testComplete_SharedTextStaysUntilLastUse() {
+        catalog.add(new Book("Second Book", "James Gosling", "B3", 1));
+        catalog.removeById("B1");
+        assertEquals(List.of("James Gosling"), index.complete("james", 5));
+        catalog.removeById("B3");
+        assertTrue(index.complete("james", 5).isEmpty());
+    }
+}
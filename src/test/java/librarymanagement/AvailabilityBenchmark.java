@@ -0,0 +1,80 @@
+package librarymanagement;
+
+import librarymanagement.domain.Book;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of the CAS availability counter on Media with a synchronized counter, with every
+ * thread borrowing and returning copies of one popular title. Runs at 1 to 64 threads.
+ * <pre>mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt -Dmdep.includeScope=test
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) librarymanagement.AvailabilityBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AvailabilityBenchmark {
+
+    private static final int COPIES = 16;
+
+    private Book book;
+    private SynchronizedCopies locked;
+
+    @Setup
+    public void setup() {
+        book = new Book("Popular", "Author", "HOT", COPIES);
+        locked = new SynchronizedCopies(COPIES);
+    }
+
+    @Benchmark
+    public boolean cas() {
+        if (!book.borrowCopy()) return false;
+        book.returnCopy();
+        return true;
+    }
+
+    @Benchmark
+    public boolean synchronizedCounter() {
+        if (!locked.borrowCopy()) return false;
+        locked.returnCopy();
+        return true;
+    }
+
+    static final class SynchronizedCopies {
+        private final int total;
+        private int available;
+
+        SynchronizedCopies(int total) {
+            this.total = total;
+            this.available = total;
+        }
+
+        synchronized boolean borrowCopy() {
+            if (available <= 0) return false;
+            available--;
+            return true;
+        }
+
+        synchronized void returnCopy() {
+            if (available < total) available++;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{1, 2, 4, 8, 16, 32, 64}) {
+            Options options = new OptionsBuilder()
+                    .include(AvailabilityBenchmark.class.getName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package librarymanagement;
+
+import librarymanagement.persistence.BTreeStore;
+import org.junit.jupiter.api.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BTreeStoreTest {
+
+    private File file;
+
+    @BeforeEach
+    void setup() throws IOException {
+        file = File.createTempFile("store", ".db");
+        file.delete();
+    }
+
+    @AfterEach
+    void cleanup() {
+        file.delete();
+    }
+
+    private static byte[] value(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] b) {
+        return b == null ? null : new String(b, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testPutGetDeleteAndScan_MatchSortedMap() throws IOException {
+        TreeMap<String, String> expected = new TreeMap<>();
+        Random random = new Random(11);
+        try (BTreeStore store = new BTreeStore(file.getPath())) {
+            for (int i = 0; i < 20_000; i++) {
+                String key = "user" + random.nextInt(5_000) + "\0" + String.format("%010d", random.nextInt(20));
+                if (random.nextInt(5) == 0) {
+                    assertEquals(expected.remove(key) != null, store.delete("loans", key));
+                } else {
+                    String v = "v" + i + "x".repeat(random.nextInt(200));
+                    expected.put(key, v);
+                    store.put("loans", key, value(v));
+                }
+                if (i % 5_000 == 0) store.commit();
+            }
+            store.commit();
+            for (String key : expected.keySet()) assertEquals(expected.get(key), text(store.get("loans", key)));
+            assertNull(store.get("loans", "nobody"));
+            assertNull(store.get("other", "user1"));
+
+            List<String> all = new ArrayList<>();
+            store.scan("loans", "", (k, v) -> all.add(k));
+            assertEquals(new ArrayList<>(expected.keySet()), all);
+
+            List<String> one = new ArrayList<>();
+            store.scan("loans", "user42\0", (k, v) -> one.add(k));
+            assertEquals(new ArrayList<>(expected.subMap("user42\0", "user42\1").keySet()), one);
+        }
+
+        try (BTreeStore reopened = new BTreeStore(file.getPath())) {
+            List<String> all = new ArrayList<>();
+            reopened.scan("loans", "", (k, v) -> all.add(k + "=" + text(v)));
+            List<String> want = new ArrayList<>();
+            expected.forEach((k, v) -> want.add(k + "=" + v));
+            assertEquals(want, all);
+        }
+    }
+
+    @Test
+    void testRollbackAndUncommittedWritesAreDiscarded() throws IOException {
+        try (BTreeStore store = new BTreeStore(file.getPath())) {
+            store.put("media", "b1", value("Java"));
+            store.commit();
+            store.put("media", "b2", value("Go"));
+            store.delete("media", "b1");
+            store.rollback();
+            assertEquals("Java", text(store.get("media", "b1")));
+            assertNull(store.get("media", "b2"));
+
+            assertThrows(IllegalStateException.class, () -> store.transaction(() -> {
+                store.put("media", "b3", value("Rust"));
+                throw new IllegalStateException("abort");
+            }));
+            assertNull(store.get("media", "b3"));
+            store.put("media", "b4", value("C"));
+        }
+        try (BTreeStore reopened = new BTreeStore(file.getPath())) {
+            assertEquals("Java", text(reopened.get("media", "b1")));
+            assertNull(reopened.get("media", "b4"));
+        }
+    }
+
+    @Test
+    void testClearReusesPages_FileDoesNotGrow() throws IOException {
+        try (BTreeStore store = new BTreeStore(file.getPath())) {
+            for (int round = 0; round < 5; round++) {
+                store.transaction(() -> {
+                    store.clear("users");
+                    for (int i = 0; i < 5_000; i++) store.put("users", "u" + i, value("name" + i + "|secret"));
+                });
+            }
+        }
+        long size = file.length();
+        try (BTreeStore store = new BTreeStore(file.getPath())) {
+            for (int round = 0; round < 5; round++) {
+                store.transaction(() -> {
+                    store.clear("users");
+                    for (int i = 0; i < 5_000; i++) store.put("users", "u" + i, value("name" + i + "|secret"));
+                });
+            }
+            assertEquals("name4999|secret", text(store.get("users", "u4999")));
+        }
+        assertEquals(size, file.length());
+    }
+
+    @Test
+    void testTornHeader_FallsBackToPreviousCommit() throws IOException {
+        try (BTreeStore store = new BTreeStore(file.getPath())) {
+            store.put("fines", "alice", value("1"));
+            store.commit();
+            store.put("fines", "alice", value("2"));
+            store.commit();
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(10);
+            raf.write(0x7F);
+        }
+        try (BTreeStore store = new BTreeStore(file.getPath())) {
+            assertEquals("1", text(store.get("fines", "alice")));
+        }
+    }
+
+    @Test
+    void testCorruptPagesAndForeignFilesAreRejected() throws IOException {
+        try (BTreeStore store = new BTreeStore(file.getPath())) {
+            store.put("books", "b1", value("Java"));
+            store.commit();
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(2L * BTreeStore.PAGE_SIZE + 8);
+            raf.write(0x55);
+        }
+        IOException e = assertThrows(IOException.class, () -> new BTreeStore(file.getPath()));
+        assertTrue(e.getMessage().contains("corrupt"));
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(0);
+            raf.write(value("B1|Java|Gosling|1|1\n"));
+        }
+        assertThrows(IOException.class, () -> new BTreeStore(file.getPath()));
+    }
+
+    @Test
+    void testLimitsAreEnforced() throws IOException {
+        try (BTreeStore store = new BTreeStore(file.getPath())) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> store.put("books", "k".repeat(BTreeStore.MAX_KEY + 1), value("")));
+            assertThrows(IllegalArgumentException.class,
+                    () -> store.put("books", "k", new byte[BTreeStore.MAX_ENTRY]));
+            assertThrows(IllegalArgumentException.class, () -> store.put("", "k", value("v")));
+            for (int t = 0; t < 32; t++) store.put("tree" + t, "k", value("v"));
+            assertThrows(IllegalArgumentException.class, () -> store.put("tree32", "k", value("v")));
+            assertFalse(store.delete("tree0", "missing"));
+            store.clear("missing");
+            store.commit();
+            store.commit();
+        }
+    }
+
+    @Test
+    void testLargeEntriesSplitEvenly() throws IOException {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) order.add(i);
+        Collections.shuffle(order, new Random(5));
+        try (BTreeStore store = new BTreeStore(file.getPath())) {
+            for (int i : order) {
+                store.put("big", "k" + "#".repeat(i % 400) + i, new byte[(i * 37) % (BTreeStore.MAX_ENTRY - 420)]);
+            }
+            store.commit();
+        }
+        try (BTreeStore store = new BTreeStore(file.getPath())) {
+            int[] count = {0};
+            store.scan("big", "k", (k, v) -> count[0]++);
+            assertEquals(3_000, count[0]);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package librarymanagement;
+
+import librarymanagement.domain.*;
+import librarymanagement.persistence.BinarySnapshot;
+import librarymanagement.persistence.MappedRecordReader;
+import librarymanagement.persistence.SnapshotWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Load and save throughput of the binary snapshot against the text files (books.txt, users.txt, borrowed.txt)
+ * for the same generated library.
+ * <pre>java -Xmx4g -cp target/classes:target/test-classes librarymanagement.BinarySnapshotBenchmark [loans] [catalog] [users]</pre>
+ */
+public class BinarySnapshotBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int loans = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int catalog = args.length > 1 ? Integer.parseInt(args[1]) : 500_000;
+        int userCount = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+
+        List<Media> media = new ArrayList<>(catalog);
+        for (int i = 0; i < catalog; i++) media.add(new Book("Title " + i, "Author " + (i % 5000), "B" + i, 3));
+        List<LibraryUser> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) users.add(new LibraryUser("user" + i, "pw", "user" + i + "@mail.com"));
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < loans; i++) {
+            LocalDate borrowed = today.minusDays(400 - (i % 400));
+            BorrowedMedia bm = new BorrowedMedia(media.get((int) ((i * 7919L) % catalog)), borrowed, borrowed.plusDays(28));
+            bm.setReturned(i % 10 != 0);
+            users.get(i % userCount).getBorrowedMediaInternal().add(bm);
+        }
+
+        Path dir = Files.createTempDirectory("snapshot-bench");
+        String snapshot = dir.resolve("library.snapshot").toString();
+        String books = dir.resolve("books.txt").toString();
+        String usersFile = dir.resolve("users.txt").toString();
+        String borrowed = dir.resolve("borrowed.txt").toString();
+
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            SnapshotWriter.write(books, media, m -> m.getId() + "|" + m.getTitle() + "|" + m.getAuthor() + "|"
+                    + m.getTotalCopies() + "|" + m.getAvailableCopies());
+            SnapshotWriter.write(usersFile, users, u -> u.getName() + ":" + u.getPassword() + ":" + u.getEmail() + ":"
+                    + u.getFineBalance() + ":" + u.isBlocked());
+            List<String[]> loanRows = new ArrayList<>(loans);
+            for (LibraryUser u : users) {
+                for (BorrowedMedia bm : u.getBorrowedMediaInternal()) {
+                    loanRows.add(new String[]{u.getName(), bm.getMedia().getId(), bm.getBorrowDate().toString(),
+                            bm.getDueDate().toString(), Boolean.toString(bm.isReturned()), Money.format(bm.getFineCents())});
+                }
+            }
+            SnapshotWriter.write(borrowed, loanRows, r -> String.join("|", r));
+            long textSaveMs = (System.nanoTime() - start) / 1_000_000;
+            long textBytes = Files.size(Path.of(books)) + Files.size(Path.of(usersFile)) + Files.size(Path.of(borrowed));
+
+            start = System.nanoTime();
+            Map<String, Media> loadedMedia = new HashMap<>();
+            MappedRecordReader.read(books, r -> {
+                Media m = new Book(r.string(1), r.string(2), r.string(0), r.intAt(3));
+                m.setAvailableCopies(r.intAt(4));
+                loadedMedia.put(m.getId().toLowerCase(), m);
+            });
+            Map<String, LibraryUser> loadedUsers = new HashMap<>();
+            for (String line : Files.readAllLines(Path.of(usersFile))) {
+                String[] parts = line.split(":");
+                loadedUsers.put(parts[0].toLowerCase(), new LibraryUser(parts[0], parts[1], parts[2]));
+            }
+            MappedRecordReader.read(borrowed, r -> {
+                BorrowedMedia bm = new BorrowedMedia(loadedMedia.get(r.string(1).toLowerCase()), r.dateAt(2), r.dateAt(3));
+                bm.setReturned(r.booleanAt(4));
+                bm.setFineCents(r.centsAt(5));
+                loadedUsers.get(r.string(0).toLowerCase()).getBorrowedMediaInternal().add(bm);
+            });
+            long textLoadMs = (System.nanoTime() - start) / 1_000_000;
+
+            start = System.nanoTime();
+            BinarySnapshot.write(snapshot, media, users);
+            long binarySaveMs = (System.nanoTime() - start) / 1_000_000;
+            long binaryBytes = Files.size(Path.of(snapshot));
+
+            start = System.nanoTime();
+            BinarySnapshot.Contents contents = BinarySnapshot.read(snapshot);
+            long binaryLoadMs = (System.nanoTime() - start) / 1_000_000;
+
+            System.out.printf("text:   %4d MB  save %5d ms  load  %5d ms%n", textBytes >> 20, textSaveMs, textLoadMs);
+            System.out.printf("binary: %4d MB  save %5d ms  load  %5d ms (%d media, %d users)%n",
+                    binaryBytes >> 20, binarySaveMs, binaryLoadMs, contents.getMedia().size(), contents.getUsers().size());
+        }
+        for (String f : new String[]{snapshot, books, usersFile, borrowed}) Files.deleteIfExists(Path.of(f));
+        Files.deleteIfExists(dir);
+    }
+}
@@ -0,0 +1,129 @@
+package librarymanagement;
+
+import librarymanagement.application.LibraryService;
+import librarymanagement.domain.*;
+import librarymanagement.persistence.BinarySnapshot;
+import org.junit.jupiter.api.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinarySnapshotTest {
+
+    private static final String SNAPSHOT = "test_library.snapshot";
+    private static final String USERS_FILE = "test_binary_users.txt";
+    private static final String BORROWED_FILE = "test_binary_borrowed.txt";
+
+    @BeforeEach
+    void setup() {
+        cleanup();
+    }
+
+    @AfterEach
+    void cleanup() {
+        for (String f : new String[]{SNAPSHOT, USERS_FILE, BORROWED_FILE, "books.txt", "cds.txt", "users_fines.txt", "test_binary_borrowed.journal"}) {
+            new File(f).delete();
+        }
+    }
+
+    private List<LibraryUser> sampleUsers(Book book, CD cd) {
+        LibraryUser alice = new LibraryUser("alice", "p:w|d", "alice:work@mail.com");
+        BorrowedMedia open = new BorrowedMedia(book, LocalDate.of(1969, 12, 20), LocalDate.of(1970, 1, 3));
+        open.setFine(12.75);
+        open.setFineAdded(true);
+        alice.getBorrowedMediaInternal().add(open);
+        BorrowedMedia returned = new BorrowedMedia(cd, LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 8));
+        returned.setReturned(true);
+        alice.getBorrowedMediaInternal().add(returned);
+        alice.setFineBalance(12.75);
+        alice.setBlocked(true);
+        return List.of(alice, new LibraryUser("Bob", "", ""));
+    }
+
+    @Test
+    void testRoundTrip_PreservesDelimitersAndState() throws IOException {
+        Book book = new Book("Pipes | and : colons", "Ünïcødé 作者", "B1", 3);
+        book.setAvailableCopies(2);
+        CD cd = new CD("Hits", "Queen", "C1", 1);
+        assertTrue(BinarySnapshot.write(SNAPSHOT, List.of(book, cd), sampleUsers(book, cd)));
+
+        BinarySnapshot.Contents contents = BinarySnapshot.read(SNAPSHOT);
+        assertEquals(2, contents.getMedia().size());
+        Media b = contents.getMedia().get(0);
+        assertInstanceOf(Book.class, b);
+        assertEquals("Pipes | and : colons", b.getTitle());
+        assertEquals("Ünïcødé 作者", b.getAuthor());
+        assertEquals(3, b.getTotalCopies());
+        assertEquals(2, b.getAvailableCopies());
+        assertInstanceOf(CD.class, contents.getMedia().get(1));
+
+        LibraryUser alice = contents.getUsers().get(0);
+        assertEquals("p:w|d", alice.getPassword());
+        assertEquals("alice:work@mail.com", alice.getEmail());
+        assertEquals(12.75, alice.getFineBalance());
+        assertTrue(alice.isBlocked());
+        BorrowedMedia open = alice.getBorrowedMediaInternal().get(0);
+        assertSame(b, open.getMedia());
+        assertEquals(LocalDate.of(1969, 12, 20), open.getBorrowDate());
+        assertEquals(LocalDate.of(1970, 1, 3), open.getDueDate());
+        assertTrue(open.isFineAdded());
+        assertFalse(open.isReturned());
+        assertTrue(alice.getBorrowedMediaInternal().get(1).isReturned());
+        assertEquals("Bob", contents.getUsers().get(1).getName());
+    }
+
+    @Test
+    void testCorruptionAndVersionAreDetected() throws IOException {
+        Book book = new Book("Java", "Gosling", "B1", 1);
+        CD cd = new CD("Hits", "Queen", "C1", 1);
+        assertTrue(BinarySnapshot.write(SNAPSHOT, List.of(book, cd), sampleUsers(book, cd)));
+        byte[] good = Files.readAllBytes(Path.of(SNAPSHOT));
+
+        try (RandomAccessFile raf = new RandomAccessFile(SNAPSHOT, "rw")) {
+            raf.seek(good.length / 2);
+            raf.write(good[good.length / 2] ^ 0x40);
+        }
+        assertThrows(IOException.class, () -> BinarySnapshot.read(SNAPSHOT));
+
+        Files.write(Path.of(SNAPSHOT), java.util.Arrays.copyOf(good, good.length - 3));
+        assertThrows(IOException.class, () -> BinarySnapshot.read(SNAPSHOT));
+
+        byte[] future = good.clone();
+        future[4] = BinarySnapshot.VERSION + 1;
+        Files.write(Path.of(SNAPSHOT), future);
+        IOException e = assertThrows(IOException.class, () -> BinarySnapshot.read(SNAPSHOT));
+        assertTrue(e.getMessage().contains("version"));
+
+        Files.writeString(Path.of(SNAPSHOT), "B1|Java|Gosling|1|1");
+        assertThrows(IOException.class, () -> BinarySnapshot.read(SNAPSHOT));
+    }
+
+    @Test
+    void testService_SaveAndLoadSnapshotExportsText() throws IOException {
+        LibraryService service = new LibraryService(null, new UserService(USERS_FILE, BORROWED_FILE));
+        service.addUser(new LibraryUser("alice", "pw", "a@x.com"));
+        service.addMedia(new Book("Java", "Gosling", "B1", 2));
+        service.borrowMedia(service.getUserByName("alice"), service.getMediaById("B1"));
+        assertTrue(service.saveSnapshot(SNAPSHOT));
+
+        service.addMedia(new CD("Later", "Someone", "C9", 1));
+        service.getUserByName("alice").getBorrowedMediaInternal().clear();
+        assertTrue(service.loadSnapshot(SNAPSHOT));
+        assertNull(service.getMediaById("C9"));
+        assertEquals(1, service.getMediaById("B1").getAvailableCopies());
+        assertEquals(1, service.getUserByName("alice").getBorrowedMediaInternal().size());
+        assertEquals(List.of("B1|Java|Gosling|2|1"), Files.readAllLines(Path.of("books.txt")));
+        assertTrue(Files.readAllLines(Path.of("cds.txt")).isEmpty());
+
+        LibraryService restarted = new LibraryService(null, new UserService(USERS_FILE, BORROWED_FILE));
+        assertEquals(1, restarted.getUserByName("alice").getBorrowedMediaInternal().size());
+        assertFalse(restarted.loadSnapshot("missing.snapshot"));
+    }
+}
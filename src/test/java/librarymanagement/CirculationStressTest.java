@@ -0,0 +1,163 @@
+package librarymanagement;
+
+import librarymanagement.application.LibraryService;
+import librarymanagement.application.SearchRanking;
+import librarymanagement.domain.*;
+import librarymanagement.persistence.TextFineRepository;
+import librarymanagement.persistence.TextMediaRepository;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CirculationStressTest {
+
+    private static final int THREADS = 8;
+
+    private Path dir;
+    private LibraryService service;
+
+    @BeforeEach
+    void setup() throws IOException {
+        dir = Files.createTempDirectory("stress");
+        UserService userService = new UserService(dir.resolve("users.txt").toString(),
+                dir.resolve("borrowed.txt").toString());
+        service = new LibraryService(null, userService,
+                new TextMediaRepository(dir.resolve("books.txt").toString(), dir.resolve("cds.txt").toString()),
+                new TextFineRepository(dir.resolve("fines.txt").toString()),
+                dir.resolve("library.journal").toString(), ForkJoinPool.commonPool());
+        service.setJournalCompactionThreshold(200);
+        service.setGroupCommit(5, 64);
+        for (int i = 0; i < THREADS * 4; i++) service.addUser(new LibraryUser("user" + i, "pw", ""));
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        service.flushJournal();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(p -> p.toFile().delete());
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    private static void race(int threads, Worker worker) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> running = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    worker.run(id);
+                } catch (Throwable e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                }
+            });
+            running.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : running) thread.join();
+        if (!errors.isEmpty()) throw new AssertionError(errors.get(0));
+    }
+
+    private interface Worker {
+        void run(int thread) throws Exception;
+    }
+
+    private long openLoans(Media media) {
+        return service.getUsers().stream()
+                .flatMap(u -> u.getBorrowedMediaInternal().stream())
+                .filter(bm -> bm.getMedia() == media && !bm.isReturned())
+                .count();
+    }
+
+    @Test
+    void testLastCopies_AreNeverOversubscribed() throws InterruptedException {
+        for (int round = 0; round < 50; round++) {
+            Book book = new Book("Hot " + round, "Author", "HOT" + round, 3);
+            service.addMedia(book);
+            AtomicInteger wins = new AtomicInteger();
+            race(THREADS, t -> {
+                for (int u = t; u < THREADS * 4; u += THREADS) {
+                    if (service.borrowMedia(service.getUserByName("user" + u), book)) wins.incrementAndGet();
+                }
+            });
+            assertEquals(3, wins.get(), "round " + round);
+            assertEquals(0, book.getAvailableCopies());
+            assertEquals(3, openLoans(book));
+            for (LibraryUser user : service.getUsers()) {
+                for (BorrowedMedia bm : user.getBorrowedMedia()) {
+                    if (bm.getMedia() == book) service.returnMedia(user, bm);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testBorrowReturnAndPayFine_KeepCopiesConsistent() throws InterruptedException {
+        List<Media> shelf = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Media media = i % 2 == 0 ? new Book("Book " + i, "A", "B" + i, 2) : new CD("CD " + i, "B", "C" + i, 2);
+            service.addMedia(media);
+            shelf.add(media);
+        }
+        race(THREADS, t -> {
+            for (int op = 0; op < 400; op++) {
+                LibraryUser user = service.getUserByName("user" + (t + THREADS * (op % 4)));
+                Media media = shelf.get((t + op) % shelf.size());
+                if (service.borrowMedia(user, media)) {
+                    BorrowedMedia loan = null;
+                    for (BorrowedMedia bm : user.getBorrowedMedia()) {
+                        if (bm.getMedia() == media && !bm.isReturned()) loan = bm;
+                    }
+                    service.payFine(user, 1.0);
+                    service.returnMedia(user, loan);
+                    service.returnMedia(user, loan);
+                }
+            }
+        });
+        for (Media media : shelf) {
+            assertEquals(media.getTotalCopies(), media.getAvailableCopies() + openLoans(media), media.getId());
+            assertEquals(media.getTotalCopies(), media.getAvailableCopies(), media.getId());
+        }
+    }
+
+    @Test
+    void testSearches_WhileMediaIsAddedAndDeleted() throws InterruptedException {
+        Book kept = new Book("Steady Shelf", "Keeper", "KEEP", 1);
+        service.addMedia(kept);
+        race(THREADS, t -> {
+            if (t == 0) {
+                for (int i = 0; i < 300; i++) {
+                    Media media = i % 2 == 0 ? new Book("Shelf " + i, "Writer", "S" + i, 1) : new CD("Shelf " + i, "Band", "S" + i, 1);
+                    assertTrue(service.addMedia(media));
+                    if (i % 3 != 0) assertTrue(service.deleteMedia(media.getId()));
+                }
+                return;
+            }
+            for (int op = 0; op < 500; op++) {
+                assertTrue(service.searchMedia("shelf").contains(kept));
+                assertTrue(service.searchMedia("steady", SearchRanking.RELEVANCE, 0, 5).getResults().contains(kept));
+                assertTrue(service.searchMediaFuzzy("shelv", 1).contains(kept));
+                assertTrue(service.autocomplete("ste", 5).contains("Steady Shelf"));
+                assertSame(kept, service.getMediaById("KEEP"));
+                service.getAvailableMedia();
+            }
+        });
+        assertEquals(101, service.getAllMedia().size());
+        assertEquals(101, service.searchMedia("shelf").size());
+    }
+}
@@ -2,10 +2,20 @@ package librarymanagement;
 
 import librarymanagement.application.EmailService;
 import org.junit.jupiter.api.*;
+
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
 import java.io.File;
 import java.io.FileWriter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -22,8 +32,10 @@ class EmailServiceTest {
         public void setSimulateAuthFail(boolean value) { simulateAuthFail = value; }
 
         @Override
-        public void sendEmail(String toEmail, String subject, String message) {
-            if (toEmail == null || toEmail.trim().isEmpty() || !toEmail.contains("@")) return;
+        public CompletableFuture<Void> sendEmail(String toEmail, String subject, String message) {
+            if (toEmail == null || toEmail.trim().isEmpty() || !toEmail.contains("@")) {
+                return CompletableFuture.completedFuture(null);
+            }
 
             if (simulateNoCredentials) System.out.println("SMTP credentials missing → Email only printed in console");
 
@@ -32,6 +44,7 @@ class EmailServiceTest {
 
             if (simulateAuthFail) System.out.println("Authentication failed! Wrong email or App Password.");
             if (simulateMessagingException) System.out.println("Failed to send email: MessagingException simulated");
+            return CompletableFuture.completedFuture(null);
         }
 
         @Override
@@ -277,5 +290,134 @@ class EmailServiceTest {
         file.delete();
     }
 
+    private static EmailService queuedService(int workers, int capacity, CountDownLatch gate, List<String> delivered) {
+        return new EmailService("library@example.com", "secret", workers, capacity, 50) {
+            @Override
+            protected void deliver(String toEmail, String subject, String message) throws MessagingException {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    throw new MessagingException("interrupted");
+                }
+                if (toEmail.startsWith("bounce")) throw new MessagingException("Mailbox unavailable");
+                delivered.add(Thread.currentThread().getName() + ":" + toEmail);
+            }
+        };
+    }
+
+    @Test
+    void testSendEmail_ReturnsHandleBeforeDelivery() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+        try (EmailService es = queuedService(2, 10, gate, delivered)) {
+            CompletableFuture<Void> sent = es.sendEmail("user@example.com", "Reminder", "Body");
+            CompletableFuture<Void> bounced = es.sendEmail("bounce@example.com", "Reminder", "Body");
+            assertFalse(sent.isDone());
+            assertEquals(2, es.getSentMessages().size());
+            gate.countDown();
+            sent.get(5, TimeUnit.SECONDS);
+            ExecutionException e = assertThrows(ExecutionException.class, () -> bounced.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(MessagingException.class, e.getCause());
+            assertTrue(delivered.get(0).startsWith("mail-sender-"));
+            assertTrue(es.sendEmail("invalid", "Sub", "Body").isCompletedExceptionally());
+        }
+    }
+
+    @Test
+    void testSendEmail_FullQueueFailsAfterTimeout() {
+        CountDownLatch gate = new CountDownLatch(1);
+        List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+        try (EmailService es = queuedService(1, 1, gate, delivered)) {
+            CompletableFuture<Void> first = es.sendEmail("a@example.com", "1", "Body");
+            CompletableFuture<Void> second = es.sendEmail("b@example.com", "2", "Body");
+            CompletableFuture<Void> third = es.sendEmail("c@example.com", "3", "Body");
+            ExecutionException e = assertThrows(ExecutionException.class, third::get);
+            assertInstanceOf(RejectedExecutionException.class, e.getCause());
+            gate.countDown();
+            first.join();
+            second.join();
+        }
+        assertEquals(2, delivered.size());
+    }
+
+    @Test
+    void testClose_DrainsQueuedMailAndRejectsNewMail() {
+        CountDownLatch gate = new CountDownLatch(0);
+        List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+        EmailService es = queuedService(2, 100, gate, delivered);
+        List<CompletableFuture<Void>> handles = new ArrayList<>();
+        for (int i = 0; i < 50; i++) handles.add(es.sendEmail("user" + i + "@example.com", "Sub", "Body"));
+        es.close();
+        assertEquals(50, delivered.size());
+        assertTrue(handles.stream().allMatch(h -> h.isDone() && !h.isCompletedExceptionally()));
+        assertEquals(0, es.getQueuedCount());
+        assertTrue(es.sendEmail("late@example.com", "Sub", "Body").isCompletedExceptionally());
+        assertThrows(IllegalArgumentException.class, () -> new EmailService("a@b.c", "pw", 0, 10, 10));
+    }
+
+    @Test
+    void testWorker_ReusesOneSmtpConnection() throws Exception {
+        try (SmtpStub smtp = new SmtpStub(0)) {
+            List<CompletableFuture<Void>> handles = new ArrayList<>();
+            try (EmailService es = new EmailService("library@example.com", "secret", smtp.properties(), 1, 100, 1000)) {
+                for (int i = 0; i < 20; i++) handles.add(es.sendEmail("user" + i + "@example.com", "Sub", "Body"));
+                CompletableFuture<Void> bounced = es.sendEmail("bounce@example.com", "Sub", "Body");
+                handles.forEach(CompletableFuture::join);
+                ExecutionException e = assertThrows(ExecutionException.class, () -> bounced.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(SendFailedException.class, e.getCause());
+                es.sendEmail("late@example.com", "Sub", "Body").get(5, TimeUnit.SECONDS);
+                assertEquals(1, es.getConnectionsOpened());
+            }
+            assertEquals(21, smtp.getMessages());
+            assertEquals(1, smtp.getConnections());
+        }
+    }
+
+    @Test
+    void testWorker_ReconnectsAfterDropAndIdleTimeout() throws Exception {
+        try (SmtpStub smtp = new SmtpStub(0)) {
+            smtp.setDropEvery(2);
+            try (EmailService es = new EmailService("library@example.com", "secret", smtp.properties(), 1, 100, 1000)) {
+                for (int i = 0; i < 5; i++) es.sendEmail("user" + i + "@example.com", "Sub", "Body").get(5, TimeUnit.SECONDS);
+                assertEquals(3, es.getConnectionsOpened());
+
+                smtp.setDropEvery(0);
+                es.setConnectionIdleTimeout(0);
+                for (int i = 0; i < 3; i++) es.sendEmail("idle" + i + "@example.com", "Sub", "Body").get(5, TimeUnit.SECONDS);
+                assertEquals(6, es.getConnectionsOpened());
+            }
+            assertEquals(8, smtp.getMessages());
+        }
+    }
 
+    @Test
+    void testWorker_ClosesConnectionWhenIdle() throws Exception {
+        try (SmtpStub smtp = new SmtpStub(0)) {
+            try (EmailService es = new EmailService("library@example.com", "secret", smtp.properties(), 2, 100, 1000)) {
+                es.setConnectionIdleTimeout(50);
+                es.sendEmail("user@example.com", "Sub", "Body").get(5, TimeUnit.SECONDS);
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (smtp.getOpenConnections() > 0 && System.nanoTime() < deadline) Thread.sleep(10);
+                assertEquals(0, smtp.getOpenConnections());
+
+                es.sendEmail("again@example.com", "Sub", "Body").get(5, TimeUnit.SECONDS);
+                assertEquals(2, es.getConnectionsOpened());
+            }
+            assertEquals(2, smtp.getMessages());
+        }
+    }
+
+    @Test
+    void testWorker_UnreachableServerFailsHandle() throws Exception {
+        Properties props;
+        try (SmtpStub smtp = new SmtpStub(0)) {
+            props = smtp.properties();
+        }
+        try (EmailService es = new EmailService("library@example.com", "secret", props, 1, 10, 1000)) {
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> es.sendEmail("user@example.com", "Sub", "Body").get(10, TimeUnit.SECONDS));
+            assertInstanceOf(MessagingException.class, e.getCause());
+            assertEquals(0, es.getConnectionsOpened());
+        }
+    }
 }
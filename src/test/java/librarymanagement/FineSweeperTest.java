@@ -0,0 +1,141 @@
+package librarymanagement;
+
+import librarymanagement.application.FineSweeper;
+import librarymanagement.application.LibraryService;
+import librarymanagement.domain.*;
+import librarymanagement.persistence.*;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FineSweeperTest {
+
+    private static final class SteppingClock extends Clock {
+        private Instant now;
+
+        SteppingClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration by) {
+            now = now.plus(by);
+        }
+
+        @Override public ZoneId getZone() { return ZoneId.systemDefault(); }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return now; }
+    }
+
+    private Path dir;
+    private LibraryService service;
+    private SteppingClock clock;
+    private LibraryUser alice;
+    private LibraryUser bob;
+
+    private String file(String name) {
+        return dir.resolve(name).toString();
+    }
+
+    @BeforeEach
+    void setup() throws IOException {
+        dir = Files.createTempDirectory("sweeper");
+        UserService userService = new UserService(new TextUserRepository(file("users.txt")),
+                new TextLoanRepository(file("borrowed.txt")));
+        service = new LibraryService(null, userService, new TextMediaRepository(file("books.txt"), file("cds.txt")),
+                new TextFineRepository(file("fines.txt")), file("library.journal"), ForkJoinPool.commonPool());
+        service.addMedia(new Book("Java", "Gosling", "B1", 2));
+        service.addMedia(new CD("Hits", "Queen", "C1", 2));
+        alice = new LibraryUser("alice", "pw", "a@mail.com");
+        bob = new LibraryUser("bob", "pw", "b@mail.com");
+        service.addUser(alice);
+        service.addUser(bob);
+        assertTrue(service.borrowMedia(alice, service.getMediaById("B1")));
+        assertTrue(service.borrowMedia(alice, service.getMediaById("C1")));
+        assertTrue(service.borrowMedia(bob, service.getMediaById("B1")));
+        clock = new SteppingClock(LocalDate.now().atTime(3, 0).atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        service.flushJournal();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(p -> p.toFile().delete());
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    @Test
+    void testDailySweeps_AccrueFinesAcrossSimulatedMonths() {
+        try (FineSweeper sweeper = new FineSweeper(service, clock, LocalTime.of(2, 0))) {
+            for (int day = 0; day < 60; day++) {
+                sweeper.runDue();
+                if (day == 8) {
+                    assertEquals(20, alice.getFineBalance());
+                    assertTrue(alice.isBlocked());
+                    assertEquals(0, bob.getFineBalance());
+                }
+                if (day == 30) {
+                    service.returnMedia(bob, bob.getBorrowedMediaInternal().get(0));
+                    service.payFine(bob, 20);
+                }
+                clock.advance(Duration.ofDays(1));
+            }
+            assertEquals(LocalDate.now().plusDays(59), sweeper.getLastSwept());
+            assertEquals(31 * 10 + 52 * 20, alice.getFineBalance());
+            assertEquals(310, alice.getBorrowedMediaInternal().get(0).getFine());
+            assertEquals(0, bob.getFineBalance());
+            assertFalse(bob.isBlocked());
+
+            assertEquals(Money.ofUnits(31 * 10 + 52 * 20), new TextFineRepository(file("fines.txt")).loadAll().get("alice"));
+            assertEquals(1, sweeper.runDue());
+            assertEquals(0, sweeper.runDue());
+        }
+    }
+
+    @Test
+    void testAccrueFines_NeverLowersAChargedFine() {
+        BorrowedMedia cd = alice.getBorrowedMediaInternal().get(1);
+        assertEquals(1, service.accrueFines(LocalDate.now().plusDays(12)));
+        assertEquals(Money.ofUnits(100), cd.getFineCents());
+
+        assertEquals(Money.ofUnits(60), cd.calculateFineCents(LocalDate.now().plusDays(10)));
+        assertEquals(0, service.accrueFines(LocalDate.now().plusDays(10)));
+        assertEquals(Money.ofUnits(100), cd.getFineCents());
+        assertEquals(Money.ofUnits(100), alice.getFineBalanceCents());
+        assertTrue(alice.isBlocked());
+        assertFalse(bob.isBlocked());
+    }
+
+    @Test
+    void testRunDue_WaitsForTheConfiguredTimeAndCatchesUp() {
+        try (FineSweeper sweeper = new FineSweeper(service, clock, LocalTime.of(4, 0))) {
+            sweeper.runDue();
+            assertEquals(LocalDate.now().minusDays(1), sweeper.getLastSwept());
+            clock.advance(Duration.ofDays(40));
+            assertEquals(2, sweeper.runDue());
+            assertEquals(LocalDate.now().plusDays(39), sweeper.getLastSwept());
+            assertEquals(11 * 10 + 32 * 20, alice.getFineBalance());
+            assertEquals(110, bob.getFineBalance());
+            assertEquals(0, sweeper.runDue());
+        }
+    }
+
+    @Test
+    void testStart_SchedulesTheNextSweep() throws InterruptedException {
+        Clock almost = Clock.fixed(LocalDate.now().atTime(1, 59, 59, 900_000_000)
+                .atZone(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault());
+        try (FineSweeper sweeper = new FineSweeper(service, almost, LocalTime.of(2, 0))) {
+            sweeper.start();
+            sweeper.start();
+            for (int i = 0; i < 100 && sweeper.getLastSwept() == null; i++) Thread.sleep(50);
+            assertEquals(LocalDate.now().minusDays(1), sweeper.getLastSwept());
+        }
+    }
+}
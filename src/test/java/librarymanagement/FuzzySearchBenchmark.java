@@ -0,0 +1,72 @@
+package librarymanagement;
+
+import librarymanagement.application.FuzzySearchIndex;
+import librarymanagement.application.MediaCatalog;
+import librarymanagement.domain.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares FuzzySearchIndex with the contains scan behind searchMedia on misspelled author queries.
+ * <pre>java -Xmx4g -cp target/classes:target/test-classes librarymanagement.FuzzySearchBenchmark [titles]</pre>
+ */
+public class FuzzySearchBenchmark {
+
+    private static final String[] SYLLABLES = {"go", "sl", "ing", "ma", "ber", "ko", "tan", "ri", "vel", "do",
+            "son", "la", "mer", "chi", "ta", "ne", "bro", "wen", "ka", "lo"};
+
+    public static void main(String[] args) {
+        int titles = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        Random random = new Random(7);
+        MediaCatalog catalog = new MediaCatalog();
+        FuzzySearchIndex index = new FuzzySearchIndex();
+        catalog.addIndex(index);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < titles; i++) {
+            catalog.add(new Book(word(random) + " " + word(random), word(random) + " " + word(random), "B" + i, 1));
+        }
+        System.out.printf("indexed %d titles, %d distinct words in %d ms%n",
+                titles, index.vocabularySize(), (System.nanoTime() - start) / 1_000_000);
+
+        String[] queries = {"gosleng", "maberkko", "tanrivell", "dosonla"};
+        for (String q : queries) {
+            int rounds = 50;
+            index.search(q, 2);
+            start = System.nanoTime();
+            int hits = 0;
+            for (int r = 0; r < rounds; r++) hits = index.search(q, 2).size();
+            long fuzzyUs = (System.nanoTime() - start) / rounds / 1_000;
+
+            start = System.nanoTime();
+            int scanHits = 0;
+            for (int r = 0; r < rounds; r++) scanHits = containsScan(catalog, q).size();
+            long scanUs = (System.nanoTime() - start) / rounds / 1_000;
+
+            System.out.printf("%-11s fuzzy hits=%-5d %7d us   contains scan hits=%-3d %7d us%n",
+                    "\"" + q + "\"", hits, fuzzyUs, scanHits, scanUs);
+        }
+    }
+
+    private static String word(Random random) {
+        int parts = 2 + random.nextInt(3);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < parts; i++) sb.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        sb.setCharAt(0, Character.toUpperCase(sb.charAt(0)));
+        return sb.toString();
+    }
+
+    private static List<Media> containsScan(List<Media> catalog, String keyword) {
+        List<Media> results = new ArrayList<>();
+        String lower = keyword.toLowerCase().trim();
+        for (Media m : catalog) {
+            if (m.getId().toLowerCase().contains(lower) || m.getTitle().toLowerCase().contains(lower)
+                    || m.getAuthor().toLowerCase().contains(lower)) {
+                results.add(m);
+            }
+        }
+        return results;
+    }
+}
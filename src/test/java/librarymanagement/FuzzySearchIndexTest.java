@@ -0,0 +1,87 @@
+package librarymanagement;
+
+import librarymanagement.application.FuzzySearchIndex;
+import librarymanagement.application.MediaCatalog;
+import librarymanagement.domain.*;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FuzzySearchIndexTest {
+
+    private MediaCatalog catalog;
+    private FuzzySearchIndex index;
+    private Book java;
+    private Book clean;
+
+    @BeforeEach
+    void setup() {
+        catalog = new MediaCatalog();
+        index = new FuzzySearchIndex();
+        catalog.addIndex(index);
+        java = new Book("Java Programming", "James Gosling", "B1", 1);
+        clean = new Book("Clean Code", "Robert Martin", "B2", 1);
+        catalog.add(java);
+        catalog.add(clean);
+        catalog.add(new CD("Greatest Hits", "Queen", "C1", 1));
+    }
+
+    @Test
+    void testSearch_MisspelledAuthor() {
+        assertEquals(List.of(java), index.search("Gosleng", 1));
+        assertEquals(List.of(java), index.search("gosliiing", 2));
+        assertTrue(index.search("gosliiing", 1).isEmpty());
+        assertEquals(List.of(clean), index.search("Robret", 2));
+    }
+
+    @Test
+    void testSearch_AllWordsMustMatch() {
+        assertEquals(List.of(clean), index.search("clen code", 1));
+        assertTrue(index.search("clean java", 2).isEmpty());
+    }
+
+    @Test
+    void testSearch_ShortWordsMatchExactly() {
+        assertTrue(index.search("hit", 2).isEmpty());
+        assertEquals(1, index.search("hits", 2).size());
+        assertEquals(1, index.search("hots", 2).size());
+    }
+
+    @Test
+    void testSearch_RanksCloserMatchesFirst() {
+        Book exact = new Book("Martin Eden", "London", "B3", 1);
+        catalog.add(exact);
+        Book far = new Book("Martini Recipes", "Bar", "B4", 1);
+        catalog.add(far);
+        assertEquals(List.of(clean, exact, far), index.search("martin", 2));
+    }
+
+    @Test
+    void testSearch_InvalidInputAndDistanceClamp() {
+        assertTrue(index.search(null, 2).isEmpty());
+        assertTrue(index.search("  ", 2).isEmpty());
+        assertTrue(index.search("gosleng", 0).isEmpty());
+        assertEquals(List.of(java), index.search("gosliiing", 9));
+    }
+
+    @Test
+    void testSearch_FollowsEditsAndDeletes() {
+        java.setAuthor("Joshua Bloch");
+        assertTrue(index.search("gosling", 0).isEmpty());
+        assertEquals(List.of(java), index.search("blosh", 1));
+
+        catalog.removeById("B1");
+        assertTrue(index.search("bloch", 0).isEmpty());
+
+        int before = index.vocabularySize();
+        catalog.add(new Book("Code Code", "Code", "B5", 1));
+        catalog.removeById("B5");
+        assertEquals(before, index.vocabularySize());
+        assertEquals(List.of(clean), index.search("code", 0));
+
+        catalog.clear();
+        assertEquals(0, index.vocabularySize());
+    }
+}
@@ -0,0 +1,192 @@
+package librarymanagement;
+
+import librarymanagement.application.LibraryService;
+import librarymanagement.domain.*;
+import librarymanagement.persistence.TextFineRepository;
+import librarymanagement.persistence.TextMediaRepository;
+import librarymanagement.presentation.LibraryHttpServer;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test of the HTTP API: opens the given number of keep-alive connections, one virtual thread each, and once
+ * all are connected every connection issues a mix of search, user lookup and borrow/return requests as a kiosk. Reports
+ * p50/p99/max latency and throughput. Without a target the server runs in the same process, which then needs two
+ * descriptors per connection; otherwise start it separately with {@code serve}.
+ * <pre>java -cp target/classes:target/test-classes librarymanagement.HttpLoadBenchmark serve [port] [users]
+ * java -cp target/classes:target/test-classes librarymanagement.HttpLoadBenchmark [connections] [requests] [host:port]</pre>
+ */
+public class HttpLoadBenchmark {
+
+    private static final int CATALOG = 20_000;
+    private static final String KIOSK_TOKEN = "benchmark-kiosk";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("serve")) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+            int users = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+            LibraryHttpServer server = serve(port, users);
+            System.out.println("Serving " + users + " users on port " + server.getPort());
+            return;
+        }
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        LibraryHttpServer local = null;
+        String host = "localhost";
+        int port;
+        if (args.length > 2) {
+            host = args[2].substring(0, args[2].indexOf(':'));
+            port = Integer.parseInt(args[2].substring(args[2].indexOf(':') + 1));
+        } else {
+            local = serve(0, connections);
+            port = local.getPort();
+        }
+        run(host, port, connections, requests);
+        if (local != null) local.stop();
+    }
+
+    private static LibraryHttpServer serve(int port, int users) throws IOException {
+        Path dir = Files.createTempDirectory("http-bench");
+        dir.toFile().deleteOnExit();
+        UserService userService = new UserService(dir.resolve("users.txt").toString(), dir.resolve("borrowed.txt").toString());
+        LibraryService service = new LibraryService(null, userService,
+                new TextMediaRepository(dir.resolve("books.txt").toString(), dir.resolve("cds.txt").toString()),
+                new TextFineRepository(dir.resolve("fines.txt").toString()),
+                dir.resolve("library.journal").toString(), ForkJoinPool.commonPool());
+        for (int i = 0; i < CATALOG; i++) service.addMedia(new Book("Title " + i, "Author " + (i % 500), "B" + i, 5));
+        for (int i = 0; i < users; i++) service.addUser(new LibraryUser("user" + i, "pw", "user" + i + "@mail.com"));
+        LibraryHttpServer server = new LibraryHttpServer(service, userService, port, users);
+        server.setKioskToken(KIOSK_TOKEN);
+        server.start();
+        return server;
+    }
+
+    private static void run(String host, int port, int connections, int requests) throws Exception {
+        try (Socket socket = new Socket(host, port)) {
+            OutputStream out = socket.getOutputStream();
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            for (int r = 0; r < 400; r++) {
+                out.write(request(0, r).getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                readResponse(in);
+            }
+        }
+
+        long[][] latencies = new long[connections][];
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch connected = new CountDownLatch(connections);
+        CountDownLatch go = new CountDownLatch(1);
+        long start;
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < connections; c++) {
+                int id = c;
+                clients.submit(() -> {
+                    long[] samples = new long[requests];
+                    latencies[id] = samples;
+                    try (Socket socket = new Socket()) {
+                        socket.connect(new InetSocketAddress(host, port), 60_000);
+                        connected.countDown();
+                        go.await();
+                        OutputStream out = socket.getOutputStream();
+                        InputStream in = new BufferedInputStream(socket.getInputStream());
+                        for (int r = 0; r < requests; r++) {
+                            String request = request(id, r);
+                            long t0 = System.nanoTime();
+                            out.write(request.getBytes(StandardCharsets.US_ASCII));
+                            out.flush();
+                            int status = readResponse(in);
+                            samples[r] = System.nanoTime() - t0;
+                            if (status >= 500) failures.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        connected.countDown();
+                        if (failures.incrementAndGet() == 1) e.printStackTrace();
+                        Arrays.fill(samples, -1);
+                    }
+                    return null;
+                });
+            }
+            connected.await();
+            System.out.println(connections + " connections open");
+            start = System.nanoTime();
+            go.countDown();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        List<Long> all = new ArrayList<>(connections * requests);
+        for (long[] samples : latencies) {
+            for (long s : samples) if (s >= 0) all.add(s);
+        }
+        long[] sorted = all.stream().mapToLong(Long::longValue).sorted().toArray();
+        System.out.printf("requests=%d failures=%d throughput=%.0f req/s%n", sorted.length, failures.get(),
+                sorted.length / (elapsed / 1e9));
+        if (sorted.length > 0) {
+            System.out.printf("p50=%.2f ms p99=%.2f ms max=%.2f ms%n", percentile(sorted, 0.50) / 1e6,
+                    percentile(sorted, 0.99) / 1e6, sorted[sorted.length - 1] / 1e6);
+        }
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    private static String request(int connection, int r) {
+        String user = "user" + connection;
+        String media = "B" + ((connection * 31 + r / 4) % CATALOG);
+        return switch (r % 4) {
+            case 0 -> get("/api/search?q=title+" + (connection % 1000) + "&limit=10");
+            case 1 -> post("/api/borrow", "user=" + user + "&media=" + media);
+            case 2 -> get("/api/users/" + user);
+            default -> post("/api/return", "user=" + user + "&media=" + media);
+        };
+    }
+
+    private static String get(String path) {
+        return "GET " + path + " HTTP/1.1\r\nHost: localhost\r\nAuthorization: Bearer " + KIOSK_TOKEN + "\r\n\r\n";
+    }
+
+    private static String post(String path, String form) {
+        return "POST " + path + " HTTP/1.1\r\nHost: localhost\r\nAuthorization: Bearer " + KIOSK_TOKEN + "\r\n"
+                + "Content-Type: application/x-www-form-urlencoded\r\n"
+                + "Content-Length: " + form.length() + "\r\n\r\n" + form;
+    }
+
+    private static int readResponse(InputStream in) throws IOException {
+        String statusLine = readLine(in);
+        int status = Integer.parseInt(statusLine.split(" ")[1]);
+        int length = 0;
+        for (String line = readLine(in); !line.isEmpty(); line = readLine(in)) {
+            int colon = line.indexOf(':');
+            if (colon > 0 && line.substring(0, colon).equalsIgnoreCase("Content-Length")) {
+                length = Integer.parseInt(line.substring(colon + 1).trim());
+            }
+        }
+        in.skipNBytes(length);
+        return status;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int b = in.read(); b != '\n'; b = in.read()) {
+            if (b < 0) throw new IOException("Connection closed");
+            if (b != '\r') line.append((char) b);
+        }
+        return line.toString();
+    }
+}
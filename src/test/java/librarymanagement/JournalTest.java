@@ -0,0 +1,299 @@
+package librarymanagement;
+
+import librarymanagement.application.LibraryService;
+import librarymanagement.domain.*;
+import librarymanagement.persistence.Journal;
+import librarymanagement.persistence.TextFineRepository;
+import librarymanagement.persistence.TextLoanRepository;
+import librarymanagement.persistence.TextMediaRepository;
+import org.junit.jupiter.api.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalTest {
+
+    private static final String USERS_FILE = "test_journal_users.txt";
+    private static final String BORROWED_FILE = "test_journal_borrowed.txt";
+    private static final String JOURNAL_FILE = "test_journal_borrowed.journal";
+    private static final String BLOCKED = "test_journal_blocked";
+
+    @BeforeEach
+    void setup() {
+        cleanup();
+    }
+
+    @AfterEach
+    void cleanup() {
+        new File(USERS_FILE).delete();
+        new File(BORROWED_FILE).delete();
+        new File(JOURNAL_FILE).delete();
+        new File("test_plain.journal").delete();
+        new File(BLOCKED).delete();
+        new File("books.txt").delete();
+        new File("cds.txt").delete();
+        new File("users_fines.txt").delete();
+    }
+
+    private LibraryService restart() {
+        UserService users = new UserService(USERS_FILE, BORROWED_FILE);
+        return new LibraryService(null, users);
+    }
+
+    @Test
+    void testAppendReadAndReset() {
+        Journal journal = new Journal("test_plain.journal", false);
+        journal.append("BORROW", "alice", 0, "B1");
+        journal.append("FINE", "alice", 2.5, true);
+
+        List<String[]> entries = new Journal("test_plain.journal", false).readAll();
+        assertEquals(2, entries.size());
+        assertArrayEquals(new String[]{"BORROW", "alice", "0", "B1"}, entries.get(0));
+        assertEquals(2, journal.size());
+
+        journal.reset();
+        assertEquals(0, journal.size());
+        assertTrue(journal.readAll().isEmpty());
+    }
+
+    @Test
+    void testFieldsWithSeparatorsAndLineBreaks_RoundTrip() {
+        Journal journal = new Journal("test_plain.journal", false);
+        journal.append("ADD_MEDIA", "BOOK", "B1", "A|B\nC", "back\\slash\r", 1, 1);
+        journal.append("DELETE_MEDIA", "B1");
+
+        List<String[]> entries = new Journal("test_plain.journal", false).readAll();
+        assertEquals(2, entries.size());
+        assertArrayEquals(new String[]{"ADD_MEDIA", "BOOK", "B1", "A|B\nC", "back\\slash\r", "1", "1"}, entries.get(0));
+        assertArrayEquals(new String[]{"DELETE_MEDIA", "B1"}, entries.get(1));
+    }
+
+    @Test
+    void testRestartReplaysTitleWithSeparators() {
+        LibraryService service = restart();
+        service.addMedia(new Book("A|B\nC", "Smith|Jones", "B1", 2));
+
+        Media replayed = restart().getMediaById("B1");
+        assertNotNull(replayed);
+        assertEquals("A|B\nC", replayed.getTitle());
+        assertEquals("Smith|Jones", replayed.getAuthor());
+        assertEquals(2, replayed.getTotalCopies());
+    }
+
+    @Test
+    void testTornLastEntryIsDropped() throws IOException {
+        Journal journal = new Journal("test_plain.journal", false);
+        journal.append("DELETE_MEDIA", "B1");
+        Files.writeString(Path.of("test_plain.journal"), "DELETE_ME", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        Journal reopened = new Journal("test_plain.journal", false);
+        assertEquals(1, reopened.size());
+        reopened.append("DELETE_MEDIA", "B2");
+        assertEquals("B2", reopened.readAll().get(1)[1]);
+    }
+
+    @Test
+    void testBorrowAppendsInsteadOfRewritingSnapshots() throws IOException {
+        LibraryService service = restart();
+        service.addUser(new LibraryUser("alice", "pw", "a@x.com"));
+        service.addMedia(new Book("Java", "Gosling", "B1", 2));
+        service.compactJournal();
+        String books = Files.readString(Path.of("books.txt"));
+
+        LibraryUser alice = service.getUserByName("alice");
+        assertTrue(service.borrowMedia(alice, service.getMediaById("B1")));
+
+        assertEquals(books, Files.readString(Path.of("books.txt")));
+        assertEquals(1, Files.readAllLines(Path.of(JOURNAL_FILE)).size());
+    }
+
+    @Test
+    void testJournalFile_FollowsLoanFile() throws IOException {
+        assertEquals(JOURNAL_FILE, new UserService(USERS_FILE, BORROWED_FILE).getJournalFile());
+        assertEquals("data" + File.separator + "loans.journal",
+                new TextLoanRepository("data" + File.separator + "loans").getJournalFile());
+        assertNull(new TextLoanRepository(null).getJournalFile());
+
+        LibraryService service = new LibraryService(null, new UserService(USERS_FILE, null));
+        service.addUser(new LibraryUser("alice", "pw", "a@x.com"));
+        service.addMedia(new Book("Java", "Gosling", "B1", 2));
+        assertTrue(service.borrowMedia(service.getUserByName("alice"), service.getMediaById("B1")));
+
+        assertTrue(Files.readString(Path.of("books.txt")).contains("B1|Java|Gosling|2|1"));
+        assertFalse(new File(JOURNAL_FILE).exists());
+    }
+
+    @Test
+    void testRestartReplaysJournalAndCompacts() {
+        LibraryService service = restart();
+        service.addUser(new LibraryUser("alice", "pw", "a@x.com"));
+        service.addMedia(new Book("Java", "Gosling", "B1", 2));
+        service.addMedia(new CD("Hits", "Queen", "C1", 1));
+        service.addMedia(new Book("Old", "Nobody", "B2", 1));
+        service.deleteMedia("B2");
+        LibraryUser alice = service.getUserByName("alice");
+        service.borrowMedia(alice, service.getMediaById("B1"));
+        service.borrowMedia(alice, service.getMediaById("C1"));
+        service.returnMedia(alice, alice.getBorrowedMediaInternal().get(1));
+
+        LibraryService reloaded = restart();
+        assertFalse(new File(JOURNAL_FILE).exists());
+        assertNull(reloaded.getMediaById("B2"));
+        assertEquals(1, reloaded.getMediaById("B1").getAvailableCopies());
+        assertEquals(1, reloaded.getMediaById("C1").getAvailableCopies());
+        List<BorrowedMedia> loans = reloaded.getUserByName("alice").getBorrowedMediaInternal();
+        assertEquals(2, loans.size());
+        assertFalse(loans.get(0).isReturned());
+        assertTrue(loans.get(1).isReturned());
+
+        LibraryService again = restart();
+        assertEquals(2, again.getUserByName("alice").getBorrowedMediaInternal().size());
+        assertEquals(1, again.getMediaById("B1").getAvailableCopies());
+    }
+
+    @Test
+    void testRestartReplaysFinesAndPayments() throws Exception {
+        LibraryService service = restart();
+        service.addUser(new LibraryUser("bob", "pw", "b@x.com"));
+        service.addMedia(new Book("Java", "Gosling", "B1", 1));
+        LibraryUser bob = service.getUserByName("bob");
+        service.borrowMedia(bob, service.getMediaById("B1"));
+        bob.getBorrowedMediaInternal().get(0).setDueDate(LocalDate.now().minusDays(4));
+        service.checkOverdueMedia(bob);
+        double fine = bob.getFineBalance();
+        assertTrue(fine > 0);
+
+        LibraryUser reloaded = restart().getUserByName("bob");
+        assertEquals(fine, reloaded.getFineBalance(), 0.001);
+        assertTrue(reloaded.isBlocked());
+        assertTrue(reloaded.getBorrowedMediaInternal().get(0).isFineAdded());
+
+        LibraryService current = restart();
+        LibraryUser payer = current.getUserByName("bob");
+        current.returnMedia(payer, payer.getBorrowedMediaInternal().get(0));
+        current.payFine(payer, fine);
+        LibraryUser paid = restart().getUserByName("bob");
+        assertEquals(0.0, paid.getFineBalance(), 0.001);
+        assertFalse(paid.isBlocked());
+    }
+
+    @Test
+    void testFailedSaveKeepsJournalForReplay() throws IOException {
+        Files.writeString(Path.of(BLOCKED), "not a directory");
+        LibraryService service = new LibraryService(null, new UserService(USERS_FILE, BORROWED_FILE),
+                new TextMediaRepository("books.txt", "cds.txt"), new TextFineRepository(BLOCKED + "/fines.txt"),
+                JOURNAL_FILE, ForkJoinPool.commonPool());
+        service.addUser(new LibraryUser("alice", "pw", "a@x.com"));
+        service.addMedia(new Book("Java", "Gosling", "B1", 1));
+        LibraryUser alice = service.getUserByName("alice");
+        assertTrue(service.borrowMedia(alice, service.getMediaById("B1")));
+
+        assertFalse(service.compactJournal());
+        assertEquals(2, Files.readAllLines(Path.of(JOURNAL_FILE)).size());
+
+        LibraryService reloaded = restart();
+        assertFalse(new File(JOURNAL_FILE).exists());
+        assertEquals(0, reloaded.getMediaById("B1").getAvailableCopies());
+        assertEquals(1, reloaded.getUserByName("alice").getBorrowedMediaInternal().size());
+    }
+
+    @Test
+    void testCompactionThreshold() {
+        LibraryService service = restart();
+        service.setJournalCompactionThreshold(3);
+        service.addMedia(new Book("A", "X", "B1", 1));
+        service.addMedia(new Book("B", "X", "B2", 1));
+        assertTrue(new File(JOURNAL_FILE).exists());
+        service.addMedia(new Book("C", "X", "B3", 1));
+        assertFalse(new File(JOURNAL_FILE).exists());
+        assertEquals(3, restart().getAllMedia().size());
+    }
+
+    @Test
+    void testCorruptEntriesAreSkipped() throws IOException {
+        Files.writeString(Path.of(JOURNAL_FILE),
+                "ADD_MEDIA|BOOK|B1|Java|Gosling|2|2\nBORROW|ghost|x\nUNKNOWN|1\nFINE|nobody|1.0|true\n");
+        LibraryService service = restart();
+        assertNotNull(service.getMediaById("B1"));
+        assertFalse(new File(JOURNAL_FILE).exists());
+    }
+
+    @Test
+    void testGroupCommit_FlushesWhenBatchIsFull() {
+        Journal journal = new Journal("test_plain.journal", false);
+        journal.setGroupCommit(60_000, 3);
+        CompletableFuture<Void> first = journal.append("DELETE_MEDIA", "B1");
+        CompletableFuture<Void> second = journal.append("DELETE_MEDIA", "B2");
+        assertFalse(first.isDone());
+        assertTrue(journal.readAll().isEmpty());
+        assertEquals(2, journal.size());
+
+        CompletableFuture<Void> third = journal.append("DELETE_MEDIA", "B3");
+        assertTrue(first.isDone() && second.isDone() && third.isDone());
+        assertEquals(3, journal.readAll().size());
+        journal.close();
+    }
+
+    @Test
+    void testGroupCommit_FlushesAfterMaxDelay() throws Exception {
+        Journal journal = new Journal("test_plain.journal", true);
+        journal.setGroupCommit(20, 1000);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int id = t;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 50; i++) {
+                    CompletableFuture<Void> f = journal.append("DELETE_MEDIA", id + "-" + i);
+                    synchronized (futures) {
+                        futures.add(f);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) thread.join();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        assertEquals(200, journal.readAll().size());
+        journal.close();
+        assertTrue(journal.append("DELETE_MEDIA", "late").isDone());
+    }
+
+    @Test
+    void testGroupCommit_ServiceExposesDurability() throws Exception {
+        LibraryService service = restart();
+        service.addUser(new LibraryUser("alice", "pw", "a@x.com"));
+        service.addMedia(new Book("Java", "Gosling", "B1", 1));
+        service.compactJournal();
+        service.setGroupCommit(60_000, 100);
+        LibraryUser alice = service.getUserByName("alice");
+        CompletableFuture<Boolean> borrow = service.borrowMediaAsync(alice, service.getMediaById("B1"));
+        assertFalse(borrow.isDone());
+        assertFalse(new File(JOURNAL_FILE).exists());
+
+        service.flushJournal();
+        assertTrue(borrow.get(5, TimeUnit.SECONDS));
+        assertFalse(service.borrowMediaAsync(alice, service.getMediaById("B1")).get(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> giveBack = service.returnMediaAsync(alice, alice.getBorrowedMediaInternal().get(0));
+        CompletableFuture<Void> payment = service.payFineCentsAsync(alice, 100);
+        assertFalse(giveBack.isDone());
+
+        service.close();
+        CompletableFuture.allOf(giveBack, payment).get(5, TimeUnit.SECONDS);
+        LibraryUser reloaded = restart().getUserByName("alice");
+        assertTrue(reloaded.getBorrowedMediaInternal().get(0).isReturned());
+    }
+}
@@ -0,0 +1,177 @@
+package librarymanagement;
+
+import librarymanagement.application.LibraryService;
+import librarymanagement.domain.*;
+import librarymanagement.persistence.TextFineRepository;
+import librarymanagement.persistence.TextMediaRepository;
+import librarymanagement.presentation.LibraryHttpServer;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LibraryHttpServerTest {
+
+    private static final String KIOSK = "kiosk-token";
+
+    private Path dir;
+    private LibraryService service;
+    private LibraryHttpServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void setup() throws IOException {
+        dir = Files.createTempDirectory("http");
+        UserService userService = new UserService(dir.resolve("users.txt").toString(),
+                dir.resolve("borrowed.txt").toString());
+        service = new LibraryService(null, userService,
+                new TextMediaRepository(dir.resolve("books.txt").toString(), dir.resolve("cds.txt").toString()),
+                new TextFineRepository(dir.resolve("fines.txt").toString()),
+                dir.resolve("library.journal").toString(), ForkJoinPool.commonPool());
+        service.addUser(new LibraryUser("alice", "secret", "alice@mail.com"));
+        service.addMedia(new Book("Clean \"Code\"", "Martin", "B1", 1));
+        service.addMedia(new CD("Code Songs", "Band", "C1", 2));
+        server = new LibraryHttpServer(service, userService, 0, 64);
+        server.setKioskToken(KIOSK);
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        server.stop();
+        client.close();
+        service.flushJournal();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(p -> p.toFile().delete());
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path));
+        return token == null ? request : request.header("Authorization", "Bearer " + token);
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return get(path, KIOSK);
+    }
+
+    private HttpResponse<String> get(String path, String token) throws Exception {
+        return client.send(request(path, token).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String form) throws Exception {
+        return post(path, form, KIOSK);
+    }
+
+    private HttpResponse<String> post(String path, String form, String token) throws Exception {
+        HttpRequest request = request(path, token).header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void testSearch_ReturnsPagedJson() throws Exception {
+        HttpResponse<String> response = get("/api/search?q=code&limit=1&ranking=catalog");
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("application/json"));
+        assertTrue(response.body().startsWith("{\"total\":2,\"offset\":0,\"next\":1,\"results\":[{\"id\":\"B1\""));
+        assertTrue(response.body().contains("\"title\":\"Clean \\\"Code\\\"\""));
+
+        assertTrue(get("/api/search?q=code&offset=1").body().contains("\"next\":null"));
+        assertEquals(400, get("/api/search").statusCode());
+        assertEquals(400, get("/api/search?q=code&limit=many").statusCode());
+        assertEquals(405, post("/api/search", "q=code").statusCode());
+    }
+
+    @Test
+    void testBorrowLookupAndReturn_GoThroughService() throws Exception {
+        HttpResponse<String> borrowed = post("/api/borrow", "user=alice&media=b1");
+        assertEquals(200, borrowed.statusCode());
+        assertTrue(borrowed.body().contains("\"availableCopies\":0"));
+        assertEquals(0, service.getMediaById("B1").getAvailableCopies());
+
+        assertEquals(409, post("/api/borrow", "user=alice&media=B1").statusCode());
+        assertEquals(404, post("/api/borrow", "user=bob&media=B1").statusCode());
+        assertEquals(404, post("/api/borrow", "user=alice&media=X9").statusCode());
+        assertEquals(400, post("/api/borrow", "user=alice").statusCode());
+
+        HttpResponse<String> user = get("/api/users/alice");
+        assertEquals(200, user.statusCode());
+        assertTrue(user.body().contains("\"email\":\"alice@mail.com\""));
+        assertTrue(user.body().contains("\"loans\":[{\"media\":{\"id\":\"B1\""));
+        assertFalse(user.body().contains("secret"));
+        assertEquals(404, get("/api/users/bob").statusCode());
+
+        assertEquals(200, post("/api/return", "user=alice&media=B1").statusCode());
+        assertEquals(1, service.getMediaById("B1").getAvailableCopies());
+        assertEquals(404, post("/api/return", "user=alice&media=B1").statusCode());
+        assertTrue(get("/api/users/alice").body().contains("\"loans\":[]"));
+        HttpResponse<String> history = get("/api/users/alice/history");
+        assertEquals(200, history.statusCode());
+        assertTrue(history.body().contains("\"returned\":true,\"fine\":0.00}"));
+        assertEquals(404, get("/api/users/bob/history").statusCode());
+    }
+
+    @Test
+    void testPayFine_ValidatesAmount() throws Exception {
+        LibraryUser alice = service.getUserByName("alice");
+        alice.setFineBalance(10);
+        HttpResponse<String> paid = post("/api/pay-fine?user=alice", "amount=4");
+        assertEquals(200, paid.statusCode());
+        assertTrue(paid.body().contains("\"fineBalance\":6.00"));
+        assertEquals(400, post("/api/pay-fine", "user=alice&amount=-1").statusCode());
+        assertEquals(400, post("/api/pay-fine", "user=alice&amount=ten").statusCode());
+        assertEquals(404, post("/api/pay-fine", "user=bob&amount=1").statusCode());
+        assertEquals(6.0, alice.getFineBalance());
+    }
+
+    @Test
+    void testEndpoints_RequireKioskTokenOrOwnSession() throws Exception {
+        service.addUser(new LibraryUser("bob", "pw", "bob@mail.com"));
+        assertEquals(200, get("/api/search?q=code", null).statusCode());
+        for (String path : new String[]{"/api/users/alice", "/api/users/alice/history"}) {
+            HttpResponse<String> anonymous = get(path, null);
+            assertEquals(401, anonymous.statusCode());
+            assertEquals("Bearer", anonymous.headers().firstValue("WWW-Authenticate").orElse(""));
+            assertEquals(401, get(path, "guess").statusCode());
+        }
+        for (String path : new String[]{"/api/borrow", "/api/return", "/api/pay-fine", "/api/logout"}) {
+            assertEquals(401, post(path, "user=alice&media=B1&amount=1", null).statusCode());
+        }
+        assertEquals(0, service.getUserByName("alice").getOpenLoanCount());
+
+        assertEquals(401, post("/api/login", "user=alice&password=wrong", null).statusCode());
+        assertEquals(400, post("/api/login", "user=alice", null).statusCode());
+        HttpResponse<String> login = post("/api/login", "user=ALICE&password=secret", null);
+        assertEquals(200, login.statusCode());
+        assertTrue(login.body().contains("\"account\":{\"name\":\"alice\""));
+        String token = login.body().substring(10, login.body().indexOf('"', 10));
+
+        assertEquals(200, post("/api/borrow", "user=alice&media=C1", token).statusCode());
+        assertEquals(200, get("/api/users/alice/history", token).statusCode());
+        assertEquals(403, get("/api/users/bob", token).statusCode());
+        assertEquals(403, get("/api/users/bob/history", token).statusCode());
+        assertEquals(403, get("/api/users/nobody", token).statusCode());
+        assertEquals(403, post("/api/borrow", "user=bob&media=C1", token).statusCode());
+        assertEquals(403, post("/api/return", "user=bob&media=C1", token).statusCode());
+        assertEquals(403, post("/api/pay-fine", "user=bob&amount=1", token).statusCode());
+        assertEquals(0, service.getUserByName("bob").getOpenLoanCount());
+        assertEquals(200, get("/api/users/bob").statusCode());
+
+        assertEquals(200, post("/api/logout", "", token).statusCode());
+        assertEquals(401, get("/api/users/alice", token).statusCode());
+        server.setKioskToken(null);
+        assertEquals(401, get("/api/users/alice").statusCode());
+    }
+}
@@ -12,6 +12,7 @@ import java.lang.reflect.Field;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -26,8 +27,9 @@ class LibraryServiceExtendedTest {
         emailService = new EmailService() {
             private final List<String> sentMessages = new ArrayList<>();
             @Override
-            public void sendEmail(String toEmail, String subject, String message) {
+            public CompletableFuture<Void> sendEmail(String toEmail, String subject, String message) {
                 sentMessages.add(message);
+                return CompletableFuture.completedFuture(null);
             }
             @Override
             public List<String> getSentMessages() {
@@ -38,8 +40,8 @@ class LibraryServiceExtendedTest {
 
         userService = new UserService("test_users.txt", null) {
             @Override public void loadBorrowedMedia() {}
-            @Override public void saveBorrowedMedia() {}
-            @Override public void saveUsers() {}
+            @Override public boolean saveBorrowedMedia() { return true; }
+            @Override public boolean saveUsers() { return true; }
         };
     }
 
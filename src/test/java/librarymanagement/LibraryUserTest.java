@@ -4,6 +4,7 @@ import librarymanagement.domain.*;
 import org.junit.jupiter.api.*;
 
 import java.time.LocalDate;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -296,4 +297,62 @@ public class LibraryUserTest {
         assertTrue(u.isBlocked());
     }
 
-}
\ No newline at end of file
+    @Test
+    void testOpenLoans_FollowReturnsAndListChanges() {
+        LibraryUser u = new LibraryUser("Test", "test@example.com");
+        Book book = new Book("Book", "Author", "B001", 3);
+        BorrowedMedia late = new BorrowedMedia(book, LocalDate.now().minusDays(20), LocalDate.now().minusDays(3));
+        BorrowedMedia onTime = new BorrowedMedia(book, LocalDate.now(), LocalDate.now().plusDays(5));
+        BorrowedMedia old = new BorrowedMedia(book, LocalDate.now().minusDays(90), LocalDate.now().minusDays(60));
+        old.setReturned(true);
+        u.getBorrowedMediaInternal().addAll(List.of(old, late, onTime));
+
+        assertEquals(2, u.getOpenLoanCount());
+        assertEquals(1, u.getOverdueLoanCount(LocalDate.now()));
+        assertEquals(late.getDueDate(), u.getEarliestOpenDueDate());
+        assertTrue(u.hasOverdueItems());
+
+        late.returnMedia();
+        assertEquals(List.of(onTime), u.getOpenLoans());
+        assertFalse(u.hasOverdueItems());
+        assertEquals(onTime.getDueDate(), u.getEarliestOpenDueDate());
+
+        late.setReturned(false);
+        assertEquals(2, u.getOpenLoanCount());
+        u.getBorrowedMediaInternal().remove(late);
+        u.getBorrowedMediaInternal().set(1, old);
+        assertEquals(0, u.getOpenLoanCount());
+        assertNull(u.getEarliestOpenDueDate());
+        u.getBorrowedMediaInternal().clear();
+        assertTrue(u.getOpenLoans().isEmpty());
+        assertEquals(0, u.getOverdueLoanCount(LocalDate.now()));
+    }
+
+    @Test
+    void testOverdueCounters_FollowDueDateChanges() {
+        LibraryUser u = new LibraryUser("Test", "test@example.com");
+        Book book = new Book("Book", "Author", "B001", 3);
+        LocalDate today = LocalDate.now();
+        BorrowedMedia first = new BorrowedMedia(book, today, today.plusDays(5));
+        BorrowedMedia second = new BorrowedMedia(book, today, today.plusDays(5));
+        u.getBorrowedMediaInternal().addAll(List.of(first, second));
+        assertEquals(0, u.getOverdueLoanCount(today));
+
+        first.setDueDate(today.minusDays(2));
+        assertEquals(1, u.getOverdueLoanCount(today));
+        assertEquals(today.minusDays(2), u.getEarliestOpenDueDate());
+        assertTrue(u.hasOverdueItems(today));
+        assertEquals(2, u.getOverdueLoanCount(today.plusDays(6)));
+
+        second.setDueDate(today.minusDays(1));
+        first.setDueDate(today.plusDays(1));
+        assertEquals(1, u.getOverdueLoanCount(today));
+        assertEquals(today.minusDays(1), u.getEarliestOpenDueDate());
+
+        second.returnMedia();
+        second.setDueDate(today.minusDays(9));
+        assertEquals(0, u.getOverdueLoanCount(today));
+        assertEquals(today.plusDays(1), u.getEarliestOpenDueDate());
+        assertFalse(u.hasOverdueItems(today));
+    }
+}
@@ -0,0 +1,70 @@
+package librarymanagement;
+
+import librarymanagement.domain.Money;
+import librarymanagement.persistence.MappedRecordReader;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+/**
+ * Compares the BufferedReader/split/LocalDate.parse loan loader with MappedRecordReader on a generated loan file,
+ * reporting time and bytes allocated by the loading thread.
+ * <pre>java -cp target/classes:target/test-classes librarymanagement.LoaderBenchmark [loans]</pre>
+ */
+public class LoaderBenchmark {
+
+    private static final String FILE = "loader_bench.txt";
+
+    public static void main(String[] args) throws IOException {
+        int loans = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        LocalDate base = LocalDate.of(2020, 1, 1);
+        try (PrintWriter pw = new PrintWriter(FILE)) {
+            for (int i = 0; i < loans; i++) {
+                LocalDate borrowed = base.plusDays(i % 1500);
+                pw.println("user" + (i / 10) + "|B" + (i % 100_000) + "|" + borrowed + "|" + borrowed.plusDays(14)
+                        + "|" + (i % 3 == 0) + "|" + (i % 5 == 0 ? "2.5" : "0.0"));
+            }
+        }
+        System.out.printf("%d loans, %d MB%n", loans, Files.size(Path.of(FILE)) >> 20);
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int round = 0; round < 3; round++) {
+            long alloc = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            long checksum = 0;
+            try (BufferedReader br = new BufferedReader(new FileReader(FILE))) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    String[] parts = line.split("\\|");
+                    if (parts.length < 5) continue;
+                    checksum += parts[0].length() + parts[1].length() + LocalDate.parse(parts[2]).toEpochDay()
+                            + LocalDate.parse(parts[3]).toEpochDay() + (Boolean.parseBoolean(parts[4]) ? 1 : 0)
+                            + Money.parse(parts[5]);
+                }
+            }
+            long readerMs = (System.nanoTime() - start) / 1_000_000;
+            long readerMb = (threads.getCurrentThreadAllocatedBytes() - alloc) >> 20;
+
+            long[] sum = {0};
+            alloc = threads.getCurrentThreadAllocatedBytes();
+            start = System.nanoTime();
+            MappedRecordReader.read(FILE, r -> {
+                if (r.size() < 5) return;
+                sum[0] += r.string(0).length() + r.string(1).length() + r.dateAt(2).toEpochDay()
+                        + r.dateAt(3).toEpochDay() + (r.booleanAt(4) ? 1 : 0) + r.centsAt(5);
+            });
+            long mappedMs = (System.nanoTime() - start) / 1_000_000;
+            long mappedMb = (threads.getCurrentThreadAllocatedBytes() - alloc) >> 20;
+
+            System.out.printf("BufferedReader+split: %5d ms %6d MB allocated   mapped: %5d ms %6d MB allocated   %s%n",
+                    readerMs, readerMb, mappedMs, mappedMb, checksum == sum[0] ? "same result" : "MISMATCH");
+        }
+        Files.deleteIfExists(Path.of(FILE));
+    }
+}
@@ -0,0 +1,189 @@
+package librarymanagement;
+
+import librarymanagement.application.LibraryService;
+import librarymanagement.domain.*;
+import librarymanagement.persistence.*;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoanArchiveTest {
+
+    private Path dir;
+
+    private String file(String name) {
+        return dir.resolve(name).toString();
+    }
+
+    @BeforeEach
+    void setup() throws IOException {
+        dir = Files.createTempDirectory("archive");
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private UserService users() {
+        return new UserService(new TextUserRepository(file("users.txt")), new TextLoanRepository(file("borrowed.txt")),
+                new LoanArchive(file("history")));
+    }
+
+    private LibraryService start(UserService userService) {
+        return new LibraryService(null, userService, new TextMediaRepository(file("books.txt"), file("cds.txt")),
+                new TextFineRepository(file("fines.txt")), file("library.journal"), ForkJoinPool.commonPool());
+    }
+
+    @Test
+    void testCompaction_MovesReturnedLoansToArchive() {
+        LibraryService service = start(users());
+        service.addUser(new LibraryUser("alice", "pw", "a@mail.com"));
+        service.addMedia(new Book("Java", "Gosling", "B1", 2));
+        service.addMedia(new CD("Hits", "Queen", "C1", 1));
+        LibraryUser alice = service.getUserByName("alice");
+        assertTrue(service.borrowMedia(alice, service.getMediaById("B1")));
+        assertTrue(service.borrowMedia(alice, service.getMediaById("C1")));
+        service.returnMedia(alice, alice.getBorrowedMediaInternal().get(0));
+        assertEquals(2, alice.getBorrowedMediaInternal().size());
+
+        service.compactJournal();
+        assertEquals(1, alice.getBorrowedMediaInternal().size());
+        assertEquals("C1", alice.getBorrowedMediaInternal().get(0).getMedia().getId());
+        assertTrue(service.borrowMedia(alice, service.getMediaById("B1")));
+        service.flushJournal();
+
+        UserService users = users();
+        LibraryService reloaded = start(users);
+        LibraryUser again = reloaded.getUserByName("alice");
+        assertEquals(2, again.getOpenLoanCount());
+        assertEquals(2, again.getBorrowedMediaInternal().size());
+        List<BorrowedMedia> history = users.getLoanHistory("ALICE");
+        assertEquals(3, history.size());
+        assertTrue(history.get(0).isReturned());
+        assertEquals("B1", history.get(0).getMedia().getId());
+        assertEquals(List.of(YearMonth.now()), new LoanArchive(file("history")).months());
+        assertTrue(users.getLoanHistory("nobody").isEmpty());
+    }
+
+    @Test
+    void testStartup_ArchivesReturnedLoansFromOlderFiles() {
+        Book book = new Book("Java", "Gosling", "B1", 3);
+        new TextMediaRepository(file("books.txt"), file("cds.txt")).saveAll(List.of(book), Book.class);
+        LibraryUser bob = new LibraryUser("bob", "pw", "");
+        BorrowedMedia old = new BorrowedMedia(book, LocalDate.of(2024, 3, 2), LocalDate.of(2024, 3, 30));
+        old.setReturned(true);
+        BorrowedMedia open = new BorrowedMedia(book, LocalDate.now(), LocalDate.now().plusDays(28));
+        bob.getBorrowedMediaInternal().addAll(List.of(old, open));
+        new TextUserRepository(file("users.txt")).saveAll(List.of(bob));
+        new TextLoanRepository(file("borrowed.txt")).saveAll(List.of(bob));
+
+        LibraryService service = start(users());
+        assertEquals(1, service.getUserByName("bob").getBorrowedMediaInternal().size());
+        assertEquals(1, new TextLoanRepository(file("borrowed.txt")).findByUser("bob", id -> book).size());
+        List<LoanRepository.Loan> march = new LoanArchive(file("history"))
+                .loadMonth(YearMonth.of(2024, 3), service::getUserByName, service::getMediaById);
+        assertEquals(1, march.size());
+        assertEquals(LocalDate.of(2024, 3, 30), march.get(0).getBorrowed().getDueDate());
+        assertTrue(march.get(0).getBorrowed().isReturned());
+    }
+
+    @Test
+    void testAppend_TornLinesAndHistoryReadsOnlyTheUsersMonths() throws IOException {
+        LoanArchive archive = new LoanArchive(file("history"));
+        assertTrue(archive.months().isEmpty());
+        Book book = new Book("Java", "Gosling", "B1", 3);
+        LibraryUser carol = new LibraryUser("carol", "pw", "");
+        LibraryUser dave = new LibraryUser("dave", "pw", "");
+        BorrowedMedia jan = new BorrowedMedia(book, LocalDate.of(2025, 1, 5), LocalDate.of(2025, 2, 2));
+        jan.setReturned(true);
+        jan.setFineCents(1250);
+        BorrowedMedia feb = new BorrowedMedia(book, LocalDate.of(2025, 2, 1), LocalDate.of(2025, 3, 1));
+        feb.setReturned(true);
+        BorrowedMedia mar = new BorrowedMedia(book, LocalDate.of(2025, 3, 3), LocalDate.of(2025, 3, 31));
+        mar.setReturned(true);
+
+        assertTrue(archive.append(List.of(new LoanRepository.Loan(carol, feb), new LoanRepository.Loan(carol, jan))));
+        assertEquals(List.of(YearMonth.of(2025, 1), YearMonth.of(2025, 2)), archive.monthsOf("CAROL"));
+        Files.writeString(dir.resolve("history").resolve("loans-2025-01.txt"), "carol|B1|2025-01-0",
+                StandardOpenOption.APPEND);
+        assertTrue(archive.append(List.of(new LoanRepository.Loan(dave, mar))));
+        Files.writeString(dir.resolve("history").resolve("notes.txt"), "ignored");
+        Files.writeString(dir.resolve("history").resolve("loans-latest.txt"), "ignored");
+
+        assertEquals(List.of(YearMonth.of(2025, 1), YearMonth.of(2025, 2), YearMonth.of(2025, 3)), archive.months());
+        assertEquals(List.of(YearMonth.of(2025, 3)), archive.monthsOf("dave"));
+        assertEquals(List.of(YearMonth.of(2025, 3)), new LoanArchive(file("history")).monthsOf("dave"));
+        List<BorrowedMedia> history = archive.findByUser("Carol", id -> book);
+        assertEquals(2, history.size());
+        assertEquals(1250, history.get(0).getFineCents());
+        assertEquals(LocalDate.of(2025, 2, 1), history.get(1).getBorrowDate());
+        assertTrue(archive.findByUser(null, id -> book).isEmpty());
+        assertTrue(archive.findByUser("carol", id -> null).isEmpty());
+        assertTrue(archive.loadMonth(YearMonth.of(2025, 1), name -> null, id -> book).isEmpty());
+
+        Files.writeString(dir.resolve("blocked"), "not a directory");
+        assertFalse(new LoanArchive(file("blocked")).append(List.of(new LoanRepository.Loan(dave, mar))));
+    }
+
+    @Test
+    void testCommitStaged_RetriedAfterPartialAppendWritesBatchOnce() throws IOException {
+        LoanArchive archive = new LoanArchive(file("history"));
+        Book book = new Book("Java", "Gosling", "B1", 3);
+        LibraryUser carol = new LibraryUser("carol", "pw", "");
+        BorrowedMedia jan = new BorrowedMedia(book, LocalDate.of(2025, 1, 5), LocalDate.of(2025, 2, 2));
+        jan.setReturned(true);
+        assertTrue(archive.append(List.of(new LoanRepository.Loan(carol, jan))));
+
+        assertTrue(archive.stage(List.of(new LoanRepository.Loan(carol, jan))));
+        assertTrue(archive.hasStaged());
+        Files.writeString(dir.resolve("history").resolve("loans-2025-01.txt"), "carol|B1|2025-01-05|20",
+                StandardOpenOption.APPEND);
+        assertTrue(archive.commitStaged());
+        assertFalse(archive.hasStaged());
+        assertEquals(2, archive.findByUser("carol", id -> book).size());
+        assertTrue(archive.commitStaged());
+    }
+
+    private LibraryUser crashDuringArchiving(boolean loanFileSaved) {
+        Book book = new Book("Java", "Gosling", "B1", 3);
+        new TextMediaRepository(file("books.txt"), file("cds.txt")).saveAll(List.of(book), Book.class);
+        LibraryUser bob = new LibraryUser("bob", "pw", "");
+        BorrowedMedia old = new BorrowedMedia(book, LocalDate.of(2024, 3, 2), LocalDate.of(2024, 3, 30));
+        old.setReturned(true);
+        BorrowedMedia open = new BorrowedMedia(book, LocalDate.now(), LocalDate.now().plusDays(28));
+        bob.getBorrowedMediaInternal().addAll(loanFileSaved ? List.of(open) : List.of(old, open));
+        new TextUserRepository(file("users.txt")).saveAll(List.of(bob));
+        new TextLoanRepository(file("borrowed.txt")).saveAll(List.of(bob));
+        assertTrue(new LoanArchive(file("history")).stage(List.of(new LoanRepository.Loan(bob, old))));
+
+        UserService users = users();
+        start(users);
+        assertFalse(new LoanArchive(file("history")).hasStaged());
+        assertEquals(1, users.getLoanHistory("bob").stream().filter(BorrowedMedia::isReturned).count());
+        return users.getUserByName("bob");
+    }
+
+    @Test
+    void testStartup_DropsBatchStagedBeforeTheLoanFileWasSaved() {
+        assertEquals(1, crashDuringArchiving(false).getBorrowedMediaInternal().size());
+    }
+
+    @Test
+    void testStartup_FinishesBatchStagedAfterTheLoanFileWasSaved() {
+        assertEquals(1, crashDuringArchiving(true).getBorrowedMediaInternal().size());
+    }
+}
@@ -0,0 +1,133 @@
+package librarymanagement;
+
+import librarymanagement.persistence.MappedRecordReader;
+import org.junit.jupiter.api.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedRecordReaderTest {
+
+    private File file;
+
+    @BeforeEach
+    void setup() throws IOException {
+        file = File.createTempFile("mapped", ".txt");
+    }
+
+    @AfterEach
+    void cleanup() {
+        file.delete();
+    }
+
+    private void write(String content) throws IOException {
+        Files.writeString(file.toPath(), content, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testFields_MatchSplitSemantics() throws IOException {
+        write("B1|Java|Gosling|3|2\r\n\n  C1|Çalışma|Ünlü|4||\nshort|x\n   \nlast|no|newline|7");
+        List<String> rows = new ArrayList<>();
+        MappedRecordReader.Result result = MappedRecordReader.read(file.getPath(), r -> {
+            StringBuilder sb = new StringBuilder().append(r.size());
+            for (int i = 0; i < r.size(); i++) sb.append(',').append(r.string(i));
+            rows.add(sb.toString());
+        });
+        assertEquals(List.of("5,B1,Java,Gosling,3,2", "4,C1,Çalışma,Ünlü,4", "2,short,x", "4,last,no,newline,7"), rows);
+        assertEquals(4, result.getRecords());
+        assertEquals(0, result.getSkipped());
+    }
+
+    @Test
+    void testTypedFields() throws IOException {
+        write("2024-02-29|true|FALSE|-42|0.0|1.5|12.25|-0.1|1e3\n");
+        MappedRecordReader.read(file.getPath(), r -> {
+            assertEquals(LocalDate.of(2024, 2, 29), r.dateAt(0));
+            assertTrue(r.booleanAt(1));
+            assertFalse(r.booleanAt(2));
+            assertEquals(-42, r.intAt(3));
+            assertEquals(0, r.centsAt(4));
+            assertEquals(150, r.centsAt(5));
+            assertEquals(1225, r.centsAt(6));
+            assertEquals(-10, r.centsAt(7));
+            assertEquals(100000, r.centsAt(8));
+        });
+    }
+
+    @Test
+    void testMalformedLinesAreSkipped() throws IOException {
+        write("a|2024-13-01\nb|2024-01-01\nc|20240101\nd|2024-0x-01\n");
+        List<LocalDate> dates = new ArrayList<>();
+        MappedRecordReader.Result result = MappedRecordReader.read(file.getPath(), r -> {
+            assertThrows(NumberFormatException.class, () -> r.intAt(0));
+            dates.add(r.dateAt(1));
+        });
+        assertEquals(List.of(LocalDate.of(2024, 1, 1)), dates);
+        assertEquals(1, result.getRecords());
+        assertEquals(3, result.getSkipped());
+    }
+
+    @Test
+    void testSmallWindows_SplitLinesCorrectly() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 500; i++) sb.append("U").append(i % 7).append('|').append(i).append('\n');
+        write(sb.toString());
+        List<String> rows = new ArrayList<>();
+        MappedRecordReader.read(file.getPath(), r -> rows.add(r.string(0) + ":" + r.intAt(1)), 16);
+        assertEquals(500, rows.size());
+        for (int i = 0; i < 500; i++) assertEquals("U" + (i % 7) + ":" + i, rows.get(i));
+    }
+
+    @Test
+    void testRepeatedColumnsShareStrings() throws IOException {
+        write("alice|B1\nalice|B2\nbob|B2\n");
+        List<String> names = new ArrayList<>();
+        MappedRecordReader.read(file.getPath(), r -> names.add(r.string(0)));
+        assertSame(names.get(0), names.get(1));
+        assertEquals("bob", names.get(2));
+    }
+
+    @Test
+    void testParallelParse_KeepsFileOrderAcrossChunks() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int lines = 400_000;
+        for (int i = 0; i < lines; i++) {
+            sb.append("user").append(i / 3).append("|B").append(i).append(i % 500 == 7 ? "|2024-13-01\n" : "|2024-01-01\n");
+        }
+        write(sb.toString());
+        assertTrue(file.length() > 2 * MappedRecordReader.MIN_CHUNK);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            MappedRecordReader.Result result = new MappedRecordReader.Result();
+            List<Integer> ids = MappedRecordReader.parse(file.getPath(), () -> r -> {
+                int id = Integer.parseInt(r.string(1).substring(1));
+                r.dateAt(2);
+                return id % 1000 == 999 ? null : id;
+            }, pool, result);
+            assertEquals(lines - lines / 1000 - lines / 500, ids.size());
+            for (int i = 1; i < ids.size(); i++) assertTrue(ids.get(i - 1) < ids.get(i));
+            assertEquals(lines / 500, result.getSkipped());
+            assertEquals(lines - lines / 500, result.getRecords());
+        } finally {
+            pool.shutdown();
+        }
+        assertTrue(MappedRecordReader.parse("no_such_file.txt", () -> r -> 1, ForkJoinPool.commonPool()).isEmpty());
+    }
+
+    @Test
+    void testMissingFileAndLineTooLong() throws IOException {
+        assertEquals(0, MappedRecordReader.read("no_such_file.txt", r -> fail()).getRecords());
+        assertEquals(0, MappedRecordReader.read(null, r -> fail()).getRecords());
+        write("0123456789012345678901234567890123456789\nx\n");
+        assertEquals(0, MappedRecordReader.read(file.getPath(), r -> {}, 8).getRecords());
+    }
+}
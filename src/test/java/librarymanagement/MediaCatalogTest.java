@@ -0,0 +1,132 @@
+package librarymanagement;
+
+import librarymanagement.application.MediaCatalog;
+import librarymanagement.domain.*;
+import org.junit.jupiter.api.*;
+
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MediaCatalogTest {
+
+    private MediaCatalog catalog;
+    private Book book;
+    private CD cd;
+
+    @BeforeEach
+    void setup() {
+        catalog = new MediaCatalog();
+        book = new Book("Java", "Gosling", "B1", 1);
+        cd = new CD("Hits", "Artist", "C1", 1);
+        catalog.add(book);
+        catalog.add(cd);
+    }
+
+    @Test
+    void testGetById_CaseInsensitive() {
+        assertSame(book, catalog.getById("b1"));
+        assertSame(cd, catalog.getById("C1"));
+        assertNull(catalog.getById("X1"));
+        assertNull(catalog.getById(null));
+    }
+
+    @Test
+    void testAdd_RejectsDuplicateId() {
+        assertFalse(catalog.add(new Book("Other", "A", "b1", 1)));
+        assertEquals(2, catalog.size());
+        assertSame(book, catalog.getById("B1"));
+    }
+
+    @Test
+    void testAdd_NullOrMissingId() {
+        assertThrows(IllegalArgumentException.class, () -> catalog.add(null));
+        assertThrows(IllegalArgumentException.class, () -> catalog.add(new Book("T", "A", null, 1)));
+    }
+
+    @Test
+    void testAddAtIndex_OnlyAppend() {
+        Book b2 = new Book("T", "A", "B2", 1);
+        catalog.add(2, b2);
+        assertSame(b2, catalog.get(2));
+        assertThrows(UnsupportedOperationException.class, () -> catalog.add(0, new Book("T", "A", "B3", 1)));
+    }
+
+    @Test
+    void testRemoveById() {
+        assertSame(book, catalog.removeById("B1"));
+        assertNull(catalog.removeById("B1"));
+        assertNull(catalog.removeById(null));
+        assertFalse(catalog.containsId("B1"));
+        assertEquals(List.of(cd), catalog);
+    }
+
+    @Test
+    void testRemoveObject_OnlySameInstance() {
+        assertFalse(catalog.remove(new Book("Java", "Gosling", "B1", 1)));
+        assertFalse(catalog.remove("B1"));
+        assertTrue(catalog.remove(book));
+        assertFalse(catalog.contains(book));
+        assertTrue(catalog.contains(cd));
+    }
+
+    @Test
+    void testPositionalAccess() {
+        assertSame(book, catalog.get(0));
+        assertSame(cd, catalog.get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> catalog.get(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> catalog.get(-1));
+        assertSame(book, catalog.remove(0));
+        assertNull(catalog.getById("B1"));
+    }
+
+    @Test
+    void testIteratorRemoveAndClearKeepIndexInSync() {
+        Iterator<Media> it = catalog.iterator();
+        it.next();
+        it.remove();
+        assertNull(catalog.getById("B1"));
+
+        catalog.removeIf(m -> m.getId().equals("C1"));
+        assertFalse(catalog.containsId("C1"));
+
+        catalog.add(book);
+        catalog.clear();
+        assertTrue(catalog.isEmpty());
+        assertTrue(catalog.add(book));
+    }
+
+    @Test
+    void testPreservesInsertionOrder() {
+        Book b2 = new Book("T", "A", "B2", 1);
+        catalog.add(b2);
+        catalog.removeById("C1");
+        catalog.add(cd);
+        assertEquals(List.of(book, b2, cd), List.copyOf(catalog));
+    }
+
+    @Test
+    void testDirtyTracking_PerTypeAndRecord() {
+        catalog.markClean(Media.class);
+        assertFalse(catalog.isDirty(Book.class));
+        assertFalse(catalog.isDirty(CD.class));
+
+        cd.borrowCopy();
+        assertTrue(catalog.isDirty(CD.class));
+        assertFalse(catalog.isDirty(Book.class));
+        assertEquals(List.of(cd), catalog.getDirtyRecords());
+
+        catalog.markClean(CD.class);
+        cd.setAvailableCopies(cd.getAvailableCopies());
+        book.setTitle("Renamed");
+        assertFalse(catalog.isDirty(CD.class));
+        assertTrue(catalog.isDirty(Book.class));
+
+        catalog.markClean(Media.class);
+        catalog.removeById("B1");
+        book.returnCopy();
+        assertTrue(catalog.isDirty(Book.class));
+        assertTrue(catalog.getDirtyRecords().isEmpty());
+    }
+}
@@ -0,0 +1,178 @@
+package librarymanagement;
+
+import librarymanagement.application.MediaCatalog;
+import librarymanagement.application.MediaSearchIndex;
+import librarymanagement.application.SearchPage;
+import librarymanagement.application.SearchRanking;
+import librarymanagement.domain.*;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MediaSearchIndexTest {
+
+    private MediaCatalog catalog;
+    private MediaSearchIndex index;
+
+    @BeforeEach
+    void setup() {
+        catalog = new MediaCatalog();
+        index = new MediaSearchIndex();
+        catalog.addIndex(index);
+    }
+
+    private List<Media> scan(String keyword) {
+        List<Media> results = new ArrayList<>();
+        if (keyword == null || keyword.trim().isEmpty()) return results;
+        String lower = keyword.toLowerCase().trim();
+        for (Media m : catalog) {
+            if (m.getId().toLowerCase().contains(lower) || m.getTitle().toLowerCase().contains(lower)
+                    || m.getAuthor().toLowerCase().contains(lower)) {
+                results.add(m);
+            }
+        }
+        return results;
+    }
+
+    @Test
+    void testSearch_ShortAndLongKeywords() {
+        catalog.add(new Book("Java Basics", "John Doe", "J1", 1));
+        catalog.add(new Book("Advanced Java", "Jane Doe", "J2", 1));
+        catalog.add(new CD("Greatest Hits", "Queen", "C1", 1));
+
+        assertEquals(2, index.search("java").size());
+        assertEquals(2, index.search("  DOE ").size());
+        assertEquals(1, index.search("c1").size());
+        assertEquals(3, index.search("e").size());
+        assertEquals(1, index.search("advanced java").size());
+        assertTrue(index.search("basics java").isEmpty());
+        assertTrue(index.search("zzz").isEmpty());
+        assertTrue(index.search(null).isEmpty());
+        assertTrue(index.search("  ").isEmpty());
+    }
+
+    @Test
+    void testSearch_NoMatchAcrossFields() {
+        catalog.add(new Book("Java", "Bloch", "X1", 1));
+        assertTrue(index.search("javabloch").isEmpty());
+        assertTrue(index.search("ab").isEmpty());
+    }
+
+    @Test
+    void testSearch_FollowsTitleAndAuthorEdits() {
+        Book book = new Book("Java Basics", "John Doe", "J1", 1);
+        catalog.add(book);
+
+        book.setTitle("Kotlin in Action");
+        book.setAuthor("Jemerov");
+        assertTrue(index.search("java").isEmpty());
+        assertTrue(index.search("doe").isEmpty());
+        assertEquals(List.of(book), index.search("kotlin"));
+        assertEquals(List.of(book), index.search("jem"));
+        assertEquals(List.of(book), index.search("j1"));
+    }
+
+    @Test
+    void testSearch_FollowsDeleteAndClear() {
+        Book book = new Book("Java Basics", "John Doe", "J1", 1);
+        catalog.add(book);
+        catalog.removeById("J1");
+        assertTrue(index.search("java").isEmpty());
+        assertEquals(0, index.size());
+
+        book.setTitle("Python Basics");
+        assertTrue(index.search("python").isEmpty());
+
+        catalog.add(book);
+        catalog.clear();
+        assertTrue(index.search("python").isEmpty());
+        assertNull(book.getListener());
+    }
+
+    @Test
+    void testSearch_MatchesLinearScanAfterRandomEdits() {
+        Random random = new Random(42);
+        String[] words = {"java", "Clean", "code", "ja", "Gosling", "a", "net", "Bloch", "ode"};
+        for (int i = 0; i < 500; i++) {
+            catalog.add(new Book(randomText(random, words), randomText(random, words), "B" + i, 1));
+        }
+        for (int i = 0; i < 300; i++) {
+            String id = "B" + random.nextInt(500);
+            Media m = catalog.getById(id);
+            if (m == null) {
+                catalog.add(new CD(randomText(random, words), randomText(random, words), id, 1));
+            } else if (random.nextBoolean()) {
+                m.setTitle(randomText(random, words));
+            } else if (random.nextBoolean()) {
+                m.setAuthor(randomText(random, words));
+            } else {
+                catalog.removeById(id);
+            }
+        }
+        for (String q : new String[]{"java", "ja", "a", "b1", "clean code", "sling", "ode", "B42", "bloch net", "x"}) {
+            assertEquals(scan(q), index.search(q), q);
+        }
+    }
+
+    @Test
+    void testCompaction_KeepsResultsInCatalogOrder() {
+        for (int i = 0; i < 200; i++) catalog.add(new Book("Title " + i, "Author", "B" + i, 1));
+        for (int i = 0; i < 180; i++) catalog.removeById("B" + i);
+        for (int i = 200; i < 300; i++) catalog.add(new Book("Title " + i, "Author", "B" + i, 1));
+
+        assertEquals(120, index.size());
+        assertEquals(scan("title"), index.search("title"));
+        assertEquals(scan("author"), index.search("author"));
+    }
+
+    @Test
+    void testRankedSearch_IdThenTitlePrefixThenAuthorThenSubstring() {
+        Book substring = new Book("Learning Java", "Someone", "B1", 1);
+        Book author = new Book("Effective Code", "Java Champion", "B2", 1);
+        Book prefix = new Book("Java Basics", "Someone", "B3", 1);
+        Book exactId = new Book("Unrelated", "Someone", "JAVA", 1);
+        catalog.add(substring);
+        catalog.add(author);
+        catalog.add(prefix);
+        catalog.add(exactId);
+
+        SearchPage page = index.search("java", SearchRanking.RELEVANCE, 0, 10);
+        assertEquals(List.of(exactId, prefix, author, substring), page.getResults());
+        assertEquals(4, page.getTotalMatches());
+        assertFalse(page.hasNext());
+
+        page = index.search("java", SearchRanking.CATALOG_ORDER, 0, 10);
+        assertEquals(List.of(substring, author, prefix, exactId), page.getResults());
+    }
+
+    @Test
+    void testRankedSearch_Pagination() {
+        for (int i = 0; i < 25; i++) catalog.add(new Book("Title " + i, "Author", "B" + i, 1));
+
+        SearchPage first = index.search("title", SearchRanking.CATALOG_ORDER, 0, 10);
+        assertEquals(10, first.getResults().size());
+        assertEquals(25, first.getTotalMatches());
+        assertTrue(first.hasNext());
+
+        SearchPage last = index.search("title", SearchRanking.CATALOG_ORDER, 20, 10);
+        assertEquals(20, last.getOffset());
+        assertEquals(5, last.getResults().size());
+        assertEquals("B20", last.getResults().get(0).getId());
+        assertFalse(last.hasNext());
+        assertEquals(25, last.nextOffset());
+
+        assertTrue(index.search("title", SearchRanking.RELEVANCE, 30, 10).getResults().isEmpty());
+        assertEquals(10, index.search("t", SearchRanking.RELEVANCE, -5, 10).getResults().size());
+        assertEquals(0, index.search("title", SearchRanking.RELEVANCE, 0, 0).getTotalMatches());
+        assertEquals(0, index.search(null, SearchRanking.RELEVANCE, 0, 10).getTotalMatches());
+        assertEquals(25, index.search("title", SearchRanking.RELEVANCE, 0, Integer.MAX_VALUE).getResults().size());
+    }
+
+    private String randomText(Random random, String[] words) {
+        return words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+    }
+}
@@ -216,7 +216,35 @@ public class MediaTest {
         book.setAvailableCopies(10);
         assertEquals(10, book.getAvailableCopies());
     }
-    }
-
-
 
+    @Test
+    void testCopies_InvariantHoldsUnderContention() throws InterruptedException {
+        Book book = new Book("Popular", "A", "B99", 5);
+        java.util.concurrent.atomic.AtomicInteger held = new java.util.concurrent.atomic.AtomicInteger();
+        java.util.concurrent.atomic.AtomicInteger violations = new java.util.concurrent.atomic.AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    if (book.borrowCopy()) {
+                        if (held.incrementAndGet() > 5) violations.incrementAndGet();
+                        held.decrementAndGet();
+                        book.returnCopy();
+                    }
+                    int available = book.getAvailableCopies();
+                    if (available < 0 || available > book.getTotalCopies()) violations.incrementAndGet();
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+        assertEquals(0, violations.get());
+        assertEquals(5, book.getAvailableCopies());
+        assertEquals(5, book.getTotalCopies());
+        book.setAvailableCopies(6);
+        book.setAvailableCopies(-1);
+        assertEquals(5, book.getAvailableCopies());
+        book.returnCopy();
+        assertEquals(5, book.getAvailableCopies());
+    }
+}
@@ -0,0 +1,59 @@
+package librarymanagement;
+
+import librarymanagement.domain.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void testParse_PlainDecimalsAndLegacyDoubles() {
+        assertEquals(1250, Money.parse("12.50"));
+        assertEquals(750, Money.parse("7.5"));
+        assertEquals(0, Money.parse("0.0"));
+        assertEquals(300, Money.parse(" 3 "));
+        assertEquals(50, Money.parse(".5"));
+        assertEquals(-120, Money.parse("-1.2"));
+        assertEquals(1_000_000_000, Money.parse("1.0E7"));
+        assertEquals(29, Money.parse("0.285"));
+        assertEquals(28, Money.parse("0.284"));
+        assertThrows(NumberFormatException.class, () -> Money.parse(""));
+        assertThrows(NumberFormatException.class, () -> Money.parse("ten"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("1e30"));
+    }
+
+    @Test
+    void testFormat_AlwaysTwoPlaces() {
+        assertEquals("12.50", Money.format(1250));
+        assertEquals("0.05", Money.format(5));
+        assertEquals("-0.05", Money.format(-5));
+        assertEquals("-3.10", Money.format(-310));
+        assertEquals("0.00", Money.format(0));
+        for (long cents : new long[] {1, 99, 100, 123_456_789, -42}) assertEquals(cents, Money.parse(Money.format(cents)));
+    }
+
+    @Test
+    void testDoubleConversions_RoundToTheCent() {
+        assertEquals(29, Money.fromDouble(0.285));
+        assertEquals(10, Money.fromDouble(0.1));
+        assertEquals(0.1, Money.toDouble(10));
+        assertEquals(5000, Money.ofUnits(50));
+        assertThrows(IllegalArgumentException.class, () -> Money.fromDouble(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> Money.fromDouble(Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    void testBalance_SumsExactly() {
+        LibraryUser user = new LibraryUser("alice", "pw", "");
+        for (int i = 0; i < 10; i++) user.addFine(0.1);
+        assertEquals(100, user.getFineBalanceCents());
+        assertEquals(1.0, user.getFineBalance());
+        user.payFineCents(33);
+        assertEquals("alice () (Fine: $0.67)", user.toString());
+        user.payFine(5);
+        assertEquals(0, user.getFineBalanceCents());
+        assertEquals(2000, new CDFineStrategy().calculateFineCents(1));
+        assertEquals(3000, FineCalculator.calculateFineCents(new Book("Java", "Gosling", "B1", 1), 3));
+    }
+}
@@ -0,0 +1,133 @@
+package librarymanagement;
+
+import librarymanagement.application.LibraryService;
+import librarymanagement.domain.*;
+import librarymanagement.persistence.*;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OverdueDetectionTest {
+
+    private Path dir;
+    private LibraryService service;
+
+    private String file(String name) {
+        return dir.resolve(name).toString();
+    }
+
+    @BeforeEach
+    void setup() throws IOException {
+        dir = Files.createTempDirectory("overdue");
+        LocalDate today = LocalDate.now();
+        Book book = new Book("Java", "Gosling", "B1", 100);
+        new TextMediaRepository(file("books.txt"), file("cds.txt")).saveAll(List.of(book), Book.class);
+
+        List<LibraryUser> users = new ArrayList<>();
+        for (int i = 0; i < 4; i++) users.add(new LibraryUser("user" + i, "pw", "user" + i + "@mail.com"));
+        users.get(0).getBorrowedMediaInternal().add(new BorrowedMedia(book, today.minusDays(40), today.minusDays(12)));
+        users.get(1).getBorrowedMediaInternal().add(new BorrowedMedia(book, today.minusDays(28), today));
+        BorrowedMedia fined = new BorrowedMedia(book, today.minusDays(60), today.minusDays(32));
+        fined.setFine(32);
+        fined.setFineAdded(true);
+        users.get(2).getBorrowedMediaInternal().add(fined);
+        users.get(2).setFineBalance(32);
+        BorrowedMedia returned = new BorrowedMedia(book, today.minusDays(60), today.minusDays(32));
+        returned.setReturned(true);
+        users.get(3).getBorrowedMediaInternal().add(returned);
+        new TextUserRepository(file("users.txt")).saveAll(users);
+        new TextLoanRepository(file("borrowed.txt")).saveAll(users);
+        new TextFineRepository(file("fines.txt")).saveAll(List.of(users.get(2)));
+
+        UserService userService = new UserService(new TextUserRepository(file("users.txt")),
+                new TextLoanRepository(file("borrowed.txt")));
+        service = new LibraryService(null, userService, new TextMediaRepository(file("books.txt"), file("cds.txt")),
+                new TextFineRepository(file("fines.txt")), file("library.journal"), ForkJoinPool.commonPool());
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        service.flushJournal();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(p -> p.toFile().delete());
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    @Test
+    void testStartup_FinesOnlyLoansThatFellDue() {
+        LibraryUser late = service.getUserByName("user0");
+        assertTrue(late.getBorrowedMediaInternal().get(0).isFineAdded());
+        assertTrue(late.getFineBalance() > 0);
+        assertTrue(late.isBlocked());
+
+        LibraryUser dueToday = service.getUserByName("user1");
+        assertFalse(dueToday.getBorrowedMediaInternal().get(0).isFineAdded());
+        assertFalse(dueToday.isBlocked());
+
+        assertEquals(32, service.getUserByName("user2").getFineBalance());
+        assertTrue(service.getUserByName("user2").isBlocked());
+        assertEquals(0, service.getUserByName("user3").getFineBalance());
+        assertFalse(service.getUserByName("user3").isBlocked());
+
+        assertFalse(service.checkNewlyOverdue());
+    }
+
+    @Test
+    void testReturnedAndReloadedLoans_FollowTheIndex() {
+        LibraryUser late = service.getUserByName("user0");
+        double balance = late.getFineBalance();
+        service.payFine(late, balance);
+        service.returnMedia(late, late.getBorrowedMediaInternal().get(0));
+        assertFalse(late.isBlocked());
+
+        late.getBorrowedMediaInternal().add(new BorrowedMedia(service.getMediaById("B1"),
+                LocalDate.now().minusDays(30), LocalDate.now().minusDays(2)));
+        assertFalse(service.checkNewlyOverdue());
+        service.reindexLoans();
+        assertTrue(service.checkNewlyOverdue());
+        assertTrue(late.isBlocked());
+        assertFalse(service.checkNewlyOverdue());
+    }
+
+    @Test
+    void testRedatedLoans_MoveWithinTheIndex() {
+        LibraryUser user = service.getUserByName("user1");
+        BorrowedMedia loan = user.getBorrowedMediaInternal().get(0);
+        loan.setDueDate(LocalDate.now().plusDays(5));
+        loan.setDueDate(LocalDate.now().minusDays(3));
+        assertTrue(service.checkNewlyOverdue());
+        assertEquals(30, user.getFineBalance());
+        assertTrue(user.isBlocked());
+
+        loan.setDueDate(LocalDate.now().plusDays(5));
+        service.accrueFines(LocalDate.now().plusDays(1));
+        assertEquals(30, user.getFineBalance());
+        service.returnMedia(user, loan);
+        service.accrueFines(LocalDate.now().plusDays(40));
+        assertEquals(30, user.getFineBalance());
+    }
+
+    @Test
+    void testRemovedUsers_LeaveTheUnfinedBuckets() {
+        LibraryUser dueToday = service.getUserByName("user1");
+        BorrowedMedia loan = dueToday.getBorrowedMediaInternal().get(0);
+        dueToday.getOpenLoansInternal().remove(loan);
+        assertTrue(service.removeUser("user1"));
+
+        loan.setDueDate(LocalDate.now().minusDays(3));
+        assertFalse(service.checkNewlyOverdue());
+        service.accrueFines(LocalDate.now().plusDays(5));
+        assertEquals(0, dueToday.getFineBalance());
+        assertFalse(loan.isFineAdded());
+    }
+}
@@ -0,0 +1,155 @@
+package librarymanagement;
+
+import librarymanagement.application.CampaignReport;
+import librarymanagement.application.EmailService;
+import librarymanagement.application.LibraryService;
+import librarymanagement.domain.*;
+import librarymanagement.persistence.*;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReminderCampaignTest {
+
+    private Path dir;
+    private final List<String> outbox = new ArrayList<>();
+    private final Set<String> unreachable = new java.util.HashSet<>();
+    private LibraryService service;
+
+    private final EmailService email = new EmailService() {
+        @Override
+        public CompletableFuture<Void> sendEmail(String toEmail, String subject, String message) {
+            if (unreachable.contains(toEmail)) return CompletableFuture.failedFuture(new IllegalStateException("bounced"));
+            outbox.add(toEmail + "|" + subject + "|" + message);
+            return CompletableFuture.completedFuture(null);
+        }
+    };
+
+    private String file(String name) {
+        return dir.resolve(name).toString();
+    }
+
+    @BeforeEach
+    void setup() throws IOException {
+        dir = Files.createTempDirectory("campaign");
+        LocalDate today = LocalDate.now();
+        Book book = new Book("Java", "Gosling", "B1", 100);
+        CD cd = new CD("Hits", "Queen", "C1", 100);
+        new TextMediaRepository(file("books.txt"), file("cds.txt")).saveAll(List.of(book, cd), Book.class);
+        new TextMediaRepository(file("books.txt"), file("cds.txt")).saveAll(List.of(book, cd), CD.class);
+
+        List<LibraryUser> users = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            LibraryUser user = new LibraryUser("user" + i, "pw", i == 5 ? "" : "user" + i + "@mail.com");
+            LocalDate due = i < 6 ? today.minusDays(3 + i) : today.plusDays(5);
+            user.getBorrowedMediaInternal().add(new BorrowedMedia(book, due.minusDays(28), due));
+            if (i == 1) user.getBorrowedMediaInternal().add(new BorrowedMedia(cd, today.minusDays(20), today.minusDays(1)));
+            BorrowedMedia returned = new BorrowedMedia(cd, today.minusDays(90), today.minusDays(60));
+            returned.setReturned(true);
+            user.getBorrowedMediaInternal().add(returned);
+            users.add(user);
+        }
+        new TextUserRepository(file("users.txt")).saveAll(users);
+        new TextLoanRepository(file("borrowed.txt")).saveAll(users);
+        service = start();
+    }
+
+    private LibraryService start() {
+        UserService userService = new UserService(new TextUserRepository(file("users.txt")),
+                new TextLoanRepository(file("borrowed.txt")));
+        return new LibraryService(email, userService, new TextMediaRepository(file("books.txt"), file("cds.txt")),
+                new TextFineRepository(file("fines.txt")), file("library.journal"), ForkJoinPool.commonPool());
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        service.flushJournal();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(p -> p.toFile().delete());
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    @Test
+    void testCampaign_SendsOneReminderPerOverdueUserInBatches() {
+        List<CampaignReport> progress = new ArrayList<>();
+        CampaignReport report = service.sendOverdueReminders(file("campaign.txt"), 2, progress::add);
+
+        assertEquals(6, report.getTotal());
+        assertEquals(5, report.getSent());
+        assertEquals(1, report.getSkipped());
+        assertEquals(0, report.getFailed());
+        assertEquals(List.of(2, 4, 6), progress.stream().map(CampaignReport::getProcessed).toList());
+        assertTrue(report.getThroughput() > 0);
+        assertTrue(report.toString().startsWith("6/6 processed: 5 sent, 0 failed, 1 skipped"));
+
+        assertEquals(List.of("user0@mail.com", "user1@mail.com", "user2@mail.com", "user3@mail.com", "user4@mail.com"),
+                outbox.stream().map(m -> m.substring(0, m.indexOf('|'))).toList());
+        assertEquals("user1@mail.com|Important Reminder: You have overdue items in the library|Dear user1,\n\n"
+                + "You have 2 item(s) overdue.\nPlease return them as soon as possible to avoid additional fines.\n\n"
+                + "Thank you for your cooperation,\nLibrary Team", outbox.get(1));
+    }
+
+    @Test
+    void testRemovedUser_GetsNoReminderOrFine() {
+        LibraryUser user0 = service.getUserByName("user0");
+        long balance = user0.getFineBalanceCents();
+        assertTrue(service.removeUser("USER0"));
+
+        CampaignReport report = service.sendOverdueReminders(file("campaign.txt"), 10, null);
+        assertEquals(5, report.getTotal());
+        assertTrue(outbox.stream().noneMatch(m -> m.startsWith("user0@")));
+        assertTrue(service.accrueFines(LocalDate.now().plusDays(20)) > 0);
+        assertEquals(balance, user0.getFineBalanceCents());
+        assertFalse(service.removeUser("user0"));
+    }
+
+    @Test
+    void testCampaign_ResumesAfterRestartWithoutResending() {
+        unreachable.add("user3@mail.com");
+        CampaignReport first = service.sendOverdueReminders(file("campaign.txt"), 4, null);
+        assertEquals(4, first.getSent());
+        assertEquals(1, first.getFailed());
+
+        outbox.clear();
+        unreachable.clear();
+        service.flushJournal();
+        service = start();
+        CampaignReport second = service.sendOverdueReminders(file("campaign.txt"), 4, null);
+        assertEquals(1, second.getSent());
+        assertEquals(5, second.getSkipped());
+        assertEquals(1, outbox.size());
+        assertTrue(outbox.get(0).startsWith("user3@mail.com|"));
+    }
+
+    @Test
+    void testCampaign_StaleCheckpointIsDiscardedAndReturnsLeaveTheIndex() throws IOException {
+        Files.writeString(dir.resolve("campaign.txt"), "CAMPAIGN|2000-01-01\nuser0\nuser1\n");
+        LibraryUser user0 = service.getUserByName("user0");
+        service.payFine(user0, 1_000);
+        service.returnMedia(user0, user0.getBorrowedMediaInternal().get(0));
+
+        CampaignReport report = service.sendOverdueReminders(file("campaign.txt"), 10, null);
+        assertEquals(5, report.getTotal());
+        assertEquals(4, report.getSent());
+        assertTrue(outbox.stream().noneMatch(m -> m.startsWith("user0@")));
+        assertTrue(Files.readString(dir.resolve("campaign.txt")).startsWith("CAMPAIGN|" + LocalDate.now() + "\nuser1\n"));
+
+        assertThrows(IllegalArgumentException.class, () -> service.sendOverdueReminders(file("campaign.txt"), 0, null));
+        LibraryService silent = new LibraryService(null, new UserService((String) null, null),
+                new TextMediaRepository(file("books.txt"), file("cds.txt")), new TextFineRepository(file("fines.txt")),
+                file("silent.journal"), ForkJoinPool.commonPool());
+        assertThrows(IllegalStateException.class, () -> silent.sendOverdueReminders(file("campaign.txt"), 10, null));
+    }
+}
@@ -0,0 +1,236 @@
+package librarymanagement;
+
+import librarymanagement.application.LibraryService;
+import librarymanagement.domain.*;
+import librarymanagement.persistence.*;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RepositoryTest {
+
+    private Path dir;
+    private BTreeStore store;
+
+    @BeforeEach
+    void setup() throws IOException {
+        dir = Files.createTempDirectory("repos");
+        store = new BTreeStore(dir.resolve("library.db").toString());
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        store.close();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(p -> p.toFile().delete());
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    private String file(String name) {
+        return dir.resolve(name).toString();
+    }
+
+    private void checkMedia(MediaRepository repository) {
+        Book java = new Book("Java Basics", "Gosling", "B1", 3);
+        java.setAvailableCopies(1);
+        List<Media> catalog = List.of(new Book("Zen", "Pirsig", "B9", 1), new CD("Hits", "Queen", "C1", 2), java);
+        assertTrue(repository.saveAll(catalog, Book.class));
+        assertTrue(repository.saveAll(catalog, CD.class));
+
+        List<Media> loaded = repository.loadAll(ForkJoinPool.commonPool());
+        assertEquals(List.of("B9", "B1", "C1"), loaded.stream().map(Media::getId).toList());
+        assertInstanceOf(CD.class, loaded.get(2));
+        Media found = repository.findById("b1");
+        assertEquals(1, found.getAvailableCopies());
+        assertEquals(3, found.getTotalCopies());
+        assertInstanceOf(CD.class, repository.findById("C1"));
+        assertNull(repository.findById("X1"));
+        assertNull(repository.findById(null));
+
+        assertTrue(repository.saveAll(List.of(catalog.get(0)), Book.class));
+        assertEquals(List.of("B9", "C1"), repository.loadAll(ForkJoinPool.commonPool()).stream().map(Media::getId).toList());
+    }
+
+    private void checkUsersLoansAndFines(UserRepository users, LoanRepository loans, FineRepository fines) {
+        Book book = new Book("Java", "Gosling", "B1", 2);
+        CD cd = new CD("Hits", "Queen", "C1", 1);
+        LibraryUser bob = new LibraryUser("Bob", "pw", "bob@mail.com");
+        LibraryUser alice = new LibraryUser("alice", "secret", "a@mail.com");
+        alice.setFineBalance(7.5);
+        alice.setBlocked(true);
+        BorrowedMedia open = new BorrowedMedia(book, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 29));
+        open.setFine(7.5);
+        open.setFineAdded(true);
+        BorrowedMedia returned = new BorrowedMedia(cd, LocalDate.of(2025, 2, 1), LocalDate.of(2025, 2, 8));
+        returned.setReturned(true);
+        alice.getBorrowedMediaInternal().add(open);
+        alice.getBorrowedMediaInternal().add(returned);
+        bob.getBorrowedMediaInternal().add(new BorrowedMedia(cd, LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 8)));
+        List<LibraryUser> all = List.of(bob, alice);
+
+        assertTrue(users.saveAll(all));
+        assertTrue(loans.saveAll(all));
+        assertTrue(fines.saveAll(all));
+
+        List<LibraryUser> loadedUsers = users.loadAll();
+        assertEquals(List.of("Bob", "alice"), loadedUsers.stream().map(LibraryUser::getName).toList());
+        LibraryUser a = users.findByName("ALICE");
+        assertEquals("secret", a.getPassword());
+        assertEquals(7.5, a.getFineBalance());
+        assertTrue(a.isBlocked());
+        assertNull(users.findByName("carol"));
+        assertNull(users.findByName(null));
+
+        Function<String, Media> media = id -> id.equalsIgnoreCase("B1") ? book : id.equalsIgnoreCase("C1") ? cd : null;
+        Function<String, LibraryUser> byName = name -> loadedUsers.stream()
+                .filter(u -> u.getName().equalsIgnoreCase(name)).findFirst().orElse(null);
+        List<LoanRepository.Loan> loaded = loans.loadAll(byName, media, ForkJoinPool.commonPool());
+        assertEquals(3, loaded.size());
+        List<BorrowedMedia> aliceLoans = loaded.stream()
+                .filter(l -> l.getUser().getName().equals("alice")).map(LoanRepository.Loan::getBorrowed).toList();
+        assertSame(book, aliceLoans.get(0).getMedia());
+        assertTrue(aliceLoans.get(0).isFineAdded());
+        assertEquals(LocalDate.of(2025, 1, 29), aliceLoans.get(0).getDueDate());
+        assertTrue(aliceLoans.get(1).isReturned());
+
+        List<BorrowedMedia> byUser = loans.findByUser("Alice", media);
+        assertEquals(2, byUser.size());
+        assertEquals(7.5, byUser.get(0).getFine());
+        assertEquals(1, loans.findByUser("bob", media).size());
+        assertTrue(loans.findByUser("carol", media).isEmpty());
+        assertTrue(loans.findByUser(null, media).isEmpty());
+        assertTrue(loans.loadAll(byName, id -> null, ForkJoinPool.commonPool()).isEmpty());
+
+        Map<String, Long> loadedFines = fines.loadAll();
+        assertEquals(750L, loadedFines.get("alice"));
+        assertEquals(0L, loadedFines.get("Bob"));
+    }
+
+    private void checkAdmins(AdminRepository repository) {
+        assertTrue(repository.loadAll().isEmpty());
+        assertTrue(repository.saveAll(List.of(new Admin("root", "root@lib.com", "pw", Admin.Role.OWNER),
+                new Admin("amy", "amy@lib.com", "pw2", Admin.Role.SMALL_ADMIN))));
+        List<Admin> admins = repository.loadAll();
+        assertEquals(List.of("root", "amy"), admins.stream().map(Admin::getName).toList());
+        assertTrue(admins.get(0).isOwner());
+        assertTrue(admins.get(1).isSmallAdmin());
+    }
+
+    @Test
+    void testTextRepositories_RoundTrip() {
+        checkMedia(new TextMediaRepository(file("books.txt"), file("cds.txt")));
+        checkUsersLoansAndFines(new TextUserRepository(file("users.txt")), new TextLoanRepository(file("borrowed.txt")),
+                new TextFineRepository(file("fines.txt")));
+        checkAdmins(new TextAdminRepository(file("admins.txt")));
+        assertFalse(new TextUserRepository(null).saveAll(List.of()));
+        assertFalse(new TextLoanRepository("").saveAll(List.of()));
+    }
+
+    @Test
+    void testStoreRepositories_RoundTrip() {
+        checkMedia(new StoreMediaRepository(store));
+        checkUsersLoansAndFines(new StoreUserRepository(store), new StoreLoanRepository(store), new StoreFineRepository(store));
+        checkAdmins(new StoreAdminRepository(store));
+    }
+
+    @Test
+    void testStoreRepositories_FailedSaveKeepsPreviousContents() {
+        StoreMediaRepository repository = new StoreMediaRepository(store);
+        assertTrue(repository.saveAll(List.of(new Book("Java", "Gosling", "B1", 1)), Book.class));
+        Book huge = new Book("x".repeat(BTreeStore.MAX_ENTRY), "Someone", "B2", 1);
+        assertFalse(repository.saveAll(List.of(new Book("Go", "Pike", "B3", 1), huge), Book.class));
+        assertEquals(List.of("B1"), repository.loadAll(ForkJoinPool.commonPool()).stream().map(Media::getId).toList());
+    }
+
+    @Test
+    void testStoreRepositories_SaveChangesTouchOnlyThoseRecords() {
+        StoreMediaRepository media = new StoreMediaRepository(store);
+        Book b1 = new Book("Java", "Gosling", "B1", 1);
+        Book b2 = new Book("Go", "Pike", "B2", 1);
+        assertTrue(media.saveAll(List.of(b1, b2), Book.class));
+        Book b3 = new Book("Rust", "Hoare", "B3", 2);
+        b1.setAvailableCopies(0);
+        assertTrue(media.saveChanges(List.of(), Book.class, List.of(b3, b1, new CD("Hits", "Queen", "C1", 1)), List.of(b2)));
+        List<Media> loaded = media.loadAll(ForkJoinPool.commonPool());
+        assertEquals(List.of("B1", "B3"), loaded.stream().map(Media::getId).toList());
+        assertEquals(0, loaded.get(0).getAvailableCopies());
+
+        LibraryUser alice = new LibraryUser("alice", "pw", "a@mail.com");
+        LibraryUser bob = new LibraryUser("bob", "pw", "b@mail.com");
+        for (int i = 0; i < 3; i++) {
+            alice.getBorrowedMediaInternal().add(new BorrowedMedia(b1, LocalDate.of(2025, 1, 1 + i), LocalDate.of(2025, 2, 1)));
+        }
+        bob.getBorrowedMediaInternal().add(new BorrowedMedia(b3, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 2, 1)));
+        StoreUserRepository users = new StoreUserRepository(store);
+        StoreLoanRepository loans = new StoreLoanRepository(store);
+        StoreFineRepository fines = new StoreFineRepository(store);
+        assertTrue(users.saveAll(List.of(alice, bob)) && loans.saveAll(List.of(alice, bob)) && fines.saveAll(List.of(alice, bob)));
+
+        LibraryUser carol = new LibraryUser("carol", "pw", "c@mail.com");
+        alice.getBorrowedMediaInternal().remove(0);
+        alice.setFineBalanceCents(300);
+        List<LibraryUser> changed = List.of(carol, alice);
+        assertTrue(users.saveChanges(List.of(), changed, List.of("BOB")));
+        assertTrue(loans.saveChanges(List.of(), changed, List.of("BOB")));
+        assertTrue(fines.saveChanges(List.of(), changed, List.of("BOB")));
+        assertEquals(List.of("alice", "carol"), users.loadAll().stream().map(LibraryUser::getName).toList());
+        assertEquals(300, users.findByName("alice").getFineBalanceCents());
+        List<BorrowedMedia> aliceLoans = loans.findByUser("alice", id -> b1);
+        assertEquals(2, aliceLoans.size());
+        assertEquals(LocalDate.of(2025, 1, 2), aliceLoans.get(0).getBorrowDate());
+        assertTrue(loans.findByUser("bob", id -> b3).isEmpty());
+        assertEquals(Map.of("alice", 300L, "carol", 0L), fines.loadAll());
+
+        StoreAdminRepository admins = new StoreAdminRepository(store);
+        Admin root = new Admin("root", "root@lib.com", "pw", Admin.Role.OWNER);
+        assertTrue(admins.saveChanges(List.of(), List.of(new Admin("amy", "amy@lib.com", "pw", Admin.Role.SMALL_ADMIN))));
+        assertTrue(admins.saveChanges(List.of(), List.of(root)));
+        assertEquals(List.of("amy", "root"), admins.loadAll().stream().map(Admin::getName).toList());
+        assertEquals(file("library.journal"), loans.getJournalFile());
+    }
+
+    @Test
+    void testServices_RunOnEmbeddedStore() throws IOException {
+        UserService userService = new UserService(new StoreUserRepository(store), new StoreLoanRepository(store));
+        LibraryService service = new LibraryService(null, userService, new StoreMediaRepository(store),
+                new StoreFineRepository(store), file("library.journal"), ForkJoinPool.commonPool());
+        service.addUser(new LibraryUser("alice", "pw", "a@mail.com"));
+        service.addMedia(new Book("Java", "Gosling", "B1", 2));
+        service.addMedia(new CD("Hits", "Queen", "C1", 1));
+        assertTrue(service.borrowMedia(service.getUserByName("alice"), service.getMediaById("C1")));
+        service.compactJournal();
+        Book renamed = new Book("Written elsewhere", "Gosling", "B1", 2);
+        assertTrue(new StoreMediaRepository(store).saveChanges(List.of(), Book.class, List.of(renamed), List.of()));
+        service.returnMedia(service.getUserByName("alice"), service.getUserByName("alice").getBorrowedMediaInternal().get(0));
+        service.compactJournal();
+
+        AdminService admins = new AdminService(new StoreAdminRepository(store));
+        assertTrue(admins.addSuperAdmin("root", "root@lib.com", "pw"));
+
+        String path = store.getFileName();
+        store.close();
+        store = new BTreeStore(path);
+        UserService reloadedUsers = new UserService(new StoreUserRepository(store), new StoreLoanRepository(store));
+        LibraryService reloaded = new LibraryService(null, reloadedUsers, new StoreMediaRepository(store),
+                new StoreFineRepository(store), file("library.journal"), ForkJoinPool.commonPool());
+        assertEquals(List.of("B1", "C1"), reloaded.getAllMedia().stream().map(Media::getId).toList());
+        assertEquals("Written elsewhere", reloaded.getMediaById("B1").getTitle());
+        assertEquals(1, reloaded.getMediaById("C1").getAvailableCopies());
+        List<BorrowedMedia> loans = reloaded.getUserByName("alice").getBorrowedMediaInternal();
+        assertEquals(1, loans.size());
+        assertTrue(loans.get(0).isReturned());
+        assertSame(reloaded.getMediaById("C1"), loans.get(0).getMedia());
+        assertNotNull(new AdminService(new StoreAdminRepository(store)).login("root", "pw"));
+    }
+}
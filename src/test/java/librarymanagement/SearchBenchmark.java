@@ -0,0 +1,79 @@
+package librarymanagement;
+
+import librarymanagement.application.AutocompleteIndex;
+import librarymanagement.application.MediaCatalog;
+import librarymanagement.application.MediaSearchIndex;
+import librarymanagement.application.SearchRanking;
+import librarymanagement.domain.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares MediaSearchIndex with the old lower-case-and-contains scan over a generated catalog.
+ * <pre>java -Xmx4g -cp target/classes:target/test-classes librarymanagement.SearchBenchmark [titles]</pre>
+ */
+public class SearchBenchmark {
+
+    private static final String[] WORDS = {"java", "history", "garden", "ocean", "python", "music", "night",
+            "river", "code", "empire", "silent", "winter", "design", "patterns", "kitchen", "quantum"};
+
+    public static void main(String[] args) {
+        int titles = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Random random = new Random(1);
+        MediaCatalog catalog = new MediaCatalog();
+        MediaSearchIndex index = new MediaSearchIndex();
+        AutocompleteIndex autocomplete = new AutocompleteIndex();
+        catalog.addIndex(index);
+        catalog.addIndex(autocomplete);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < titles; i++) {
+            String title = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            catalog.add(new Book(title, "Author " + random.nextInt(50_000), "B" + i, 1));
+        }
+        System.out.printf("indexed %d titles in %d ms%n", titles, (System.nanoTime() - start) / 1_000_000);
+
+        for (String q : new String[]{"author 4242", "999999", "quantum kitchen", "b123456", "xyz"}) {
+            index.search(q);
+            scan(catalog, q);
+            int rounds = 20;
+            start = System.nanoTime();
+            int hits = 0;
+            for (int r = 0; r < rounds; r++) hits = index.search(q).size();
+            long indexUs = (System.nanoTime() - start) / rounds / 1_000;
+            start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) scan(catalog, q);
+            long scanUs = (System.nanoTime() - start) / rounds / 1_000;
+            System.out.printf("%-18s hits=%-7d index=%8d us   scan=%8d us%n", "\"" + q + "\"", hits, indexUs, scanUs);
+        }
+
+        for (String q : new String[]{"a", "java"}) {
+            index.search(q, SearchRanking.RELEVANCE, 0, 20);
+            start = System.nanoTime();
+            int total = index.search(q, SearchRanking.RELEVANCE, 0, 20).getTotalMatches();
+            long pageUs = (System.nanoTime() - start) / 1_000;
+            System.out.printf("top 20 of %-8s matches=%-7d ranked page=%8d us%n", "\"" + q + "\"", total, pageUs);
+        }
+
+        int rounds = 100_000;
+        String[] prefixes = {"j", "qua", "river c", "author 12", "zz"};
+        for (int r = 0; r < 10_000; r++) autocomplete.complete(prefixes[r % prefixes.length], 10);
+        start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) autocomplete.complete(prefixes[r % prefixes.length], 10);
+        System.out.printf("autocomplete top 10: %d ns/op%n", (System.nanoTime() - start) / rounds);
+    }
+
+    private static List<Media> scan(List<Media> catalog, String keyword) {
+        List<Media> results = new ArrayList<>();
+        String lower = keyword.toLowerCase().trim();
+        for (Media m : catalog) {
+            if (m.getId().toLowerCase().contains(lower) || m.getTitle().toLowerCase().contains(lower)
+                    || m.getAuthor().toLowerCase().contains(lower)) {
+                results.add(m);
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,74 @@
+package librarymanagement;
+
+import librarymanagement.application.EmailService;
+
+import javax.mail.Authenticator;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.PasswordAuthentication;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.io.PrintStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Messages per second against a local SMTP stand-in whose greeting is delayed to model the TLS handshake and login:
+ * the old session-and-connection-per-message path next to pooled per-worker connections.
+ * <pre>java -cp target/classes:target/test-classes:$(cat cp.txt) librarymanagement.SmtpBenchmark [messages] [handshakeMillis]</pre>
+ */
+public class SmtpBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        long handshake = args.length > 1 ? Long.parseLong(args[1]) : 20;
+        PrintStream console = System.out;
+
+        try (SmtpStub smtp = new SmtpStub(handshake)) {
+            Properties props = smtp.properties();
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+            long start = System.nanoTime();
+            for (int i = 0; i < messages; i++) sendPerMessage(props, "user" + i + "@example.com");
+            report(console, "connection per message", messages, start, smtp.getConnections());
+
+            for (int workers : new int[]{1, 4}) {
+                int before = smtp.getConnections();
+                start = System.nanoTime();
+                try (EmailService es = new EmailService("library@example.com", "secret", props, workers, messages, 1000)) {
+                    List<CompletableFuture<Void>> handles = new ArrayList<>(messages);
+                    for (int i = 0; i < messages; i++) handles.add(es.sendEmail("user" + i + "@example.com", "Reminder", "Body"));
+                    handles.forEach(CompletableFuture::join);
+                }
+                report(console, "pooled, " + workers + " worker(s)", messages, start, smtp.getConnections() - before);
+            }
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    private static void sendPerMessage(Properties props, String to) throws MessagingException {
+        Session session = Session.getInstance(props, new Authenticator() {
+            @Override
+            protected PasswordAuthentication getPasswordAuthentication() {
+                return new PasswordAuthentication("library@example.com", "secret");
+            }
+        });
+        Message msg = new MimeMessage(session);
+        msg.setFrom(new InternetAddress("library@example.com"));
+        msg.setRecipients(Message.RecipientType.TO, InternetAddress.parse(to));
+        msg.setSubject("Reminder");
+        msg.setText("Body");
+        Transport.send(msg);
+    }
+
+    private static void report(PrintStream out, String label, int messages, long start, int connections) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        out.printf("%-24s %8.0f msg/s  (%d connections)%n", label, messages / seconds, connections);
+    }
+}
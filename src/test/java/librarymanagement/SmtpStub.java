@@ -0,0 +1,119 @@
+package librarymanagement;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal local SMTP server for tests and benchmarks. It accepts every message, rejects recipients containing
+ * "bounce", waits {@code handshakeMillis} before the greeting to stand in for TLS and login, and can drop the
+ * connection after every {@code dropEvery} messages.
+ */
+final class SmtpStub implements AutoCloseable {
+    private final ServerSocket server;
+    private final long handshakeMillis;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicInteger messages = new AtomicInteger();
+    private volatile int dropEvery;
+
+    SmtpStub(long handshakeMillis) throws IOException {
+        this.handshakeMillis = handshakeMillis;
+        server = new ServerSocket(0);
+        Thread.ofVirtual().start(this::accept);
+    }
+
+    Properties properties() {
+        Properties props = new Properties();
+        props.put("mail.smtp.auth", "true");
+        props.put("mail.smtp.host", "localhost");
+        props.put("mail.smtp.port", String.valueOf(server.getLocalPort()));
+        props.put("mail.smtp.connectiontimeout", "5000");
+        props.put("mail.smtp.timeout", "5000");
+        return props;
+    }
+
+    void setDropEvery(int messages) {
+        this.dropEvery = messages;
+    }
+
+    int getConnections() {
+        return connections.get();
+    }
+
+    int getOpenConnections() {
+        return open.get();
+    }
+
+    int getMessages() {
+        return messages.get();
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                connections.incrementAndGet();
+                open.incrementAndGet();
+                Thread.ofVirtual().start(() -> serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            OutputStream out = socket.getOutputStream();
+            Thread.sleep(handshakeMillis);
+            reply(out, "220 localhost ESMTP stub");
+            int served = 0;
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                String command = line.toUpperCase();
+                if (command.startsWith("EHLO")) {
+                    reply(out, "250-localhost\r\n250-AUTH PLAIN\r\n250 8BITMIME");
+                } else if (command.startsWith("AUTH PLAIN")) {
+                    if (command.trim().equals("AUTH PLAIN")) {
+                        reply(out, "334 ");
+                        in.readLine();
+                    }
+                    reply(out, "235 Authenticated");
+                } else if (command.startsWith("RCPT") && command.contains("BOUNCE")) {
+                    reply(out, "550 No such user");
+                } else if (command.startsWith("DATA")) {
+                    reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                    for (String data = in.readLine(); data != null && !data.equals("."); data = in.readLine()) {
+                    }
+                    messages.incrementAndGet();
+                    reply(out, "250 Queued");
+                    if (dropEvery > 0 && ++served % dropEvery == 0) return;
+                } else if (command.startsWith("QUIT")) {
+                    reply(out, "221 Bye");
+                    return;
+                } else {
+                    reply(out, "250 OK");
+                }
+            }
+        } catch (IOException | InterruptedException ignored) {
+        } finally {
+            open.decrementAndGet();
+        }
+    }
+
+    private static void reply(OutputStream out, String line) throws IOException {
+        out.write((line + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+    }
+}
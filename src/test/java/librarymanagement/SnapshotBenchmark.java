@@ -0,0 +1,44 @@
+package librarymanagement;
+
+import librarymanagement.persistence.SnapshotWriter;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the old truncate-and-PrintWriter save with SnapshotWriter (temp file, fsync, rename) on a large books file.
+ * <pre>java -cp target/classes:target/test-classes librarymanagement.SnapshotBenchmark [records]</pre>
+ */
+public class SnapshotBenchmark {
+
+    private static final String FILE = "snapshot_bench.txt";
+
+    public static void main(String[] args) throws IOException {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        List<String[]> rows = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            rows.add(new String[]{"B" + i, "Title number " + i, "Author " + (i % 50_000), "3", "2"});
+        }
+
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            try (PrintWriter pw = new PrintWriter(new FileWriter(FILE, false))) {
+                for (String[] r : rows) pw.println(r[0] + "|" + r[1] + "|" + r[2] + "|" + r[3] + "|" + r[4]);
+            }
+            long printWriterMs = (System.nanoTime() - start) / 1_000_000;
+
+            start = System.nanoTime();
+            SnapshotWriter.write(FILE, rows, r -> r[0] + "|" + r[1] + "|" + r[2] + "|" + r[3] + "|" + r[4]);
+            long snapshotMs = (System.nanoTime() - start) / 1_000_000;
+
+            System.out.printf("%d records (%d MB): PrintWriter=%d ms   SnapshotWriter (fsync+rename)=%d ms%n",
+                    records, Files.size(Path.of(FILE)) >> 20, printWriterMs, snapshotMs);
+        }
+        Files.deleteIfExists(Path.of(FILE));
+    }
+}
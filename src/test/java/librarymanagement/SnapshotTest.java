@@ -0,0 +1,127 @@
+package librarymanagement;
+
+import librarymanagement.application.LibraryService;
+import librarymanagement.domain.*;
+import librarymanagement.persistence.SnapshotWriter;
+import org.junit.jupiter.api.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotTest {
+
+    private static final String USERS_FILE = "test_snapshot_users.txt";
+    private static final String BORROWED_FILE = "test_snapshot_borrowed.txt";
+    private static final long OLD = 1_000_000_000_000L;
+
+    @BeforeEach
+    void setup() {
+        cleanup();
+    }
+
+    @AfterEach
+    void cleanup() {
+        for (String f : new String[]{USERS_FILE, BORROWED_FILE, "books.txt", "cds.txt", "users_fines.txt", "test_snapshot_borrowed.journal"}) {
+            new File(f).delete();
+        }
+    }
+
+    private void write(String fileName, String... lines) throws IOException {
+        try (PrintWriter pw = new PrintWriter(fileName)) {
+            for (String line : lines) pw.println(line);
+        }
+        new File(fileName).setLastModified(OLD);
+    }
+
+    private LibraryService start() {
+        return new LibraryService(null, new UserService(USERS_FILE, BORROWED_FILE));
+    }
+
+    private void writeLibrary() throws IOException {
+        LocalDate today = LocalDate.now();
+        write(USERS_FILE, "alice:pw:a@x.com:1.5:true");
+        write("books.txt", "B1|Java|Gosling|2|1", "B2|Clean Code|Martin|1|1");
+        write("cds.txt", "C1|Hits|Queen|1|1");
+        write(BORROWED_FILE,
+                "alice|B1|" + today.minusDays(20) + "|" + today.minusDays(6) + "|false|1.5",
+                "alice|C1|" + today.minusDays(9) + "|" + today.minusDays(2) + "|true|0.0");
+        write("users_fines.txt", "alice|1.5");
+    }
+
+    @Test
+    void testStartup_WritesNothingWhenNothingChanged() throws IOException {
+        writeLibrary();
+        LibraryService service = start();
+
+        assertEquals(1, service.getMediaById("C1").getAvailableCopies());
+        assertEquals(1.5, service.getUserByName("alice").getFineBalance(), 0.001);
+        for (String f : new String[]{USERS_FILE, BORROWED_FILE, "books.txt", "cds.txt", "users_fines.txt"}) {
+            assertEquals(OLD, new File(f).lastModified(), f);
+        }
+    }
+
+    @Test
+    void testStartup_PersistsNewlyAccruedFines() throws IOException {
+        writeLibrary();
+        LocalDate today = LocalDate.now();
+        write(BORROWED_FILE, "alice|B1|" + today.minusDays(20) + "|" + today.minusDays(6) + "|false|0.0");
+
+        start();
+        assertNotEquals(OLD, new File(BORROWED_FILE).lastModified());
+        assertNotEquals(OLD, new File("users_fines.txt").lastModified());
+        assertEquals(OLD, new File("books.txt").lastModified());
+        assertEquals(OLD, new File("cds.txt").lastModified());
+    }
+
+    @Test
+    void testSaveAllMedia_RewritesOnlyChangedType() throws IOException {
+        writeLibrary();
+        LibraryService service = start();
+
+        service.getMediaById("C1").borrowCopy();
+        service.saveAllMedia();
+        assertEquals(OLD, new File("books.txt").lastModified());
+        assertNotEquals(OLD, new File("cds.txt").lastModified());
+
+        new File("cds.txt").setLastModified(OLD);
+        service.saveAllMedia();
+        assertEquals(OLD, new File("cds.txt").lastModified());
+
+        service.deleteMedia("B2");
+        service.saveAllMedia();
+        assertNotEquals(OLD, new File("books.txt").lastModified());
+        assertEquals(OLD, new File("cds.txt").lastModified());
+    }
+
+    @Test
+    void testSnapshotWriter_ReplacesFileAtomically() throws IOException {
+        write("books.txt", "old");
+        assertTrue(SnapshotWriter.write("books.txt", List.of(1, 2, 3), i -> i == 2 ? null : "line" + i));
+        assertEquals(List.of("line1", "line3"), Files.readAllLines(Path.of("books.txt")));
+        assertFalse(new File("books.txt.tmp").exists());
+    }
+
+    @Test
+    void testSnapshotWriter_CountsFailuresAndKeepsOldFile() throws IOException {
+        write("books.txt", "B1|Java|Gosling|1|1");
+        long before = SnapshotWriter.getFailureCount();
+        boolean saved = SnapshotWriter.write("books.txt", List.of("x"), s -> {
+            throw new IllegalStateException("boom");
+        });
+        assertFalse(saved);
+        assertEquals(before + 1, SnapshotWriter.getFailureCount());
+        assertTrue(SnapshotWriter.getLastFailure().contains("boom"));
+        assertEquals(List.of("B1|Java|Gosling|1|1"), Files.readAllLines(Path.of("books.txt")));
+        assertFalse(new File("books.txt.tmp").exists());
+
+        assertFalse(SnapshotWriter.write("no_such_dir/books.txt", List.of("x"), s -> s));
+        assertEquals(before + 2, SnapshotWriter.getFailureCount());
+    }
+}
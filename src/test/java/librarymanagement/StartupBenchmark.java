@@ -0,0 +1,72 @@
+package librarymanagement;
+
+import librarymanagement.application.LibraryService;
+import librarymanagement.domain.UserService;
+
+import java.io.*;
+import java.time.LocalDate;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures LibraryService startup over a generated catalog and loan history, once per bootstrap pool size
+ * from 1 up to the number of available cores (or {@code maxThreads}).
+ * Run from an empty working directory, the data files are written to it:
+ * <pre>java -cp target/classes:target/test-classes librarymanagement.StartupBenchmark [loans] [catalog] [users] [maxThreads]</pre>
+ */
+public class StartupBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int loans = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int catalog = args.length > 1 ? Integer.parseInt(args[1]) : 500_000;
+        int users = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        int maxThreads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        if (new File("books.txt").exists() || new File("users.txt").exists()) {
+            System.out.println("Refusing to overwrite library data in " + new File(".").getAbsolutePath());
+            return;
+        }
+
+        generate(loans, catalog, users);
+
+        System.out.printf("catalog=%d loans=%d users=%d cores=%d%n",
+                catalog, loans, users, Runtime.getRuntime().availableProcessors());
+        LibraryService service = null;
+        for (int threads = 1; threads <= maxThreads; threads = threads < maxThreads ? Math.min(threads * 2, maxThreads) : threads + 1) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            service = null;
+            System.gc();
+            long start = System.nanoTime();
+            UserService userService = new UserService("users.txt", "borrowed.txt");
+            service = new LibraryService(null, userService, pool);
+            System.out.printf("startup with %2d bootstrap threads: %d ms%n", threads, (System.nanoTime() - start) / 1_000_000);
+            pool.shutdown();
+        }
+
+        int lookups = 1_000_000;
+        long found = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            if (service.getMediaById("b" + (i % catalog)) != null) found++;
+        }
+        long lookupNs = (System.nanoTime() - start) / lookups;
+
+        System.out.printf("getMediaById: %d ns/op (%d hits)%n", lookupNs, found);
+    }
+
+    private static void generate(int loans, int catalog, int users) throws IOException {
+        try (PrintWriter pw = new PrintWriter(new BufferedWriter(new FileWriter("books.txt")))) {
+            for (int i = 0; i < catalog; i++) pw.println("B" + i + "|Title " + i + "|Author " + (i % 5000) + "|3|3");
+        }
+        try (PrintWriter pw = new PrintWriter(new BufferedWriter(new FileWriter("users.txt")))) {
+            for (int i = 0; i < users; i++) pw.println("user" + i + ":pw:user" + i + "@mail.com:0.0:false");
+        }
+        LocalDate today = LocalDate.now();
+        try (PrintWriter pw = new PrintWriter(new BufferedWriter(new FileWriter("borrowed.txt")))) {
+            for (int i = 0; i < loans; i++) {
+                LocalDate borrowed = today.minusDays(400 - (i % 400));
+                pw.println("user" + (i % users) + "|B" + ((i * 7919L) % catalog) + "|" + borrowed + "|"
+                        + borrowed.plusDays(28) + "|" + (i % 10 != 0) + "|0.0");
+            }
+        }
+    }
+}
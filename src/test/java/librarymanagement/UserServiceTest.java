@@ -419,5 +419,30 @@ public class UserServiceTest {
         us3.loadBorrowedMedia();
     }
 
+    @Test
+    void testGetUserByName_CaseInsensitive() {
+        assertSame(service.getUserByName("Roa"), service.getUserByName("ROA"));
+        assertNull(service.getUserByName(null));
+        assertNotNull(service.login("yaman", "456"));
+    }
 
+    @Test
+    void testAddUserObject_SharedWithLibraryService() {
+        LibraryService libraryService = new LibraryService(null, service);
+        LibraryUser user = new LibraryUser("Shared", "pw", "shared@mail.com");
+
+        libraryService.addUser(user);
+        assertSame(user, service.getUserByName("shared"));
+        assertFalse(service.addUser(new LibraryUser("SHARED", "x", "x@mail.com")));
+        assertFalse(service.addUser((LibraryUser) null));
+        assertFalse(service.addUser(null, "pw", "e@mail.com"));
+
+        service.addUser("Later", "pw", "later@mail.com");
+        assertNotNull(libraryService.getUserByName("later"));
+
+        service.removeUser("Shared");
+        assertNull(libraryService.getUserByName("Shared"));
+        assertEquals(service.getUsers().size(), libraryService.getUsers().size());
+        assertFalse(service.removeUser(null));
+    }
 }